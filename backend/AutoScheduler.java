@@ -0,0 +1,578 @@
+package backend;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import backend.objects.Task;
+
+//deterministic in-process scheduler that packs tasks into the free time of a date range, instead
+//of a round trip to the LLM. a greedy pass puts tasks in priority order (longest first within a
+//priority) at the earliest free start; a local search then spends what is left of the time budget
+//on three moves: bump lower priority new tasks out of the way of one that didn't fit, pull tasks
+//earlier, and swap a higher priority task in front of a lower priority one. a plan is better when
+//it places more HIGH, then MEDIUM, then LOW tasks, and after that when higher priority tasks start
+//earlier. existing tasks passed in are flexible: they may be moved but are never dropped.
+//nothing is placed in the past: days before today and today's minutes before now count as busy.
+public class AutoScheduler {
+    private static final int MINUTES_PER_DAY = DayOccupancy.MINUTES_PER_DAY;
+    //indexed by Task.Priority ordinal (HIGH, MEDIUM, LOW)
+    private static final long[] PLACED_VALUE = {1_000_000L, 1_000L, 1L};
+    private static final long[] START_WEIGHT = {3, 2, 1};
+
+    //one task to place: a new one, or an existing task (flexible) that may be moved
+    public static class Item {
+        private final Task task; //null for a new task
+        private final String description;
+        private final int durationMinutes;
+        private final Task.Priority priority;
+
+        public Item(String description, int durationMinutes, Task.Priority priority) {
+            this(null, description, durationMinutes, priority);
+        }
+
+        private Item(Task task, String description, int durationMinutes, Task.Priority priority) {
+            if (durationMinutes < FrontendDataHandler.MIN_TASK_DURATION_MINUTES
+                    || durationMinutes > FrontendDataHandler.MAX_TASK_DURATION_MINUTES) {
+                throw new IllegalArgumentException("Task duration must be between "
+                    + FrontendDataHandler.MIN_TASK_DURATION_MINUTES + " and "
+                    + FrontendDataHandler.MAX_TASK_DURATION_MINUTES + " minutes");
+            }
+            this.task = task;
+            this.description = description;
+            this.durationMinutes = durationMinutes;
+            this.priority = priority != null ? priority : Task.Priority.MEDIUM;
+        }
+
+        //an existing task that may be moved anywhere in the range
+        public static Item of(Task task) {
+            return new Item(task, task.getDescription(), task.getDurationMinutes(), Task.Priority.of(task.getPriority()));
+        }
+
+        public Task getTask() { return task; }
+        public String getDescription() { return description; }
+        public int getDurationMinutes() { return durationMinutes; }
+        public Task.Priority getPriority() { return priority; }
+    }
+
+    //where an item goes. taskId is the existing task's id, or the new task's once applied
+    public static class Placement {
+        private final Item item;
+        private final LocalDate date;
+        private final LocalTime start;
+        private final LocalTime end;
+        private String taskId;
+
+        Placement(Item item, LocalDate date, LocalTime start, LocalTime end) {
+            this.item = item;
+            this.date = date;
+            this.start = start;
+            this.end = end;
+            this.taskId = item.task != null ? item.task.getId() : null;
+        }
+
+        public Item getItem() { return item; }
+        public LocalDate getDate() { return date; }
+        public LocalTime getStart() { return start; }
+        public LocalTime getEnd() { return end; }
+        public String getTaskId() { return taskId; }
+
+        //true when an existing task ends up where it already was
+        public boolean isUnchanged() {
+            Task task = item.task;
+            return task != null && task.getDate().equals(date) && task.getStartTime().equals(start)
+                && task.getEndTime().equals(end);
+        }
+    }
+
+    public static class Result {
+        private final List<Placement> scheduled;
+        private final List<Item> unscheduled;
+        private final List<String> notFound;
+        private final boolean applied;
+
+        Result(List<Placement> scheduled, List<Item> unscheduled, List<String> notFound, boolean applied) {
+            this.scheduled = scheduled;
+            this.unscheduled = unscheduled;
+            this.notFound = notFound;
+            this.applied = applied;
+        }
+
+        //ordered by date then start time
+        public List<Placement> getScheduled() { return scheduled; }
+        //new tasks that weren't created, and existing tasks left where they were
+        public List<Item> getUnscheduled() { return unscheduled; }
+        //ids of existing tasks that were deleted before the scheduler got to them
+        public List<String> getNotFound() { return notFound; }
+        public boolean isApplied() { return applied; }
+    }
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int windowStart;
+    private final int windowEnd;
+    private final int stepMinutes;
+    private final long budgetNanos;
+    private final Clock clock;
+
+    //plans into [windowStart, windowEnd) of every date from `from` to `to`, with starts on
+    //multiples of stepMinutes (from midnight), spending at most budgetMillis on improving the plan
+    public AutoScheduler(LocalDate from, LocalDate to, LocalTime windowStart, LocalTime windowEnd,
+                         int stepMinutes, long budgetMillis) {
+        this(from, to, windowStart, windowEnd, stepMinutes, budgetMillis, Clock.systemDefaultZone());
+    }
+
+    //clock says what "now" is, the earliest anything may start
+    public AutoScheduler(LocalDate from, LocalDate to, LocalTime windowStart, LocalTime windowEnd,
+                         int stepMinutes, long budgetMillis, Clock clock) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        if (stepMinutes <= 0 || stepMinutes > 60) {
+            throw new IllegalArgumentException("Step must be between 1 and 60 minutes");
+        }
+        this.from = from;
+        this.to = to;
+        this.windowStart = DayOccupancy.endMinute(windowStart);
+        this.windowEnd = DayOccupancy.startMinute(windowEnd);
+        if (this.windowStart >= this.windowEnd) {
+            throw new IllegalArgumentException("Window start must be before window end");
+        }
+        this.stepMinutes = stepMinutes;
+        this.budgetNanos = Math.max(0, budgetMillis) * 1_000_000L;
+        this.clock = clock;
+    }
+
+    //plans against the manager's current tasks and, when apply is true, creates and moves the
+    //tasks. applying holds the manager's write lock throughout so the plan can't go stale in
+    //between; the existing tasks are looked up again under it, so the plan uses their current
+    //fields. a preview commits nothing, so it plans from the lock-free reads and never makes
+    //writers wait for the search
+    public Result schedule(ScheduleManager scheduleManager, List<Item> items, boolean apply) {
+        if (!apply) {
+            return plan(scheduleManager, items);
+        }
+        synchronized (scheduleManager) {
+            return apply(scheduleManager, plan(scheduleManager, items));
+        }
+    }
+
+    public Result plan(ScheduleManager scheduleManager, List<Item> items) {
+        List<Item> current = new ArrayList<>(items.size());
+        List<String> notFound = new ArrayList<>();
+        for (Item item : items) {
+            if (item.task == null) {
+                current.add(item);
+                continue;
+            }
+            Task task = scheduleManager.getTask(item.task.getId());
+            if (task == null) {
+                notFound.add(item.task.getId());
+            } else {
+                current.add(task == item.task ? item : Item.of(task));
+            }
+        }
+        Search search = new Search(scheduleManager, current, LocalDateTime.now(clock));
+        search.greedy();
+        search.improve(System.nanoTime() + budgetNanos);
+        return search.result(notFound);
+    }
+
+    private Result apply(ScheduleManager scheduleManager, Result planned) {
+        //existing tasks that move are taken out first so they can trade places with each other.
+        //one that is already gone can't happen under the lock, but it must never come back
+        Set<Placement> moves = new HashSet<>();
+        List<String> notFound = new ArrayList<>(planned.notFound);
+        for (Placement placement : planned.scheduled) {
+            if (placement.item.task != null && !placement.isUnchanged()) {
+                if (scheduleManager.removeTask(placement.item.task.getId())) {
+                    moves.add(placement);
+                } else {
+                    notFound.add(placement.item.task.getId());
+                }
+            }
+        }
+
+        List<Placement> scheduled = new ArrayList<>();
+        List<Item> unscheduled = new ArrayList<>(planned.unscheduled);
+        for (Placement placement : planned.scheduled) {
+            if (notFound.contains(placement.taskId)) {
+                continue;
+            }
+            Item item = placement.item;
+            if (item.task == null) {
+                Task created = scheduleManager.addTask(item.description, placement.start, placement.end,
+                    placement.date, false, item.priority.name());
+                if (created == null) {
+                    unscheduled.add(item);
+                    continue;
+                }
+                placement.taskId = created.getId();
+            } else if (moves.contains(placement)) {
+                Task original = item.task;
+                if (!scheduleManager.isTimeSlotAvailable(placement.start, placement.end, placement.date)) {
+                    scheduleManager.addExistingTask(original); //can't happen under the lock, but never lose it
+                    unscheduled.add(item);
+                    continue;
+                }
+                scheduleManager.addExistingTask(new Task(original.getId(), original.getDescription(),
+                    placement.start, placement.end, placement.date, original.getStatus(), original.getPriority()));
+            }
+            scheduled.add(placement);
+        }
+        return new Result(scheduled, unscheduled, notFound, true);
+    }
+
+    //the search state: every day's busy minutes (fixed tasks, the outside of the window and the
+    //items placed so far) and where each item is
+    private final class Search {
+        private final List<Item> items;
+        private final int n;
+        private final int days;
+        private final BitSet[] fixed;
+        private final BitSet[] busy;
+        private final int[] duration;
+        private final int[] priority;
+        private final boolean[] flexible;
+        private final boolean[] pinned; //flexible but left where it is
+        private final int[] day;
+        private final int[] start;
+        private final Integer[] order; //greedy order: priority, then longest first
+        private long placedValue;
+        private long startCost;
+        private long deadline;
+
+        Search(ScheduleManager scheduleManager, List<Item> items, LocalDateTime now) {
+            this.items = items;
+            this.n = items.size();
+            this.days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+            this.duration = new int[n];
+            this.priority = new int[n];
+            this.flexible = new boolean[n];
+            this.pinned = new boolean[n];
+            this.day = new int[n];
+            this.start = new int[n];
+
+            Set<String> flexibleIds = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                Item item = items.get(i);
+                duration[i] = item.durationMinutes;
+                priority[i] = item.priority.ordinal();
+                flexible[i] = item.task != null;
+                day[i] = -1;
+                if (flexible[i]) {
+                    flexibleIds.add(item.task.getId());
+                }
+            }
+
+            //flexible tasks don't count as fixed: their minutes are free for the plan. the past is
+            //fixed too, so a range that starts before now effectively starts at now
+            long today = ChronoUnit.DAYS.between(from, now.toLocalDate());
+            fixed = new BitSet[days];
+            busy = new BitSet[days];
+            for (int d = 0; d < days; d++) {
+                BitSet bits = new BitSet(MINUTES_PER_DAY);
+                bits.set(0, windowStart);
+                bits.set(windowEnd, MINUTES_PER_DAY);
+                if (d < today) {
+                    bits.set(0, MINUTES_PER_DAY);
+                } else if (d == today) {
+                    bits.set(0, DayOccupancy.endMinute(now.toLocalTime()));
+                }
+                for (Task task : scheduleManager.getTasksForDate(from.plusDays(d))) {
+                    if (!flexibleIds.contains(task.getId())) {
+                        bits.set(DayOccupancy.startMinute(task.getStartTime()), DayOccupancy.endMinute(task.getEndTime()));
+                    }
+                }
+                fixed[d] = bits;
+                busy[d] = (BitSet) bits.clone();
+            }
+
+            order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            java.util.Arrays.sort(order, Comparator.<Integer>comparingInt(i -> priority[i])
+                .thenComparing(i -> -duration[i])
+                .thenComparingInt(i -> i));
+        }
+
+        void greedy() {
+            //flexible tasks already inside the range stay put unless the search finds better. one
+            //that can't stay (it crosses the window, overlaps another task or has already started)
+            //is left alone: its minutes become fixed and it's reported as unscheduled
+            for (int i : order) {
+                if (flexible[i]) {
+                    Task task = items.get(i).task;
+                    int d = (int) ChronoUnit.DAYS.between(from, task.getDate());
+                    int s = DayOccupancy.startMinute(task.getStartTime());
+                    if (d < 0 || d >= days) {
+                        continue;
+                    }
+                    if (fits(d, s, duration[i])) {
+                        place(i, d, s);
+                    } else {
+                        int end = DayOccupancy.endMinute(task.getEndTime());
+                        fixed[d].set(s, end);
+                        busy[d].set(s, end);
+                        pinned[i] = true;
+                    }
+                }
+            }
+            for (int i : order) {
+                if (day[i] < 0 && !pinned[i]) {
+                    placeEarliest(i);
+                }
+            }
+        }
+
+        void improve(long deadline) {
+            this.deadline = deadline;
+            boolean improved = true;
+            while (improved && !timeUp()) {
+                improved = insertWithEjection();
+                improved |= pullEarlier();
+                improved |= swapForward();
+            }
+        }
+
+        Result result(List<String> notFound) {
+            List<Placement> scheduled = new ArrayList<>();
+            List<Item> unscheduled = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                Item item = items.get(i);
+                if (day[i] < 0) {
+                    unscheduled.add(item);
+                } else {
+                    int end = start[i] + duration[i];
+                    scheduled.add(new Placement(item, from.plusDays(day[i]),
+                        LocalTime.of(start[i] / 60, start[i] % 60), LocalTime.of(end / 60, end % 60)));
+                }
+            }
+            scheduled.sort(Comparator.comparing(Placement::getDate).thenComparing(Placement::getStart));
+            return new Result(scheduled, unscheduled, notFound, false);
+        }
+
+        //an unplaced item may push lower priority new items out of a slot, if they all find room
+        //elsewhere or the trade is still worth it
+        private boolean insertWithEjection() {
+            boolean improved = false;
+            for (int i : order) {
+                if (day[i] >= 0 || pinned[i]) {
+                    continue;
+                }
+                if (placeEarliest(i)) {
+                    improved = true; //room was freed by earlier moves
+                    continue;
+                }
+                candidates:
+                for (int d = 0; d < days; d++) {
+                    for (int s = align(windowStart); s + duration[i] <= windowEnd; s += stepMinutes) {
+                        if (timeUp()) {
+                            return improved;
+                        }
+                        int end = s + duration[i];
+                        int fixedMinute = fixed[d].nextSetBit(s);
+                        if (fixedMinute >= 0 && fixedMinute < end) {
+                            continue;
+                        }
+                        List<Integer> blockers = new ArrayList<>();
+                        boolean movable = true;
+                        for (int j = 0; j < n && movable; j++) {
+                            if (day[j] == d && start[j] < end && start[j] + duration[j] > s) {
+                                movable = !flexible[j] && priority[j] > priority[i];
+                                blockers.add(j);
+                            }
+                        }
+                        if (!movable) {
+                            continue;
+                        }
+                        if (tryEjection(i, d, s, blockers)) {
+                            improved = true;
+                            break candidates;
+                        }
+                    }
+                }
+            }
+            return improved;
+        }
+
+        private boolean tryEjection(int i, int d, int s, List<Integer> blockers) {
+            long valueBefore = placedValue;
+            long costBefore = startCost;
+            int[] oldDay = new int[blockers.size()];
+            int[] oldStart = new int[blockers.size()];
+            for (int k = 0; k < blockers.size(); k++) {
+                int j = blockers.get(k);
+                oldDay[k] = day[j];
+                oldStart[k] = start[j];
+                unplace(j);
+            }
+            place(i, d, s);
+            blockers.sort(Comparator.<Integer>comparingInt(j -> priority[j]).thenComparing(j -> -duration[j]));
+            for (int j : blockers) {
+                placeEarliest(j);
+            }
+            if (better(valueBefore, costBefore)) {
+                return true;
+            }
+            for (int j : blockers) {
+                if (day[j] >= 0) {
+                    unplace(j);
+                }
+            }
+            unplace(i);
+            for (int k = 0; k < blockers.size(); k++) {
+                place(blockers.get(k), oldDay[k], oldStart[k]);
+            }
+            return false;
+        }
+
+        //moves every item to the earliest start it fits at, if that's earlier than where it is
+        private boolean pullEarlier() {
+            boolean improved = false;
+            for (int i : order) {
+                if (timeUp()) {
+                    return improved;
+                }
+                if (day[i] < 0) {
+                    continue;
+                }
+                int d = day[i];
+                int s = start[i];
+                unplace(i);
+                long earliest = earliest(i);
+                if (earliest >= 0 && earliest < (long) d * MINUTES_PER_DAY + s) {
+                    place(i, (int) (earliest / MINUTES_PER_DAY), (int) (earliest % MINUTES_PER_DAY));
+                    improved = true;
+                } else {
+                    place(i, d, s);
+                }
+            }
+            return improved;
+        }
+
+        //a higher priority item takes the start of a lower priority one that comes before it,
+        //and the lower one goes to the earliest place left
+        private boolean swapForward() {
+            boolean improved = false;
+            for (int a : order) {
+                for (int b = 0; b < n; b++) {
+                    if (timeUp()) {
+                        return improved;
+                    }
+                    if (day[a] < 0 || day[b] < 0 || priority[a] >= priority[b] || position(b) >= position(a)
+                            || start[b] % stepMinutes != 0) {
+                        continue; //b may sit off the step grid if it's an existing task that kept its place
+                    }
+                    long valueBefore = placedValue;
+                    long costBefore = startCost;
+                    int dayA = day[a];
+                    int startA = start[a];
+                    int dayB = day[b];
+                    int startB = start[b];
+                    unplace(a);
+                    unplace(b);
+                    if (fits(dayB, startB, duration[a])) {
+                        place(a, dayB, startB);
+                        placeEarliest(b);
+                        if (day[b] >= 0 && better(valueBefore, costBefore)) {
+                            improved = true;
+                            continue;
+                        }
+                        if (day[b] >= 0) {
+                            unplace(b);
+                        }
+                        unplace(a);
+                    }
+                    place(a, dayA, startA);
+                    place(b, dayB, startB);
+                }
+            }
+            return improved;
+        }
+
+        private boolean placeEarliest(int i) {
+            long earliest = earliest(i);
+            if (earliest < 0) {
+                return false;
+            }
+            place(i, (int) (earliest / MINUTES_PER_DAY), (int) (earliest % MINUTES_PER_DAY));
+            return true;
+        }
+
+        //day * MINUTES_PER_DAY + start of the earliest aligned free slot for the item, or -1
+        private long earliest(int i) {
+            for (int d = 0; d < days; d++) {
+                int s = firstFit(d, duration[i]);
+                if (s >= 0) {
+                    return (long) d * MINUTES_PER_DAY + s;
+                }
+            }
+            return -1;
+        }
+
+        private int firstFit(int d, int length) {
+            BitSet bits = busy[d];
+            int s = align(bits.nextClearBit(0));
+            while (s + length <= MINUTES_PER_DAY) {
+                int next = bits.nextSetBit(s);
+                if (next < 0 || next >= s + length) {
+                    return s;
+                }
+                s = align(bits.nextClearBit(next));
+            }
+            return -1;
+        }
+
+        private boolean fits(int d, int s, int length) {
+            if (s + length > MINUTES_PER_DAY) {
+                return false;
+            }
+            int next = busy[d].nextSetBit(s);
+            return next < 0 || next >= s + length;
+        }
+
+        private void place(int i, int d, int s) {
+            busy[d].set(s, s + duration[i]);
+            day[i] = d;
+            start[i] = s;
+            placedValue += PLACED_VALUE[priority[i]];
+            startCost += START_WEIGHT[priority[i]] * ((long) d * MINUTES_PER_DAY + s);
+        }
+
+        private void unplace(int i) {
+            int d = day[i];
+            int s = start[i];
+            busy[d].clear(s, s + duration[i]);
+            day[i] = -1;
+            placedValue -= PLACED_VALUE[priority[i]];
+            startCost -= START_WEIGHT[priority[i]] * ((long) d * MINUTES_PER_DAY + s);
+        }
+
+        private long position(int i) {
+            return (long) day[i] * MINUTES_PER_DAY + start[i];
+        }
+
+        //true when the current plan beats the given score
+        private boolean better(long value, long cost) {
+            return placedValue > value || (placedValue == value && startCost < cost);
+        }
+
+        private int align(int minute) {
+            return (minute + stepMinutes - 1) / stepMinutes * stepMinutes;
+        }
+
+        private boolean timeUp() {
+            return System.nanoTime() - deadline >= 0;
+        }
+    }
+}
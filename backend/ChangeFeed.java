@@ -0,0 +1,125 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+//ordered log of task/note create, update and delete events. the last `capacity` events are kept
+//in a ring buffer so a client that reconnects can ask for everything after the last id it saw.
+//ids look like "<boot>-<seq>": the boot part changes on every server start, so ids from a
+//previous run are recognised as unknown instead of being mistaken for current ones.
+public class ChangeFeed {
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final Change[] buffer;
+    private long lastSeq = 0;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public interface Subscriber {
+        void onChange(Change change);
+    }
+
+    public static class Change {
+        private final String id;
+        private final long seq;
+        private final String entity;
+        private final String type;
+        private final String entityId;
+        private final String json;
+
+        Change(String id, long seq, String entity, String type, String entityId, String dataJson) {
+            this.id = id;
+            this.seq = seq;
+            this.entity = entity;
+            this.type = type;
+            this.entityId = entityId;
+            //serialized now, the entity may change again before the event is sent
+            this.json = "{\"id\":\"" + id + "\",\"entity\":\"" + entity + "\",\"type\":\"" + type
+                + "\",\"entityId\":\"" + entityId + "\",\"data\":" + dataJson + "}";
+        }
+
+        public String getId() { return id; }
+        public long getSeq() { return seq; }
+        public String getEntity() { return entity; }
+        public String getType() { return type; }
+        public String getEntityId() { return entityId; }
+        public String toJson() { return json; }
+    }
+
+    public ChangeFeed(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Change feed capacity must be positive");
+        }
+        this.buffer = new Change[capacity];
+    }
+
+    //start recording changes from both managers
+    public void attach(ScheduleManager scheduleManager, NoteManager noteManager) {
+        scheduleManager.addListener((type, task) ->
+            publish("task", type, task.getId(), FrontendDataHandler.taskToJson(task)));
+        noteManager.addListener((type, note) ->
+            publish("note", type, note.getId(), FrontendDataHandler.noteToJson(note)));
+    }
+
+    public void addSubscriber(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void removeSubscriber(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    //subscribers are called with the feed lock held, so they see events strictly in id order
+    public synchronized Change publish(String entity, String type, String entityId, String dataJson) {
+        long seq = ++lastSeq;
+        Change change = new Change(bootId + "-" + seq, seq, entity, type, entityId, dataJson);
+        buffer[(int) (seq % buffer.length)] = change;
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onChange(change);
+            } catch (RuntimeException e) {
+                System.err.println("Change feed subscriber failed: " + e.getMessage());
+            }
+        }
+        return change;
+    }
+
+    public synchronized String getLastId() {
+        return bootId + "-" + lastSeq;
+    }
+
+    //events after lastEventId, oldest first. returns null when they can no longer be replayed
+    //(id from another server run, malformed, or already pushed out of the buffer); the caller
+    //should then reload everything
+    public synchronized List<Change> changesSince(String lastEventId) {
+        long seq = parseSeq(lastEventId);
+        if (seq < 0 || seq > lastSeq || lastSeq - seq > buffer.length) {
+            return null;
+        }
+        List<Change> result = new ArrayList<>((int) (lastSeq - seq));
+        for (long s = seq + 1; s <= lastSeq; s++) {
+            result.add(buffer[(int) (s % buffer.length)]);
+        }
+        return result;
+    }
+
+    private long parseSeq(String eventId) {
+        if (eventId == null) {
+            return -1;
+        }
+        int dash = eventId.lastIndexOf('-');
+        if (dash < 0 || !eventId.substring(0, dash).equals(bootId)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    //run action while no event can be published, so a new subscriber can replay the backlog and
+    //start listening without missing or repeating an event
+    public synchronized void withLock(Runnable action) {
+        action.run();
+    }
+}
@@ -0,0 +1,22 @@
+package backend;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//global version clock shared by ScheduleManager and NoteManager. every change takes the next
+//number, so "changed since N" is a single comparison across both managers.
+//the clock starts at the boot time in microseconds: versions keep increasing across restarts,
+//and a version below BOOT_VERSION is known to come from an earlier run (whose deletions are gone).
+public final class DataVersion {
+    public static final long BOOT_VERSION = System.currentTimeMillis() * 1000;
+    private static final AtomicLong clock = new AtomicLong(BOOT_VERSION);
+
+    private DataVersion() {}
+
+    public static long next() {
+        return clock.incrementAndGet();
+    }
+
+    public static long current() {
+        return clock.get();
+    }
+}
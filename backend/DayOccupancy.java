@@ -0,0 +1,102 @@
+package backend;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import backend.objects.Task;
+
+//one day as 1440 bits, one per minute, set while any task occupies that minute. a task covers
+//the minutes from its start (rounded down) up to its end (rounded up), so seconds never make a
+//busy minute look free. instances are immutable: ScheduleManager replaces a day's bitmap on every
+//change and readers use whatever they got without locking. free slot search then walks 64 minutes
+//per step instead of testing candidate slots against the day's tasks.
+public final class DayOccupancy {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS = (MINUTES_PER_DAY + 63) / 64;
+
+    public static final DayOccupancy EMPTY = new DayOccupancy(new long[WORDS]);
+
+    private final long[] bits;
+
+    private DayOccupancy(long[] bits) {
+        this.bits = bits;
+    }
+
+    //bitmap for exactly these tasks
+    public static DayOccupancy of(List<Task> tasks) {
+        long[] bits = new long[WORDS];
+        for (Task task : tasks) {
+            set(bits, startMinute(task.getStartTime()), endMinute(task.getEndTime()));
+        }
+        return new DayOccupancy(bits);
+    }
+
+    //a copy with the task's minutes set as well
+    public DayOccupancy with(Task task) {
+        long[] copy = bits.clone();
+        set(copy, startMinute(task.getStartTime()), endMinute(task.getEndTime()));
+        return new DayOccupancy(copy);
+    }
+
+    public boolean isBusy(int minute) {
+        return (bits[minute >>> 6] & (1L << minute)) != 0;
+    }
+
+    //first free minute in [from, to), or -1
+    public int nextFree(int from, int to) {
+        return next(from, to, true);
+    }
+
+    //first busy minute in [from, to), or to if none
+    public int nextBusy(int from, int to) {
+        int minute = next(from, to, false);
+        return minute < 0 ? to : minute;
+    }
+
+    public static int startMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    public static int endMinute(LocalTime time) {
+        int minute = startMinute(time);
+        return time.getSecond() != 0 || time.getNano() != 0 ? minute + 1 : minute;
+    }
+
+    private int next(int from, int to, boolean free) {
+        if (from >= to) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long current = free ? ~bits[word] : bits[word];
+        current &= -1L << from; //ignore minutes before `from` in the first word
+        while (true) {
+            if (current != 0) {
+                int minute = (word << 6) + Long.numberOfTrailingZeros(current);
+                return minute < to ? minute : -1;
+            }
+            if (++word >= WORDS || (word << 6) >= to) {
+                return -1;
+            }
+            current = free ? ~bits[word] : bits[word];
+        }
+    }
+
+    private static void set(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to; //bits below `to` in its word (all of them when to is a multiple of 64)
+        if (first == last) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) {
+            bits[i] = -1L;
+        }
+        bits[last] |= lastMask;
+    }
+}
@@ -0,0 +1,25 @@
+package backend;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+//a gap with no tasks on one date, from start up to end (see ScheduleManager.findFreeSlots)
+public class FreeSlot {
+    private final LocalDate date;
+    private final LocalTime start;
+    private final LocalTime end;
+
+    public FreeSlot(LocalDate date, LocalTime start, LocalTime end) {
+        this.date = date;
+        this.start = start;
+        this.end = end;
+    }
+
+    public LocalDate getDate() { return date; }
+    public LocalTime getStart() { return start; }
+    public LocalTime getEnd() { return end; }
+
+    public int getDurationMinutes() {
+        return DayOccupancy.startMinute(end) - DayOccupancy.startMinute(start);
+    }
+}
@@ -1,18 +1,26 @@
 package backend;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 
+import backend.objects.Note;
 import backend.objects.Task;
 
 public class FrontendDataHandler {
 
-    private static final int MAX_DESCRIPTION_LENGTH = 200;
-    private static final int MIN_TASK_DURATION_MINUTES = 15;
-    private static final int MAX_TASK_DURATION_MINUTES = 480;
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    public static final int MAX_DESCRIPTION_LENGTH = 200;
+    public static final int MIN_TASK_DURATION_MINUTES = 15;
+    public static final int MAX_TASK_DURATION_MINUTES = 480;
 
     //validation error messages
     public static final String ERR_INVALID_JSON = "Invalid JSON format";
@@ -119,13 +127,11 @@ public class FrontendDataHandler {
         public TaskResponse() {}
 
         public TaskResponse(Task task) {
-            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
             this.id = task.getId();
             this.description = task.getDescription();
-            this.startTime = task.getStartTime().format(timeFormatter);
-            this.endTime = task.getEndTime().format(timeFormatter);
-            this.date = task.getDate().format(dateFormatter);
+            this.startTime = task.getStartTime().format(TIME_FORMATTER);
+            this.endTime = task.getEndTime().format(TIME_FORMATTER);
+            this.date = task.getDate().format(DATE_FORMATTER);
             this.status = task.getStatus().toString();
             this.priority = task.getPriority();
             this.duration = task.getDurationMinutes();
@@ -199,6 +205,20 @@ public class FrontendDataHandler {
         }
     }
 
+    /**
+     * Parses a frontend task creation request straight from the request body
+     * @param body UTF-8 JSON request body
+     * @return TaskCreateRequest object or null if the body is not a JSON object
+     */
+    public static TaskCreateRequest parseTaskCreateRequest(InputStream body) {
+        try {
+            return toTaskCreateRequest(JsonReader.readFlatObject(body));
+        } catch (IOException e) {
+            System.err.println("Error parsing task create request: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Parses JSON string from frontend task creation request
      * @param json JSON string from frontend
@@ -206,73 +226,32 @@ public class FrontendDataHandler {
      */
     public static TaskCreateRequest parseTaskCreateRequest(String json) {
         try {
-            // Ultra-simple approach for reliability
-            // System.out.println("Parsing JSON: " + json);
-
-            TaskCreateRequest request = new TaskCreateRequest();
-
-            // Extract each field individually using simple string operations
-            String descPattern = "\"description\":\"";
-            int descStart = json.indexOf(descPattern);
-            if (descStart != -1) {
-                descStart += descPattern.length();
-                int descEnd = json.indexOf("\"", descStart);
-                if (descEnd != -1) {
-                    request.setDescription(json.substring(descStart, descEnd));
-                }
-            }
-
-            String startPattern = "\"startTime\":\"";
-            int startStart = json.indexOf(startPattern);
-            if (startStart != -1) {
-                startStart += startPattern.length();
-                int startEnd = json.indexOf("\"", startStart);
-                if (startEnd != -1) {
-                    request.setStartTime(json.substring(startStart, startEnd));
-                }
-            }
-
-            String endPattern = "\"endTime\":\"";
-            int endStart = json.indexOf(endPattern);
-            if (endStart != -1) {
-                endStart += endPattern.length();
-                int endEnd = json.indexOf("\"", endStart);
-                if (endEnd != -1) {
-                    request.setEndTime(json.substring(endStart, endEnd));
-                }
-            }
-
-            String datePattern = "\"date\":\"";
-            int dateStart = json.indexOf(datePattern);
-            if (dateStart != -1) {
-                dateStart += datePattern.length();
-                int dateEnd = json.indexOf("\"", dateStart);
-                if (dateEnd != -1) {
-                    request.setDate(json.substring(dateStart, dateEnd));
-                }
-            }
-
-            String priorityPattern = "\"priority\":\"";
-            int priorityStart = json.indexOf(priorityPattern);
-            if (priorityStart != -1) {
-                priorityStart += priorityPattern.length();
-                int priorityEnd = json.indexOf("\"", priorityStart);
-                if (priorityEnd != -1) {
-                    request.setPriority(json.substring(priorityStart, priorityEnd));
-                }
-            }
-
-            // System.out.println("Parsed successfully: desc=" + request.getDescription() +
-            //                  ", start=" + request.getStartTime() +
-            //                  ", end=" + request.getEndTime() +
-            //                  ", date=" + request.getDate() +
-            //                  ", priority=" + request.getPriority());
+            return toTaskCreateRequest(JsonReader.readFlatObject(json));
+        } catch (IOException e) {
+            System.err.println("Error parsing task create request: " + e.getMessage());
+            return null;
+        }
+    }
 
-            return request;
+    private static TaskCreateRequest toTaskCreateRequest(Map<String, String> fields) {
+        TaskCreateRequest request = new TaskCreateRequest();
+        request.setDescription(fields.get("description"));
+        request.setStartTime(fields.get("startTime"));
+        request.setEndTime(fields.get("endTime"));
+        request.setDate(fields.get("date"));
+        request.setPriority(fields.get("priority"));
+        return request;
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error parsing task create request: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Parses a frontend task update request straight from the request body
+     * @param body UTF-8 JSON request body
+     * @return TaskUpdateRequest object or null if invalid
+     */
+    public static TaskUpdateRequest parseTaskUpdateRequest(InputStream body) {
+        try {
+            return toTaskUpdateRequest(JsonReader.readFlatObject(body));
+        } catch (IOException e) {
             return null;
         }
     }
@@ -284,34 +263,18 @@ public class FrontendDataHandler {
      */
     public static TaskUpdateRequest parseTaskUpdateRequest(String json) {
         try {
-            json = json.trim();
-            if (!json.startsWith("{") || !json.endsWith("}")) {
-                return null;
-            }
-            json = json.substring(1, json.length() - 1);
-
-            TaskUpdateRequest request = new TaskUpdateRequest();
-            String[] pairs = json.split(",");
-
-            for (String pair : pairs) {
-                String[] keyValue = pair.split(":", 2);
-                if (keyValue.length != 2) continue;
-
-                String key = keyValue[0].trim().replaceAll("\"", "");
-                String value = keyValue[1].trim().replaceAll("\"", "");
-
-                if ("status".equals(key)) {
-                    request.setStatus(value);
-                }
-            }
-
-            return request;
-
-        } catch (Exception e) {
+            return toTaskUpdateRequest(JsonReader.readFlatObject(json));
+        } catch (IOException e) {
             return null;
         }
     }
 
+    private static TaskUpdateRequest toTaskUpdateRequest(Map<String, String> fields) {
+        TaskUpdateRequest request = new TaskUpdateRequest();
+        request.setStatus(fields.get("status"));
+        return request;
+    }
+
     public static List<String> validateTaskCreateRequest(TaskCreateRequest request) {
         List<String> errors = new ArrayList<>();
 
@@ -426,14 +389,12 @@ public class FrontendDataHandler {
      */
     public static String tasksToJson(List<Task> tasks) 
     {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append(taskToJson(tasks.get(i)));
-            if (i < tasks.size() - 1) sb.append(",");
+        try (JsonWriter json = JsonWriter.acquire()) {
+            writeTasks(json, tasks);
+            return json.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //no sink, nothing to fail
         }
-        sb.append("]");
-        return sb.toString();
     }
 
     /**
@@ -443,18 +404,188 @@ public class FrontendDataHandler {
      */
     public static String taskToJson(Task task)
     {
-        TaskResponse response = createTaskResponse(task);
-        return String.format(
-            "{\"id\":\"%s\",\"description\":\"%s\",\"startTime\":\"%s\",\"endTime\":\"%s\",\"date\":\"%s\",\"status\":\"%s\",\"priority\":\"%s\",\"duration\":%d}",
-            response.getId(),
-            escapeJsonString(response.getDescription()),
-            response.getStartTime(),
-            response.getEndTime(),
-            response.getDate(),
-            response.getStatus(),
-            response.getPriority(),
-            response.getDuration()
-        );
+        return new String(taskJsonBytes(task), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts Note object to JSON string for frontend
+     * @param note Note object
+     * @return JSON string
+     */
+    public static String noteToJson(Note note)
+    {
+        return new String(noteJsonBytes(note), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes tasks as a JSON array in the frontend format
+     * @param json writer to append to
+     * @param tasks List of tasks
+     */
+    public static void writeTasks(JsonWriter json, List<Task> tasks) throws IOException
+    {
+        json.beginArray();
+        for (Task task : tasks) {
+            writeTask(json, task);
+        }
+        json.endArray();
+    }
+
+    /**
+     * Writes one task in the frontend format
+     * @param json writer to append to
+     * @param task Task object
+     */
+    public static void writeTask(JsonWriter json, Task task) throws IOException
+    {
+        json.rawValue(taskJsonBytes(task));
+    }
+
+    /**
+     * Writes free slots as a JSON array of {date, startTime, endTime, duration}
+     * @param json writer to append to
+     * @param slots free slots from ScheduleManager.findFreeSlots
+     */
+    public static void writeFreeSlots(JsonWriter json, List<FreeSlot> slots) throws IOException
+    {
+        json.beginArray();
+        for (FreeSlot slot : slots) {
+            json.beginObject();
+            json.name("date").value(slot.getDate());
+            json.name("startTime").value(slot.getStart());
+            json.name("endTime").value(slot.getEnd());
+            json.name("duration").value(slot.getDurationMinutes());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    public static void writeAutoSchedule(JsonWriter json, AutoScheduler.Result result) throws IOException
+    {
+        json.beginObject();
+        json.name("applied").value(result.isApplied());
+        json.name("scheduled").beginArray();
+        for (AutoScheduler.Placement placement : result.getScheduled()) {
+            json.beginObject();
+            json.name("taskId");
+            if (placement.getTaskId() != null) {
+                json.value(placement.getTaskId());
+            } else {
+                json.nullValue();
+            }
+            json.name("description").value(placement.getItem().getDescription());
+            json.name("date").value(placement.getDate());
+            json.name("startTime").value(placement.getStart());
+            json.name("endTime").value(placement.getEnd());
+            json.name("priority").value(placement.getItem().getPriority().name());
+            json.name("duration").value(placement.getItem().getDurationMinutes());
+            json.name("moved").value(placement.getItem().getTask() != null && !placement.isUnchanged());
+            json.endObject();
+        }
+        json.endArray();
+        json.name("unscheduled").beginArray();
+        for (AutoScheduler.Item item : result.getUnscheduled()) {
+            json.beginObject();
+            json.name("taskId");
+            if (item.getTask() != null) {
+                json.value(item.getTask().getId());
+            } else {
+                json.nullValue();
+            }
+            json.name("description").value(item.getDescription());
+            json.name("priority").value(item.getPriority().name());
+            json.name("duration").value(item.getDurationMinutes());
+            json.endObject();
+        }
+        json.endArray();
+        json.name("notFound").beginArray();
+        for (String taskId : result.getNotFound()) {
+            json.value(taskId);
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    /**
+     * Task JSON in the frontend format as UTF-8. Serialized once and cached on the task until
+     * one of its setters runs, so list responses are mostly byte copies.
+     * @param task Task object
+     * @return the task's cached JSON (do not modify)
+     */
+    public static byte[] taskJsonBytes(Task task)
+    {
+        synchronized (task) {
+            byte[] cached = task.getCachedJson();
+            if (cached == null) {
+                try (JsonWriter json = JsonWriter.acquire()) {
+                    json.beginObject();
+                    json.name("id").value(task.getId());
+                    json.name("description").value(task.getDescription());
+                    json.name("startTime").value(task.getStartTime());
+                    json.name("endTime").value(task.getEndTime());
+                    json.name("date").value(task.getDate());
+                    json.name("status").value(task.getStatus().name());
+                    json.name("priority").value(task.getPriority());
+                    json.name("duration").value(task.getDurationMinutes());
+                    json.endObject();
+                    cached = json.toByteArray();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); //no sink, nothing to fail
+                }
+                task.setCachedJson(cached);
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Writes notes as a JSON array in the frontend format
+     * @param json writer to append to
+     * @param notes List of notes
+     */
+    public static void writeNotes(JsonWriter json, List<Note> notes) throws IOException
+    {
+        json.beginArray();
+        for (Note note : notes) {
+            writeNote(json, note);
+        }
+        json.endArray();
+    }
+
+    /**
+     * Writes one note in the frontend format
+     * @param json writer to append to
+     * @param note Note object
+     */
+    public static void writeNote(JsonWriter json, Note note) throws IOException
+    {
+        json.rawValue(noteJsonBytes(note));
+    }
+
+    /**
+     * Note JSON in the frontend format as UTF-8, cached on the note until its content changes
+     * @param note Note object
+     * @return the note's cached JSON (do not modify)
+     */
+    public static byte[] noteJsonBytes(Note note)
+    {
+        synchronized (note) {
+            byte[] cached = note.getCachedJson();
+            if (cached == null) {
+                try (JsonWriter json = JsonWriter.acquire()) {
+                    json.beginObject();
+                    json.name("id").value(note.getId());
+                    json.name("content").value(note.getContent());
+                    json.name("creationTime").isoValue(note.getCreationTime());
+                    json.endObject();
+                    cached = json.toByteArray();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                note.setCachedJson(cached);
+            }
+            return cached;
+        }
     }
 
     //validates if a time string is in valid HH:MM format
@@ -0,0 +1,277 @@
+package backend;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+//append-only log of changes that aren't in the snapshot file (tasks.json, notes.json) yet, one
+//flat JSON object per line. append() only buffers the record; callers append from their manager's
+//change listener, so records are in the order the changes happened. flush() makes everything
+//appended so far durable, and concurrent flushes are group committed: one thread writes and
+//fsyncs every buffered record while the others wait for it, so a burst of saves costs one fsync
+//instead of one whole-file rewrite each.
+//the log is split into segments (tasks.journal.1, tasks.journal.2, ...). rotate() starts a new
+//one so a snapshot taken at that moment covers every older segment, which can then be deleted.
+//records carry whole entities and replay in order, so replaying a segment over a snapshot that
+//already has its changes (or newer ones) is harmless.
+public class Journal implements Closeable {
+
+    //opens a segment file for appending (tests substitute one that fails)
+    interface Opener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private final File base;
+    private final Opener opener;
+    private FileChannel channel;
+    private long segment; //number of the segment being appended to
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appended; //records appended so far
+    private long durable; //records written and fsynced
+    private FileChannel flushing; //the channel a thread is writing to outside the lock, or null
+    private long fileSize; //bytes of whole records in the current segment
+    private long size; //bytes appended since the last rotate, flushed or not
+    private long oldestAppend; //System.currentTimeMillis() of the first of those, 0 if none
+
+    //appends to a new segment after any that already exist
+    public Journal(File base) throws IOException {
+        this(base, path -> FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND));
+    }
+
+    Journal(File base, Opener opener) throws IOException {
+        this.base = base;
+        this.opener = opener;
+        List<File> existing = segments(base);
+        this.segment = existing.isEmpty() ? 1 : segmentNumber(base, existing.get(existing.size() - 1)) + 1;
+        this.channel = open(segment);
+    }
+
+    //buffers one record (a JSON object without line breaks)
+    public synchronized void append(byte[] record) {
+        pending.write(record, 0, record.length);
+        pending.write('\n');
+        appended++;
+        if (size == 0) {
+            oldestAppend = System.currentTimeMillis();
+        }
+        size += record.length + 1;
+    }
+
+    //returns once every record appended before the call is on disk
+    public void flush() throws IOException {
+        byte[] batch;
+        long batchEnd;
+        FileChannel target;
+        long targetSize;
+        synchronized (this) {
+            long goal = appended;
+            while (durable < goal && flushing != null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal");
+                }
+            }
+            if (durable >= goal) {
+                return; //another thread's flush covered our records
+            }
+            batch = pending.toByteArray();
+            batchEnd = appended;
+            pending = new ByteArrayOutputStream();
+            target = channel;
+            targetSize = fileSize;
+            flushing = target;
+        }
+
+        boolean written = false;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            target.force(false);
+            written = true;
+        } finally {
+            synchronized (this) {
+                if (written) {
+                    durable = batchEnd;
+                } else {
+                    try {
+                        target.truncate(targetSize); //drop a partly written batch
+                    } catch (IOException e) {
+                        System.err.println("Error truncating " + base.getName() + ": " + e.getMessage());
+                    }
+                    //keep the records for the next flush, ahead of anything appended meanwhile
+                    ByteArrayOutputStream retry = new ByteArrayOutputStream();
+                    retry.write(batch, 0, batch.length);
+                    pending.writeTo(retry);
+                    pending = retry;
+                }
+                if (target == channel) {
+                    if (written) {
+                        fileSize += batch.length;
+                    }
+                } else {
+                    closeQuietly(target); //rotated away while we were writing
+                }
+                flushing = null;
+                notifyAll();
+            }
+        }
+    }
+
+    //starts a new segment and returns the number of the last one it closed. call while holding
+    //the lock of the manager that appends, and take the snapshot under the same lock: the
+    //snapshot then has every change in segments up to the returned number. records still
+    //buffered go to the new segment, which is fine since they replay harmlessly
+    public synchronized long rotate() throws IOException {
+        FileChannel next = open(segment + 1);
+        FileChannel old = channel;
+        channel = next;
+        segment++;
+        fileSize = 0;
+        size = pending.size();
+        oldestAppend = size > 0 ? System.currentTimeMillis() : 0;
+        if (flushing != old) {
+            old.close(); //otherwise the flushing thread closes it when it's done
+        }
+        return segment - 1;
+    }
+
+    //deletes the segments up to and including the given number (after a snapshot covered them)
+    public void deleteSegments(long upTo) {
+        for (File file : segments(base)) {
+            if (segmentNumber(base, file) <= upTo && !file.delete()) {
+                System.err.println("Could not delete " + file.getName());
+            }
+        }
+    }
+
+    //bytes appended since the last rotate
+    public synchronized long size() {
+        return size;
+    }
+
+    //milliseconds since the oldest record appended since the last rotate, 0 if there is none
+    public synchronized long ageMillis() {
+        return size == 0 ? 0 : System.currentTimeMillis() - oldestAppend;
+    }
+
+    //flushes what is left and closes the file
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                channel.close();
+            }
+        }
+    }
+
+    //hands every record of every segment to `apply` in order and returns how many there were. a
+    //line that doesn't parse ends its segment: normally the last record, cut short by a crash
+    public static int replay(File base, Consumer<Map<String, String>> apply) throws IOException {
+        int records = 0;
+        for (File file : segments(base)) {
+            records += replaySegment(file, apply);
+        }
+        return records;
+    }
+
+    //the existing segments oldest first. a plain base file (from before segments) counts as 0
+    public static List<File> segments(File base) {
+        List<File> segments = new ArrayList<>();
+        File dir = base.getAbsoluteFile().getParentFile();
+        File[] files = dir != null ? dir.listFiles() : null;
+        if (files != null) {
+            for (File file : files) {
+                if (segmentNumber(base, file) >= 0) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(file -> segmentNumber(base, file)));
+        return segments;
+    }
+
+    //deletes every segment (after the journal has been folded into the snapshot at startup)
+    public static void deleteAll(File base) throws IOException {
+        for (File file : segments(base)) {
+            Files.delete(file.toPath());
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return opener.open(new File(base.getPath() + "." + number).toPath());
+    }
+
+    //"tasks.journal.12" -> 12, "tasks.journal" -> 0, anything else -> -1
+    private static long segmentNumber(File base, File file) {
+        String name = file.getName();
+        String prefix = base.getName();
+        if (name.equals(prefix)) {
+            return 0;
+        }
+        if (!name.startsWith(prefix + ".") || name.length() == prefix.length() + 1) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = prefix.length() + 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || number > Long.MAX_VALUE / 10 - 9) {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static int replaySegment(File file, Consumer<Map<String, String>> apply) throws IOException {
+        int records = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Map<String, String> record;
+                try {
+                    record = JsonReader.readFlatObject(line);
+                } catch (JsonReader.MalformedJsonException e) {
+                    System.err.println("Ignoring " + file.getName() + " from line " + lineNumber + ": " + e.getMessage());
+                    break;
+                }
+                apply.accept(record);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + base.getName() + ": " + e.getMessage());
+        }
+    }
+}
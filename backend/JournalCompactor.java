@@ -0,0 +1,85 @@
+package backend;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//folds journals into their snapshot files on one background thread, so request threads never
+//wait for a snapshot write. every few seconds each registered journal is checked: once it holds
+//maxBytes of changes, or its oldest change is maxAgeMillis old, its compaction runs (for tasks
+//TaskPersistence.compactJournal). that keeps both replay at startup and the journal on disk small.
+public class JournalCompactor {
+
+    //writes a snapshot and deletes the journal segments it covers
+    public interface Compaction {
+        void run() throws IOException;
+    }
+
+    private static final class Entry {
+        final String name;
+        final Journal journal;
+        final Compaction compaction;
+
+        Entry(String name, Journal journal, Compaction compaction) {
+            this.name = name;
+            this.journal = journal;
+            this.compaction = compaction;
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService worker;
+
+    public JournalCompactor(long maxBytes, long maxAgeMillis) {
+        if (maxBytes <= 0 || maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("Compaction thresholds must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void register(String name, Journal journal, Compaction compaction) {
+        entries.add(new Entry(name, journal, compaction));
+    }
+
+    public void start(long checkMillis) {
+        worker.scheduleWithFixedDelay(this::check, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //waits for a compaction in progress to finish, then stops (call before closing the journals)
+    public void stop() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Journal compaction still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void check() {
+        for (Entry entry : entries) {
+            long size = entry.journal.size();
+            if (size < maxBytes && (size == 0 || entry.journal.ageMillis() < maxAgeMillis)) {
+                continue;
+            }
+            try {
+                entry.compaction.run();
+            } catch (IOException | RuntimeException e) {
+                //the segments stay until a later compaction covers them, so nothing is lost
+                System.err.println("Error compacting the " + entry.name + " journal: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package backend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+//pull-style JSON tokenizer. reads straight from a Reader (or a UTF-8 InputStream such as a request
+//body) through a small char buffer, so a document is never copied into one big String first.
+//callers walk the document with peek()/beginObject()/nextName()/nextString()/... like a cursor;
+//nextFlatObject() covers the common "one object of simple fields" request body.
+public class JsonReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    public static class MalformedJsonException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+
+    //what the reader expects next inside each open container
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[1024];
+    private int pos = 0;
+    private int limit = 0;
+    private long offset = 0; //chars consumed before buffer[0], for error messages
+
+    private int[] stack = new int[16];
+    private int depth = 1;
+
+    private Token peeked;
+    private String peekedValue; //text of a peeked NAME, STRING, NUMBER or BOOLEAN
+    private final StringBuilder text = new StringBuilder(); //reused for every string/number
+
+    public JsonReader(Reader in) {
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    //reads one object and returns its top-level fields as text: strings unescaped, numbers and
+    //booleans as written, null as null. nested objects and arrays are skipped. the whole input
+    //must be that one object
+    public static Map<String, String> readFlatObject(InputStream in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Map<String, String> fields = reader.nextFlatObject();
+        reader.endDocument();
+        return fields;
+    }
+
+    public static Map<String, String> readFlatObject(String json) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        Map<String, String> fields = reader.nextFlatObject();
+        reader.endDocument();
+        return fields;
+    }
+
+    public Map<String, String> nextFlatObject() throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        beginObject();
+        while (hasNext()) {
+            String name = nextName();
+            switch (peek()) {
+                case STRING:
+                case NUMBER:
+                case BOOLEAN:
+                    fields.put(name, nextString());
+                    break;
+                case NULL:
+                    nextNull();
+                    fields.put(name, null);
+                    break;
+                default:
+                    skipValue();
+            }
+        }
+        endObject();
+        return fields;
+    }
+
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int scope = stack[depth - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return peekValue(nextNonWhitespace());
+            case NONEMPTY_DOCUMENT:
+                c = nextNonWhitespace();
+                if (c != -1) {
+                    throw syntaxError("Unexpected data after the document");
+                }
+                return peeked = Token.END_DOCUMENT;
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    depth--;
+                    return peeked = Token.END_ARRAY;
+                }
+                if (scope == NONEMPTY_ARRAY) {
+                    if (c != ',') {
+                        throw syntaxError("Expected ',' or ']'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                return peekValue(c);
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    depth--;
+                    return peeked = Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("Expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Expected a field name");
+                }
+                stack[depth - 1] = DANGLING_NAME;
+                peekedValue = readString();
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return peekValue(nextNonWhitespace());
+            default:
+                throw new IllegalStateException("Reader is closed");
+        }
+    }
+
+    private Token peekValue(int c) throws IOException {
+        switch (c) {
+            case '{':
+                push(EMPTY_OBJECT);
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                push(EMPTY_ARRAY);
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                peekedValue = readString();
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+            case 'n':
+                String literal = readLiteral((char) c);
+                if (literal.equals("null")) {
+                    return peeked = Token.NULL;
+                }
+                if (!literal.equals("true") && !literal.equals("false")) {
+                    throw syntaxError("Unexpected value '" + literal + "'");
+                }
+                peekedValue = literal;
+                return peeked = Token.BOOLEAN;
+            case -1:
+                throw syntaxError("Unexpected end of input");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    peekedValue = readNumber((char) c);
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+    }
+
+    public void endDocument() throws IOException {
+        expect(Token.END_DOCUMENT);
+    }
+
+    //true while the current object or array has more elements
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return peekedValue;
+    }
+
+    //string value; numbers and booleans are returned as written so loosely typed clients still work
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER && token != Token.BOOLEAN) {
+            throw syntaxError("Expected a string but was " + token);
+        }
+        peeked = null;
+        return peekedValue;
+    }
+
+    public long nextLong() throws IOException {
+        String value = nextString();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            double d = Double.parseDouble(value);
+            if (d != Math.rint(d)) {
+                throw new NumberFormatException("Not a whole number: " + value);
+            }
+            return (long) d;
+        }
+    }
+
+    public int nextInt() throws IOException {
+        return Math.toIntExact(nextLong());
+    }
+
+    public double nextDouble() throws IOException {
+        return Double.parseDouble(nextString());
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return peekedValue.equals("true");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    //skips the next value, including everything nested inside it
+    public void skipValue() throws IOException {
+        int nesting = 0;
+        do {
+            Token token = peek();
+            peeked = null;
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                nesting++;
+            } else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                nesting--;
+            } else if (token == Token.NAME) {
+                continue; //the value after it is part of the same container
+            } else if (token == Token.END_DOCUMENT) {
+                throw syntaxError("Unexpected end of input");
+            }
+        } while (nesting > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = null;
+        stack[0] = -1;
+        depth = 1;
+        in.close();
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            int[] bigger = new int[stack.length * 2];
+            System.arraycopy(stack, 0, bigger, 0, depth);
+            stack = bigger;
+        }
+        stack[depth++] = scope;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+    //reads the rest of a string whose opening quote was consumed, decoding escapes
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            //copy runs of plain characters straight from the buffer
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"' || c == '\\') {
+                    break;
+                }
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+
+            int c = read();
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c == '\\') {
+                text.append(readEscape());
+            } else {
+                text.append((char) c); //first character after a buffer refill
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid \\u escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private String readNumber(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                text.append(c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        String number = text.toString();
+        try {
+            Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid number '" + number + "'");
+        }
+        return number;
+    }
+
+    private String readLiteral(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if (c < 'a' || c > 'z') {
+                break;
+            }
+            text.append(c);
+            pos++;
+        }
+        return text.toString();
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + " at character " + (offset + pos));
+    }
+}
@@ -1,18 +1,53 @@
 package backend;
 
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.io.IOException;
+import java.io.StringReader;
 
 public final class JsonUtils {
 
+    //finds the first string field called fieldName in the JSON object embedded in json (text before
+    //the first '{' and after the object is ignored, nested objects are searched depth first).
+    //returns null when the field is missing or the object is malformed
     public static String extractJsonStringValue(String json, String fieldName) {
-        String regex = "\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"";
-        Pattern p = Pattern.compile(regex);
-        Matcher m = p.matcher(json);
-        if (m.find()) {
-            return unescapeJsonString(m.group(1));
+        if (json == null) return null;
+        int start = json.indexOf('{');
+        if (start < 0) return null;
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json.substring(start)));
+            return findString(reader, fieldName);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    //walks the next value looking for the field. stops at the first match (the reader is thrown
+    //away afterwards); a value without a match is consumed completely
+    private static String findString(JsonReader reader, String fieldName) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals(fieldName) && reader.peek() == JsonReader.Token.STRING) {
+                        return reader.nextString();
+                    }
+                    String found = findString(reader, fieldName);
+                    if (found != null) return found;
+                }
+                reader.endObject();
+                return null;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String found = findString(reader, fieldName);
+                    if (found != null) return found;
+                }
+                reader.endArray();
+                return null;
+            default:
+                reader.skipValue();
+                return null;
         }
-        return null;
     }
 
     public static String unescapeJsonString(String s) {
@@ -0,0 +1,461 @@
+package backend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+//streaming JSON writer that encodes UTF-8 straight into a byte buffer. writers are pooled per
+//thread (acquire()/close()), so serializing a response reuses the same buffer every time instead
+//of going through String.format, StringBuilder and getBytes.
+//without a sink the whole document stays in the buffer (toByteArray()/toString()). with a sink the
+//buffer is fixed in size: small documents are handed over in one piece with their exact length,
+//bigger ones are streamed out a buffer at a time (chunked for HTTP responses).
+public final class JsonWriter implements Closeable {
+
+    //receives the output. called once: with the exact byte length when the whole document fit in
+    //the buffer, or with -1 when it is bigger and is about to be streamed in pieces
+    public interface Sink {
+        OutputStream open(long length) throws IOException;
+    }
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_RETAINED_SIZE = 256 * 1024; //bigger buffers are dropped, not pooled
+
+    //two per thread: one for the document being written, one for a fragment serialized while the
+    //document is open (a cache miss in the middle of a list)
+    private static final ThreadLocal<JsonWriter[]> POOL = ThreadLocal.withInitial(() -> new JsonWriter[2]);
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TWO_DIGITS = new byte[200]; //"00".."99"
+    private static final byte[] TIMES = new byte[24 * 60 * 5]; //"HH:mm" for every minute of the day
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TWO_DIGITS[i * 2] = (byte) ('0' + i / 10);
+            TWO_DIGITS[i * 2 + 1] = (byte) ('0' + i % 10);
+        }
+        for (int minute = 0; minute < 24 * 60; minute++) {
+            int at = minute * 5;
+            TIMES[at] = TWO_DIGITS[(minute / 60) * 2];
+            TIMES[at + 1] = TWO_DIGITS[(minute / 60) * 2 + 1];
+            TIMES[at + 2] = ':';
+            TIMES[at + 3] = TWO_DIGITS[(minute % 60) * 2];
+            TIMES[at + 4] = TWO_DIGITS[(minute % 60) * 2 + 1];
+        }
+    }
+
+    private boolean inUse;
+    private byte[] buf = new byte[BUFFER_SIZE];
+    private int count;
+
+    private Sink sink;
+    private OutputStream out; //set once the sink has been opened for streaming
+
+    //one flag per open object/array: does the next element need a comma
+    private boolean[] needsComma = new boolean[16];
+    private int depth;
+    private boolean afterName;
+    private boolean lineBreaks;
+
+    private JsonWriter() {}
+
+    //a reset writer from this thread's pool; close() hands it back. when both pooled writers are
+    //already in use a fresh one is returned instead
+    public static JsonWriter acquire() {
+        JsonWriter[] pool = POOL.get();
+        for (int i = 0; i < pool.length; i++) {
+            if (pool[i] == null) {
+                pool[i] = new JsonWriter();
+            }
+            if (!pool[i].inUse) {
+                pool[i].inUse = true;
+                return pool[i];
+            }
+        }
+        JsonWriter writer = new JsonWriter();
+        writer.inUse = true;
+        return writer;
+    }
+
+    public static JsonWriter acquire(Sink sink) {
+        JsonWriter writer = acquire();
+        writer.sink = sink;
+        return writer;
+    }
+
+    //puts each element of the top-level array on its own line (for files people may open)
+    public JsonWriter lineBreaks(boolean lineBreaks) {
+        this.lineBreaks = lineBreaks;
+        return this;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push();
+        writeByte('{');
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push();
+        writeByte('[');
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        if (lineBreaks && depth == 0) {
+            writeByte('\n');
+        }
+        writeByte(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        if (needsComma[depth - 1]) {
+            writeByte(',');
+        }
+        needsComma[depth - 1] = true;
+        writeQuoted(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        beforeValue();
+        if (value == null) {
+            writeBytes(NULL);
+        } else {
+            writeQuoted(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return this;
+        }
+        ensure(20);
+        if (value < 0) {
+            buf[count++] = '-';
+            value = -value;
+        }
+        int start = count;
+        do {
+            buf[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        //digits were written backwards
+        for (int i = start, j = count - 1; i < j; i++, j--) {
+            byte b = buf[i];
+            buf[i] = buf[j];
+            buf[j] = b;
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    //an already serialized value (a cached fragment), copied as is
+    public JsonWriter rawValue(byte[] json) throws IOException {
+        beforeValue();
+        writeBytes(json);
+        return this;
+    }
+
+    //"HH:mm" (seconds are dropped)
+    public JsonWriter value(LocalTime time) throws IOException {
+        beforeValue();
+        if (time == null) {
+            writeBytes(NULL);
+            return this;
+        }
+        ensure(7);
+        buf[count++] = '"';
+        System.arraycopy(TIMES, (time.getHour() * 60 + time.getMinute()) * 5, buf, count, 5);
+        count += 5;
+        buf[count++] = '"';
+        return this;
+    }
+
+    //"yyyy-MM-dd"
+    public JsonWriter value(LocalDate date) throws IOException {
+        beforeValue();
+        if (date == null) {
+            writeBytes(NULL);
+            return this;
+        }
+        ensure(12);
+        buf[count++] = '"';
+        writeDate(date);
+        buf[count++] = '"';
+        return this;
+    }
+
+    //"yyyy-MM-dd HH:mm:ss"
+    public JsonWriter value(LocalDateTime dateTime) throws IOException {
+        beforeValue();
+        if (dateTime == null) {
+            writeBytes(NULL);
+            return this;
+        }
+        ensure(21);
+        buf[count++] = '"';
+        writeDate(dateTime.toLocalDate());
+        buf[count++] = ' ';
+        System.arraycopy(TIMES, (dateTime.getHour() * 60 + dateTime.getMinute()) * 5, buf, count, 5);
+        count += 5;
+        buf[count++] = ':';
+        buf[count++] = TWO_DIGITS[dateTime.getSecond() * 2];
+        buf[count++] = TWO_DIGITS[dateTime.getSecond() * 2 + 1];
+        buf[count++] = '"';
+        return this;
+    }
+
+    //ISO-8601 exactly as LocalDateTime.toString() writes it ("yyyy-MM-ddTHH:mm", then ":ss" and
+    //a fraction only when they are non-zero)
+    public JsonWriter isoValue(LocalDateTime dateTime) throws IOException {
+        beforeValue();
+        if (dateTime == null) {
+            writeBytes(NULL);
+            return this;
+        }
+        ensure(32);
+        buf[count++] = '"';
+        writeDate(dateTime.toLocalDate());
+        buf[count++] = 'T';
+        System.arraycopy(TIMES, (dateTime.getHour() * 60 + dateTime.getMinute()) * 5, buf, count, 5);
+        count += 5;
+        int second = dateTime.getSecond();
+        int nano = dateTime.getNano();
+        if (second > 0 || nano > 0) {
+            buf[count++] = ':';
+            buf[count++] = TWO_DIGITS[second * 2];
+            buf[count++] = TWO_DIGITS[second * 2 + 1];
+            if (nano > 0) {
+                buf[count++] = '.';
+                int digits = nano % 1000_000 == 0 ? 3 : nano % 1000 == 0 ? 6 : 9;
+                int fraction = nano / (digits == 3 ? 1000_000 : digits == 6 ? 1000 : 1);
+                for (int i = digits - 1; i >= 0; i--) {
+                    buf[count + i] = (byte) ('0' + fraction % 10);
+                    fraction /= 10;
+                }
+                count += digits;
+            }
+        }
+        buf[count++] = '"';
+        return this;
+    }
+
+    //bytes written so far that are still in the buffer
+    public int size() {
+        return count;
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[count];
+        System.arraycopy(buf, 0, bytes, 0, count);
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+
+    //hands the rest of the document to the sink and closes the sink's stream
+    public void finish() throws IOException {
+        if (sink == null) {
+            throw new IllegalStateException("JsonWriter has no sink");
+        }
+        if (out == null) {
+            out = sink.open(count);
+        }
+        out.write(buf, 0, count);
+        count = 0;
+        out.close();
+    }
+
+    //returns the writer to its thread's pool
+    @Override
+    public void close() {
+        count = 0;
+        depth = 0;
+        afterName = false;
+        lineBreaks = false;
+        sink = null;
+        out = null;
+        if (buf.length > MAX_RETAINED_SIZE) {
+            buf = new byte[BUFFER_SIZE];
+        }
+        inUse = false;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth == 0) {
+            return;
+        }
+        if (needsComma[depth - 1]) {
+            writeByte(',');
+        }
+        needsComma[depth - 1] = true;
+        if (lineBreaks && depth == 1) {
+            writeByte('\n');
+        }
+    }
+
+    private void push() {
+        if (depth == needsComma.length) {
+            boolean[] bigger = new boolean[depth * 2];
+            System.arraycopy(needsComma, 0, bigger, 0, depth);
+            needsComma = bigger;
+        }
+        needsComma[depth++] = false;
+    }
+
+    private void writeDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year >= 0 && year <= 9999) {
+            buf[count++] = TWO_DIGITS[(year / 100) * 2];
+            buf[count++] = TWO_DIGITS[(year / 100) * 2 + 1];
+            buf[count++] = TWO_DIGITS[(year % 100) * 2];
+            buf[count++] = TWO_DIGITS[(year % 100) * 2 + 1];
+        } else {
+            //LocalDate.toString's form for years outside 0000-9999 ("+10000", "-0001"), rare enough to allocate
+            String text = date.toString();
+            byte[] prefix = text.substring(0, text.length() - 6).getBytes(StandardCharsets.US_ASCII);
+            ensure(prefix.length + 7);
+            System.arraycopy(prefix, 0, buf, count, prefix.length);
+            count += prefix.length;
+        }
+        buf[count++] = '-';
+        buf[count++] = TWO_DIGITS[date.getMonthValue() * 2];
+        buf[count++] = TWO_DIGITS[date.getMonthValue() * 2 + 1];
+        buf[count++] = '-';
+        buf[count++] = TWO_DIGITS[date.getDayOfMonth() * 2];
+        buf[count++] = TWO_DIGITS[date.getDayOfMonth() * 2 + 1];
+    }
+
+    //writes s as a quoted JSON string, escaping as needed and encoding UTF-8 on the fly
+    private void writeQuoted(String s) throws IOException {
+        writeByte('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (count + 6 > buf.length) {
+                ensure(6);
+            }
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buf[count++] = (byte) c;
+                    continue;
+                }
+                buf[count++] = '\\';
+                switch (c) {
+                    case '"': buf[count++] = '"'; break;
+                    case '\\': buf[count++] = '\\'; break;
+                    case '\n': buf[count++] = 'n'; break;
+                    case '\r': buf[count++] = 'r'; break;
+                    case '\t': buf[count++] = 't'; break;
+                    case '\b': buf[count++] = 'b'; break;
+                    case '\f': buf[count++] = 'f'; break;
+                    default:
+                        buf[count++] = 'u';
+                        buf[count++] = '0';
+                        buf[count++] = '0';
+                        buf[count++] = HEX[c >> 4];
+                        buf[count++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[count++] = (byte) (0xF0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[count++] = '?'; //unpaired surrogate, same replacement String.getBytes uses
+            } else {
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAscii(String s) throws IOException {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buf[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeByte(char b) throws IOException {
+        if (count == buf.length) {
+            ensure(1);
+        }
+        buf[count++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        if (count + bytes.length > buf.length) {
+            out.write(bytes); //bigger than the whole streaming buffer, which ensure() just emptied
+            return;
+        }
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+    }
+
+    //makes room for n more bytes: streams the buffer out when there is a sink, grows it otherwise
+    private void ensure(int n) throws IOException {
+        if (count + n <= buf.length) {
+            return;
+        }
+        if (sink != null) {
+            if (out == null) {
+                out = sink.open(-1);
+            }
+            out.write(buf, 0, count);
+            count = 0;
+            return;
+        }
+        byte[] bigger = new byte[Math.max(buf.length * 2, count + n)];
+        System.arraycopy(buf, 0, bigger, 0, count);
+        buf = bigger;
+    }
+}
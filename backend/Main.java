@@ -27,6 +27,8 @@ public class Main {
         NotePersistence.loadNotes(noteManager);
         System.out.println("Loaded " + noteManager.getNoteCount() + " notes");
 
+        startPersistence(scheduleManager, noteManager);
+
         //fetch and display start time and end time of all tasks present if any
         // List<Task> allTasks = scheduleManager.getAllTasks();
         // if (!allTasks.isEmpty()) {
@@ -58,5 +60,52 @@ public class Main {
             System.out.println("\nServer shutting down...");
         }
     }
+
+    //persistence.mode decides what TaskPersistence.saveTasks/NotePersistence.saveNotes do:
+    //  journal (default): append each change to tasks.journal/notes.journal (one fsync per batch of
+    //    saves), folded into the JSON files in the background once a journal reaches
+    //    persistence.compact.maxBytes or persistence.compact.maxAgeSeconds
+    //  write-behind: return at once and rewrite tasks.json/notes.json on a background thread, at most
+    //    once per persistence.writeBehind.delayMillis (changes in that window can be lost on a crash)
+    //  full: rewrite tasks.json/notes.json on every save
+    //the background writers flush on shutdown
+    private static void startPersistence(ScheduleManager scheduleManager, NoteManager noteManager) {
+        String mode = ServerConfig.getString("persistence.mode", "journal");
+        switch (mode) {
+            case "full":
+                return;
+            case "write-behind": {
+                long delayMillis = ServerConfig.getInt("persistence.writeBehind.delayMillis", 200);
+                TaskPersistence.startWriteBehind(scheduleManager, delayMillis);
+                NotePersistence.startWriteBehind(noteManager, delayMillis);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    TaskPersistence.stopWriteBehind();
+                    NotePersistence.stopWriteBehind();
+                }, "write-behind-shutdown"));
+                return;
+            }
+            default: {
+                if (!mode.equals("journal")) {
+                    System.err.println("Invalid value for persistence.mode: " + mode + " (using journal)");
+                }
+                JournalCompactor compactor = new JournalCompactor(
+                    ServerConfig.getInt("persistence.compact.maxBytes", 4 * 1024 * 1024),
+                    ServerConfig.getInt("persistence.compact.maxAgeSeconds", 600) * 1000L);
+                try {
+                    compactor.register("task", TaskPersistence.openJournal(scheduleManager), TaskPersistence::compactJournal);
+                    compactor.register("note", NotePersistence.openJournal(noteManager), NotePersistence::compactJournal);
+                } catch (IOException e) {
+                    //whatever didn't open keeps saving the whole file
+                    System.err.println("Failed to open a journal: " + e.getMessage());
+                }
+                compactor.start(ServerConfig.getInt("persistence.compact.checkMillis", 5000));
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    compactor.stop();
+                    TaskPersistence.closeJournal();
+                    NotePersistence.closeJournal();
+                }, "journal-shutdown"));
+            }
+        }
+    }
 }
 
@@ -2,19 +2,55 @@ package backend;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import backend.objects.Note;
 
+//public methods are synchronized since the web server handles requests on several threads
 public class NoteManager {
     private List<Note> notes;
 
+    //notified after every change ("create", "update" or "delete"), while the manager lock is held
+    public interface NoteListener {
+        void onNoteChanged(String type, Note note);
+    }
+    private final List<NoteListener> listeners = new CopyOnWriteArrayList<>();
+    private final VersionIndex versionIndex = new VersionIndex(ServerConfig.getInt("sync.maxTombstones", 10000));
+
     public NoteManager() {
         this.notes = new ArrayList<>();
     }
 
-    public Note addNote(String content) {
+    public void addListener(NoteListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(NoteListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireChange(String type, Note note) {
+        if ("delete".equals(type)) {
+            versionIndex.remove(note.getId());
+        } else {
+            versionIndex.touch(note.getId());
+        }
+        for (NoteListener listener : listeners) {
+            try {
+                listener.onNoteChanged(type, note);
+            } catch (RuntimeException e) {
+                System.err.println("Note listener failed on " + type + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized Note addNote(String content) {
         String sanitized = JsonUtils.sanitizeUnicodePunctuation(content != null ? content : "");
         if (sanitized.trim().isEmpty()) {
             throw new IllegalArgumentException("Note content cannot be empty");
@@ -22,36 +58,48 @@ public class NoteManager {
 
         Note newNote = new Note(sanitized.trim(), LocalDateTime.now());
         notes.add(newNote);
+        fireChange("create", newNote);
         return newNote;
     }
 
-    public void addExistingNote(Note note) {
+    public synchronized void addExistingNote(Note note) {
         if (note == null) {
             throw new IllegalArgumentException("Note cannot be null");
         }
         notes.add(note);
+        fireChange("create", note);
     }
 
-    public boolean deleteNote(String noteId) {
-        return notes.removeIf(note -> noteId.equals(note.getId()));
+    public synchronized boolean deleteNote(String noteId) {
+        Iterator<Note> it = notes.iterator();
+        while (it.hasNext()) {
+            Note note = it.next();
+            if (noteId.equals(note.getId())) {
+                it.remove();
+                fireChange("delete", note);
+                return true;
+            }
+        }
+        return false;
     }
 
-    public boolean updateNote(String noteId, String newContent) {
+    public synchronized boolean updateNote(String noteId, String newContent) {
         String sanitized = JsonUtils.sanitizeUnicodePunctuation(newContent != null ? newContent : "");
         for (Note note : notes) {
             if (noteId.equals(note.getId())) {
                 note.setContent(sanitized);
+                fireChange("update", note);
                 return true;
             }
         }
         return false;
     }
 
-    public List<Note> getAllNotes() {
+    public synchronized List<Note> getAllNotes() {
         return new ArrayList<>(notes); 
     }
 
-    public Note getNoteById(String noteId) {
+    public synchronized Note getNoteById(String noteId) {
         for (Note note : notes) {
             if (noteId.equals(note.getId())) {
                 return note;
@@ -60,15 +108,41 @@ public class NoteManager {
         return null;
     }
 
-    public int getNoteCount() {
+    //version of the latest note change (see DataVersion)
+    public synchronized long getVersion() {
+        return versionIndex.getLastVersion();
+    }
+
+    //notes created or updated, and ids of notes deleted, after the given version
+    public synchronized SyncDelta<Note> getChangesSince(long since) {
+        if (versionIndex.needsReset(since)) {
+            return new SyncDelta<>(true, new ArrayList<>(notes), Collections.emptyList());
+        }
+        Set<String> changedIds = new HashSet<>(versionIndex.changedSince(since));
+        List<Note> changed = new ArrayList<>();
+        if (!changedIds.isEmpty()) {
+            for (Note note : notes) {
+                if (changedIds.contains(note.getId())) {
+                    changed.add(note);
+                }
+            }
+        }
+        return new SyncDelta<>(false, changed, versionIndex.deletedSince(since));
+    }
+
+    public synchronized int getNoteCount() {
         return notes.size();
     }
 
-    public void clearAllNotes() {
+    public synchronized void clearAllNotes() {
+        List<Note> removed = new ArrayList<>(notes);
         notes.clear();
+        for (Note note : removed) {
+            fireChange("delete", note);
+        }
     }
 
-    public String getAllNotesAsString() {
+    public synchronized String getAllNotesAsString() {
         if (notes.isEmpty()) {
             return "No notes found.";
         }
@@ -1,134 +1,236 @@
 package backend;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 import backend.objects.Note;
 
-import java.util.ArrayList;
-
+//notes.json with notes.journal in front of it, same scheme as TaskPersistence
 public class NotePersistence {
     private static final String NOTES_FILE = "notes.json";
+    private static final String JOURNAL_FILE = "notes.journal";
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    //saves all notes to a JSON file
+    private static volatile Journal journal;
+    private static volatile WriteBehind writeBehind;
+    private static volatile NoteManager persisted; //the manager the journal or write-behind belongs to
+
+    //saves the manager's changes: with write-behind it only marks them dirty and returns, with the
+    //journal it waits for them to be fsynced, otherwise it saves all notes to the JSON file, one
+    //note per line
     public static void saveNotes(NoteManager noteManager) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(NOTES_FILE))) {
-            List<Note> allNotes = noteManager.getAllNotes();
-            writer.println("[");
-            for (int i = 0; i < allNotes.size(); i++) {
-                Note note = allNotes.get(i);
-                writer.println(noteToJson(note));
-                if (i < allNotes.size() - 1) {
-                    writer.println(",");
-                }
+        WriteBehind behind = writeBehind;
+        if (behind != null && persisted == noteManager) {
+            behind.markDirty();
+            return;
+        }
+        Journal current = journal;
+        if (current != null && persisted == noteManager) {
+            try {
+                current.flush();
+            } catch (IOException e) {
+                System.err.println("Error saving notes: " + e.getMessage());
             }
-            writer.println("]");
+            return;
+        }
+        saveNotes(noteManager, new File(NOTES_FILE));
+    }
+
+    //saves to the given file instead (benchmarks, backups). written like a snapshot, so a crash
+    //mid-save leaves the old file in place
+    public static synchronized void saveNotes(NoteManager noteManager, File file) {
+        try {
+            writeSnapshot(noteManager.getAllNotes(), file);
         } catch (IOException e) {
             System.err.println("Error saving notes: " + e.getMessage());
         }
     }
 
-    //loads notes from JSON file into the note manager
+    //loads notes.json and replays notes.journal over it into the note manager. if the journal
+    //held anything, the result is written back to notes.json and the journal emptied
     public static void loadNotes(NoteManager noteManager) {
-        File file = new File(NOTES_FILE);
-        if (!file.exists()) {
-            return; //no saved notes yet
-        }
-
+        File snapshot = new File(NOTES_FILE);
+        File journalFile = new File(JOURNAL_FILE);
+        loadNotes(noteManager, snapshot);
         try {
-            String jsonContent = readFileToString(file);
-            List<Note> notes = parseNotesFromJson(jsonContent);
-            for (Note note : notes) {
-                noteManager.addExistingNote(note);
+            int replayed = Journal.replay(journalFile, record -> replay(noteManager, record));
+            if (!Journal.segments(journalFile).isEmpty()) {
+                if (replayed > 0) {
+                    System.out.println("Replayed " + replayed + " note changes from " + JOURNAL_FILE);
+                }
+                writeSnapshot(noteManager.getAllNotes(), snapshot);
+                Journal.deleteAll(journalFile);
             }
         } catch (IOException e) {
-            System.err.println("Error loading notes: " + e.getMessage());
+            System.err.println("Error replaying note journal: " + e.getMessage());
+        }
+    }
+
+    //from now on every change to the manager is appended to notes.journal, and saveNotes() only
+    //flushes the journal. call after loadNotes
+    public static synchronized Journal openJournal(NoteManager noteManager) throws IOException {
+        if (journal != null || writeBehind != null) {
+            throw new IllegalStateException("Note persistence is already started");
         }
+        Journal opened = new Journal(new File(JOURNAL_FILE));
+        noteManager.addListener((type, note) -> opened.append(journalRecord(type, note)));
+        persisted = noteManager;
+        journal = opened;
+        return opened;
     }
 
-    //converts a note to JSON string
-    private static String noteToJson(Note note) {
-        return String.format(
-            "  {\n" +
-            "    \"id\": \"%s\",\n" +
-            "    \"content\": \"%s\",\n" +
-            "    \"creationTime\": \"%s\"\n" +
-            "  }",
-            note.getId(),
-            escapeJsonString(note.getContent()),
-            note.getCreationTime().format(DATETIME_FORMATTER)
-        );
+    //snapshot to notes.json, then drop the journal segments it covers (see TaskPersistence)
+    public static synchronized void compactJournal() throws IOException {
+        Journal current = journal;
+        if (current == null) {
+            return;
+        }
+        List<Note> allNotes;
+        long covered;
+        synchronized (persisted) {
+            covered = current.rotate();
+            allNotes = persisted.getAllNotes();
+        }
+        writeSnapshot(allNotes, new File(NOTES_FILE));
+        current.deleteSegments(covered);
     }
 
-    //parses notes from JSON string
-    private static List<Note> parseNotesFromJson(String jsonContent) {
-        List<Note> notes = new ArrayList<>();
+    //saveNotes() only marks the notes dirty from now on (see TaskPersistence.startWriteBehind)
+    public static synchronized void startWriteBehind(NoteManager noteManager, long delayMillis) {
+        if (journal != null || writeBehind != null) {
+            throw new IllegalStateException("Note persistence is already started");
+        }
+        persisted = noteManager;
+        writeBehind = new WriteBehind("notes", delayMillis,
+            () -> writeSnapshot(noteManager.getAllNotes(), new File(NOTES_FILE)));
+    }
+
+    //writes any unsaved changes and stops the background writer (shutdown)
+    public static synchronized void stopWriteBehind() {
+        if (writeBehind == null) {
+            return;
+        }
+        WriteBehind stopping = writeBehind;
+        writeBehind = null; //saves from here on write the whole file themselves
+        stopping.close();
+    }
+
+    //flushes and closes the journal (shutdown)
+    public static synchronized void closeJournal() {
+        if (journal == null) {
+            return;
+        }
         try {
-            String content = jsonContent.trim();
-            if (content.startsWith("[") && content.endsWith("]")) {
-                content = content.substring(1, content.length() - 1).trim();
-            }
-            if (content.isEmpty()) return notes;
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing note journal: " + e.getMessage());
+        }
+        journal = null; //later saves write the whole file
+    }
+
+    //loads from the given file instead
+    public static void loadNotes(NoteManager noteManager, File file) {
+        if (!file.exists()) {
+            return; //no saved notes yet
+        }
 
-            java.util.List<String> objects = extractJsonObjects(content);
-            for (String obj : objects) {
-                if (obj == null || obj.trim().isEmpty()) continue;
-                Note note = parseNoteFromJson(obj);
-                if (note != null) notes.add(note);
+        //stream the file through the tokenizer one note object at a time
+        try (JsonReader reader = new JsonReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            if (reader.peek() == JsonReader.Token.END_DOCUMENT) {
+                return; //empty file
             }
-        } catch (Exception e) {
-            System.err.println("Error parsing JSON: " + e.getMessage());
-        }
-        return notes;
-    }
-
-    private static java.util.List<String> extractJsonObjects(String content) {
-        java.util.List<String> out = new ArrayList<>();
-        int len = content.length();
-        boolean inString = false;
-        char stringChar = '"';
-        boolean afterBackslash = false;
-        int depth = 0;
-        int start = -1;
-        int i = 0;
-        while (i < len) {
-            char c = content.charAt(i);
-            if (inString) {
-                if (afterBackslash) { afterBackslash = false; i++; continue; }
-                if (c == '\\') { afterBackslash = true; i++; continue; }
-                if (c == stringChar) { inString = false; i++; continue; }
-                i++;
-                continue;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Map<String, String> fields = reader.nextFlatObject();
+                Note note = parseNote(fields);
+                if (note != null) {
+                    noteManager.addExistingNote(note);
+                }
             }
-            if (c == '"' || c == '\'') { inString = true; stringChar = c; i++; continue; }
-            if (c == '{') {
-                if (depth == 0) start = i;
-                depth++;
-                i++;
-                continue;
+            reader.endArray();
+        } catch (IOException e) {
+            System.err.println("Error loading notes: " + e.getMessage());
+        }
+    }
+
+    private static void writeNotes(List<Note> notes, OutputStream out) throws IOException {
+        try (JsonWriter json = JsonWriter.acquire(length -> out).lineBreaks(true)) {
+            json.beginArray();
+            for (Note note : notes) {
+                json.beginObject();
+                writeNoteFields(json, note);
+                json.endObject();
             }
-            if (c == '}') {
-                depth--;
-                if (depth == 0 && start >= 0) {
-                    out.add(content.substring(start, i + 1));
-                    start = -1;
-                }
-                i++;
-                continue;
+            json.endArray();
+            json.finish();
+        }
+    }
+
+    //temp file, fsync, rename: a crash leaves the old or the new snapshot, never half of one
+    private static void writeSnapshot(List<Note> notes, File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            writeNotes(notes, out);
+        }
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //one journal line: {"op":"create"|"update", ...the note} or {"op":"delete","id":...}
+    private static byte[] journalRecord(String type, Note note) {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            json.beginObject();
+            json.name("op").value(type);
+            if ("delete".equals(type)) {
+                json.name("id").value(note.getId());
+            } else {
+                writeNoteFields(json, note);
             }
-            i++;
+            json.endObject();
+            return json.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //no sink, nothing to fail
         }
-        return out;
     }
 
-    //parses a single note from JSON object string
-    private static Note parseNoteFromJson(String jsonObject) {
+    //applies one journal record; safe to replay twice. an update keeps the note in its place
+    private static void replay(NoteManager noteManager, Map<String, String> record) {
+        String id = record.get("id");
+        if (id == null) {
+            return;
+        }
+        if ("delete".equals(record.get("op"))) {
+            noteManager.deleteNote(id);
+            return;
+        }
+        Note note = parseNote(record);
+        if (note != null && !noteManager.updateNote(id, note.getContent())) {
+            noteManager.addExistingNote(note);
+        }
+    }
+
+    //writes a note's fields in the file format (creationTime as "yyyy-MM-dd HH:mm:ss")
+    private static void writeNoteFields(JsonWriter json, Note note) throws IOException {
+        json.name("id").value(note.getId());
+        json.name("content").value(note.getContent());
+        json.name("creationTime").value(note.getCreationTime());
+    }
+
+    //builds a note from one saved object's fields
+    private static Note parseNote(Map<String, String> fields) {
         try {
-            String id = JsonUtils.extractJsonStringValue(jsonObject, "id");
-            String content = JsonUtils.extractJsonStringValue(jsonObject, "content");
-            String timeStr = JsonUtils.extractJsonStringValue(jsonObject, "creationTime");
+            String id = fields.get("id");
+            String content = fields.get("content");
+            String timeStr = fields.get("creationTime");
             if (timeStr == null) return null;
 
             java.time.LocalDateTime creationTime = java.time.LocalDateTime.parse(timeStr, DATETIME_FORMATTER);
@@ -141,35 +243,11 @@ public class NotePersistence {
             }
 
         } catch (Exception e) {
-            System.err.println("Error parsing note from JSON: " + jsonObject + " - " + e.getMessage());
+            System.err.println("Error parsing note from JSON: " + fields + " - " + e.getMessage());
             return null;
         }
     }
 
-    //helper methods for JSON processing
-
-    //reads entire file to string
-    private static String readFileToString(File file) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
-        }
-        return content.toString();
-    }
-
-    //escapes special characters for JSON strings
-    private static String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
-    }
-
     //clears the notes file (useful for testing or reset)
     public static void clearSavedNotes() {
         File file = new File(NOTES_FILE);
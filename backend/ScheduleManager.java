@@ -3,76 +3,115 @@ package backend;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import backend.objects.Task;
 
+//the web server handles requests on several threads. methods that change tasks are synchronized,
+//so writes happen one at a time, and each one publishes immutable per-date lists (see
+//TaskDateIndex) before it returns. reads (lists, lookups, versions) don't lock and don't copy:
+//they only touch those lists and concurrent maps. conflict checks and sync deltas still take the
+//lock because they read writer-side structures.
 public class ScheduleManager {
-    private List<Task> tasks;
-    private Map<LocalDate, List<Task>> tasksByDate;
-
-    public ScheduleManager() {
-        this.tasks = new ArrayList<>();
-        this.tasksByDate = new HashMap<>();
+    //primary index; every task is also in tasksByDate and its status's and priority's index
+    private final Map<String, Task> tasksById = new ConcurrentHashMap<>();
+    //each date's tasks as an interval tree ordered by start time (conflict checks and ordered
+    //reads), dates in order so the whole schedule can be walked without sorting
+    private final TaskDateIndex tasksByDate = new TaskDateIndex();
+    //secondary indexes for filtered date range queries. a task whose priority string isn't a
+    //Task.Priority is left out of tasksByPriority
+    private final Map<Task.TaskStatus, TaskDateIndex> tasksByStatus = new EnumMap<>(Task.TaskStatus.class);
+    private final Map<Task.Priority, TaskDateIndex> tasksByPriority = new EnumMap<>(Task.Priority.class);
+    //minutes taken on each date that has tasks, replaced (never changed) on every add or remove
+    private final Map<LocalDate, DayOccupancy> occupancy = new ConcurrentHashMap<>();
+    //getAllTasks() result, valid while `stamp` still equals membershipChanges. updates don't change
+    //the order, only adds and removes bump the counter
+    private static final class Snapshot {
+        final long stamp;
+        final List<Task> tasks;
+
+        Snapshot(long stamp, List<Task> tasks) {
+            this.stamp = stamp;
+            this.tasks = tasks;
+        }
     }
+    private volatile long membershipChanges;
+    private volatile Snapshot allTasksSnapshot = new Snapshot(0, Collections.emptyList());
 
-    public Task addTask(String description, LocalTime startTime, LocalTime endTime) {
-        return addTask(description, startTime, endTime, LocalDate.now());
+    //notified after every change ("create", "update" or "delete"), while the manager lock is held
+    //so listeners see changes in the order they happened
+    public interface TaskListener {
+        void onTaskChanged(String type, Task task);
     }
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
+    private final VersionIndex versionIndex = new VersionIndex(ServerConfig.getInt("sync.maxTombstones", 10000));
+    //version of the last change to each date's task list, for cheap "has this day changed" checks
+    private final ConcurrentNavigableMap<LocalDate, Long> dateVersions = new ConcurrentSkipListMap<>();
+    private volatile long lastVersion = DataVersion.BOOT_VERSION;
 
-
-    public Task addTask(String description, LocalTime startTime, LocalTime endTime, LocalDate date) {
-        // input validation
-        if (description == null || description.trim().isEmpty()) {
-            throw new IllegalArgumentException("Task description cannot be empty");
-        }
-        if (startTime == null || endTime == null) {
-            throw new IllegalArgumentException("Start time and end time cannot be null");
+    public ScheduleManager() {
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            tasksByStatus.put(status, new TaskDateIndex());
         }
-        if (startTime.isAfter(endTime) || startTime.equals(endTime)) {
-            throw new IllegalArgumentException("Start time must be before end time");
-        }
-        if (date == null) {
-            throw new IllegalArgumentException("Date cannot be null");
+        for (Task.Priority priority : Task.Priority.values()) {
+            tasksByPriority.put(priority, new TaskDateIndex());
         }
+    }
 
-        Task newTask = new Task(description.trim(), startTime, endTime, date);
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
 
-        List<Task> dayTasks = tasksByDate.getOrDefault(date, new ArrayList<>());
-        for (Task existingTask : dayTasks) {
-            if (newTask.isOverlapping(existingTask)) {
-                return null; //conflict detected
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireChange(String type, Task task) {
+        long version = "delete".equals(type) ? versionIndex.remove(task.getId()) : versionIndex.touch(task.getId());
+        dateVersions.put(task.getDate(), version);
+        lastVersion = version;
+        for (TaskListener listener : listeners) {
+            try {
+                listener.onTaskChanged(type, task);
+            } catch (RuntimeException e) {
+                System.err.println("Task listener failed on " + type + ": " + e.getMessage());
             }
         }
+    }
 
-        //add task if no conflicts
-        tasks.add(newTask);
-        dayTasks.add(newTask);
-        tasksByDate.put(date, dayTasks);
+    public synchronized Task addTask(String description, LocalTime startTime, LocalTime endTime) {
+        return addTask(description, startTime, endTime, LocalDate.now());
+    }
 
-        return newTask;
+
+    public synchronized Task addTask(String description, LocalTime startTime, LocalTime endTime, LocalDate date) {
+        return addTask(description, startTime, endTime, date, false);
     }
 
 
-    public Task addTask(String description, LocalTime startTime, LocalTime endTime, boolean allowOverlap) {
+    public synchronized Task addTask(String description, LocalTime startTime, LocalTime endTime, boolean allowOverlap) {
         return addTask(description, startTime, endTime, LocalDate.now(), allowOverlap);
     }
 
     //add task using Task object directly
-    public Task addTask(Task task) {
+    public synchronized Task addTask(Task task) {
         if (task == null) {
             throw new IllegalArgumentException("Task cannot be null");
         }
 
-        return addTask(task.getDescription(), task.getStartTime(), task.getEndTime(), task.getDate(), false);
+        return addTask(task.getDescription(), task.getStartTime(), task.getEndTime(), task.getDate(), false, task.getPriority());
     }
 
     //add task for a specific date
-    public Task addTask(String description, LocalTime startTime, LocalTime endTime, LocalDate date, boolean allowOverlap) {
-        if (!allowOverlap) {
-            return addTask(description, startTime, endTime, date);
-        }
+    public synchronized Task addTask(String description, LocalTime startTime, LocalTime endTime, LocalDate date, boolean allowOverlap) {
+        return addTask(description, startTime, endTime, date, allowOverlap, null);
+    }
 
+    //add task with a priority (null keeps the default), set before listeners are told about the task
+    public synchronized Task addTask(String description, LocalTime startTime, LocalTime endTime, LocalDate date, boolean allowOverlap, String priority) {
         // input validation
         if (description == null || description.trim().isEmpty()) {
             throw new IllegalArgumentException("Task description cannot be empty");
@@ -87,23 +126,123 @@ public class ScheduleManager {
             throw new IllegalArgumentException("Date cannot be null");
         }
 
-        Task newTask = new Task(description.trim(), startTime, endTime, date);
+        //checked on the raw fields, so a rejected add allocates nothing (no Task, no UUID)
+        if (!allowOverlap && !isTimeSlotAvailable(startTime, endTime, date)) {
+            return null; //conflict detected
+        }
 
-        //add task without checking
-        tasks.add(newTask);
-        List<Task> dayTasks = tasksByDate.getOrDefault(date, new ArrayList<>());
-        dayTasks.add(newTask);
-        tasksByDate.put(date, dayTasks);
+        Task newTask = new Task(description.trim(), startTime, endTime, date);
+        if (priority != null) {
+            newTask.setPriority(priority);
+        }
+        index(newTask);
+        fireChange("create", newTask);
 
         return newTask;
     }
 
-    //get tasks for a specific date
+    //add a task that already has its id, status and priority (loaded from disk), without conflict checks
+    public synchronized void addExistingTask(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        if (tasksById.containsKey(task.getId())) {
+            System.err.println("Skipping task with duplicate id: " + task.getId());
+            return;
+        }
+        index(task);
+        fireChange("create", task);
+    }
+
+    private void index(Task task) {
+        tasksById.put(task.getId(), task);
+        tasksByDate.add(task);
+        indexByStatus(task);
+        indexByPriority(task);
+        occupancy.put(task.getDate(), occupancy.getOrDefault(task.getDate(), DayOccupancy.EMPTY).with(task));
+        membershipChanges++;
+    }
+
+    private void unindex(Task task) {
+        tasksById.remove(task.getId());
+        tasksByDate.remove(task);
+        unindexByStatus(task);
+        unindexByPriority(task);
+        //bits can't be cleared for one task when others may overlap it, so rebuild the day
+        List<Task> dayTasks = tasksByDate.tasksOn(task.getDate());
+        if (dayTasks.isEmpty()) {
+            occupancy.remove(task.getDate());
+        } else {
+            occupancy.put(task.getDate(), DayOccupancy.of(dayTasks));
+        }
+        membershipChanges++;
+    }
+
+    private void indexByStatus(Task task) {
+        if (task.getStatus() != null) {
+            tasksByStatus.get(task.getStatus()).add(task);
+        }
+    }
+
+    private void unindexByStatus(Task task) {
+        if (task.getStatus() != null) {
+            tasksByStatus.get(task.getStatus()).remove(task);
+        }
+    }
+
+    private void indexByPriority(Task task) {
+        Task.Priority priority = Task.Priority.of(task.getPriority());
+        if (priority != null) {
+            tasksByPriority.get(priority).add(task);
+        }
+    }
+
+    private void unindexByPriority(Task task) {
+        Task.Priority priority = Task.Priority.of(task.getPriority());
+        if (priority != null) {
+            tasksByPriority.get(priority).remove(task);
+        }
+    }
+
+    //status and priority setters have to go through these so the secondary indexes follow
+    private void setStatus(Task task, Task.TaskStatus status) {
+        unindexByStatus(task);
+        task.setStatus(status);
+        indexByStatus(task);
+    }
+
+    private void setPriority(Task task, String priority) {
+        unindexByPriority(task);
+        task.setPriority(priority);
+        indexByPriority(task);
+    }
+
+    //get tasks for a specific date, ordered by start time (immutable)
     public List<Task> getTasksForDate(LocalDate date) {
-        return tasksByDate.getOrDefault(date, new ArrayList<>())
-                .stream()
-                .sorted(Comparator.comparing(Task::getStartTime))
-                .collect(Collectors.toList());
+        return tasksByDate.tasksOn(date);
+    }
+
+    //tasks dated from `from` to `to` inclusive (a null bound is open), only those with the given
+    //status and/or priority when those aren't null, ordered by date then start time. walks only
+    //the dates in the range of the smallest index that applies
+    public List<Task> getTasks(LocalDate from, LocalDate to, Task.TaskStatus status, Task.Priority priority) {
+        TaskDateIndex byStatus = status != null ? tasksByStatus.get(status) : null;
+        TaskDateIndex byPriority = priority != null ? tasksByPriority.get(priority) : null;
+        if (byStatus == null && byPriority == null) {
+            return tasksByDate.range(from, to);
+        }
+        if (byPriority == null || (byStatus != null && byStatus.size() <= byPriority.size())) {
+            List<Task> result = byStatus.range(from, to);
+            if (priority != null) {
+                result.removeIf(task -> Task.Priority.of(task.getPriority()) != priority);
+            }
+            return result;
+        }
+        List<Task> result = byPriority.range(from, to);
+        if (status != null) {
+            result.removeIf(task -> task.getStatus() != status);
+        }
+        return result;
     }
 
     //get tasks for today
@@ -111,113 +250,201 @@ public class ScheduleManager {
         return getTasksForDate(LocalDate.now());
     }
 
+    //the task with the given id on any date, or null
+    public Task getTask(String taskId) {
+        return taskId == null ? null : tasksById.get(taskId);
+    }
+
     //get tasks by status
     public List<Task> getTasksByStatus(Task.TaskStatus status) {
-        return tasks.stream()
-                .filter(task -> task.getStatus() == status)
-                .sorted(Comparator.comparing(Task::getDate).thenComparing(Task::getStartTime))
-                .collect(Collectors.toList());
+        return getTasks(null, null, status, null);
     }
 
     //update task status
-    public boolean updateTaskStatus(String taskId, Task.TaskStatus status) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                task.setStatus(status);
-                return true;
-            }
+    public synchronized boolean updateTaskStatus(String taskId, Task.TaskStatus status) {
+        Task task = getTask(taskId);
+        if (task == null) {
+            return false;
         }
-        return false;
+        setStatus(task, status);
+        fireChange("update", task);
+        return true;
     }
 
     //update task description
-    public boolean updateTaskDescription(String taskId, String description) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                task.setDescription(description);
-                return true;
-            }
+    public synchronized boolean updateTaskDescription(String taskId, String description) {
+        Task task = getTask(taskId);
+        if (task == null) {
+            return false;
         }
-        return false;
+        task.setDescription(description);
+        fireChange("update", task);
+        return true;
     }
 
     //update task priority
-    public boolean updateTaskPriority(String taskId, String priority) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                task.setPriority(priority);
-                return true;
-            }
+    public synchronized boolean updateTaskPriority(String taskId, String priority) {
+        Task task = getTask(taskId);
+        if (task == null) {
+            return false;
         }
-        return false;
+        setPriority(task, priority);
+        fireChange("update", task);
+        return true;
     }
 
     //update multiple task properties
-    public boolean updateTask(String taskId, String description, String priority) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                if (description != null && !description.trim().isEmpty()) {
-                    task.setDescription(description);
-                }
-                if (priority != null && !priority.trim().isEmpty()) {
-                    task.setPriority(priority);
-                }
-                return true;
-            }
+    public synchronized boolean updateTask(String taskId, String description, String priority) {
+        Task task = getTask(taskId);
+        if (task == null) {
+            return false;
         }
-        return false;
+        if (description != null && !description.trim().isEmpty()) {
+            task.setDescription(description);
+        }
+        if (priority != null && !priority.trim().isEmpty()) {
+            setPriority(task, priority);
+        }
+        fireChange("update", task);
+        return true;
     }
 
     //remove task
-    public boolean removeTask(String taskId) {
-        Task taskToRemove = null;
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                taskToRemove = task;
-                break;
-            }
-        }
-
+    public synchronized boolean removeTask(String taskId) {
+        Task taskToRemove = getTask(taskId);
         if (taskToRemove != null) {
-            tasks.remove(taskToRemove);
-            List<Task> dayTasks = tasksByDate.get(taskToRemove.getDate());
-            if (dayTasks != null) {
-                dayTasks.remove(taskToRemove);
-                if (dayTasks.isEmpty()) {
-                    tasksByDate.remove(taskToRemove.getDate());
-                }
-            }
+            unindex(taskToRemove);
+            fireChange("delete", taskToRemove);
             return true;
         }
         return false;
     }
 
-    //return all tasks
+    //return all tasks, ordered by date then start time (unmodifiable)
     public List<Task> getAllTasks() {
-        return tasks.stream()
-                .sorted(Comparator.comparing(Task::getDate).thenComparing(Task::getStartTime))
-                .collect(Collectors.toList());
+        Snapshot snapshot = allTasksSnapshot;
+        long stamp = membershipChanges;
+        if (snapshot.stamp != stamp) {
+            //built from the published day lists; a write that lands meanwhile bumps the counter
+            //past `stamp`, so a list that missed it is never handed out as current again
+            snapshot = new Snapshot(stamp, Collections.unmodifiableList(tasksByDate.range(null, null)));
+            allTasksSnapshot = snapshot;
+        }
+        return snapshot.tasks;
+    }
+
+    public synchronized boolean isTimeSlotAvailable(LocalTime startTime, LocalTime endTime, LocalDate date) {
+        TaskIntervalTree dayTasks = tasksByDate.tree(date);
+        return dayTasks == null || !dayTasks.overlapsAny(startTime, endTime);
     }
 
-    public boolean isTimeSlotAvailable(LocalTime startTime, LocalTime endTime, LocalDate date) {
-        Task tempTask = new Task("temp", startTime, endTime, date);
-        List<Task> dayTasks = tasksByDate.getOrDefault(date, new ArrayList<>());
+    //tasks on the given date that overlap the slot, ordered by start time
+    public synchronized List<Task> getConflictingTasks(LocalTime startTime, LocalTime endTime, LocalDate date) {
+        TaskIntervalTree dayTasks = tasksByDate.tree(date);
+        return dayTasks == null ? new ArrayList<>() : dayTasks.overlapping(startTime, endTime);
+    }
+
+    //free gaps of at least durationMinutes on the date, within [windowStart, windowEnd)
+    public List<FreeSlot> findFreeSlots(LocalDate date, int durationMinutes, LocalTime windowStart, LocalTime windowEnd) {
+        return findFreeSlots(date, date, durationMinutes, windowStart, windowEnd, Integer.MAX_VALUE);
+    }
 
-        for (Task existingTask : dayTasks) {
-            if (tempTask.isOverlapping(existingTask)) {
-                return false;
+    //free gaps of at least durationMinutes within [windowStart, windowEnd) of each date from `from`
+    //to `to` inclusive, earliest first, at most `limit` of them. each gap is as long as it really
+    //is, so callers can place the task anywhere inside it. a window can't reach past 23:59 since
+    //a task can't end later than that
+    public List<FreeSlot> findFreeSlots(LocalDate from, LocalDate to, int durationMinutes,
+                                        LocalTime windowStart, LocalTime windowEnd, int limit) {
+        if (durationMinutes <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        int start = DayOccupancy.endMinute(windowStart);
+        int end = DayOccupancy.startMinute(windowEnd);
+        if (start >= end) {
+            throw new IllegalArgumentException("Window start must be before window end");
+        }
+
+        List<FreeSlot> slots = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to) && slots.size() < limit; date = date.plusDays(1)) {
+            DayOccupancy day = occupancy.getOrDefault(date, DayOccupancy.EMPTY);
+            int minute = start;
+            while (slots.size() < limit) {
+                int free = day.nextFree(minute, end);
+                if (free < 0) {
+                    break;
+                }
+                int busy = day.nextBusy(free, end);
+                if (busy - free >= durationMinutes) {
+                    slots.add(new FreeSlot(date, LocalTime.of(free / 60, free % 60), LocalTime.of(busy / 60, busy % 60)));
+                }
+                minute = busy;
             }
         }
-        return true;
+        return slots;
+    }
+
+    //version of the latest task change (see DataVersion)
+    public long getVersion() {
+        return lastVersion;
+    }
+
+    //version of the last change to the given date's tasks, 0 if none since the server started
+    public long getDateVersion(LocalDate date) {
+        return dateVersions.getOrDefault(date, 0L);
+    }
+
+    //latest getDateVersion over the dates from `from` to `to` inclusive (a null bound is open)
+    public long getDateRangeVersion(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return 0L;
+        }
+        ConcurrentNavigableMap<LocalDate, Long> range = dateVersions;
+        if (from != null) {
+            range = range.tailMap(from, true);
+        }
+        if (to != null) {
+            range = range.headMap(to, true);
+        }
+        long version = 0L;
+        for (long v : range.values()) {
+            version = Math.max(version, v);
+        }
+        return version;
+    }
+
+    //tasks created or updated, and ids of tasks deleted, after the given version
+    public synchronized SyncDelta<Task> getChangesSince(long since) {
+        if (versionIndex.needsReset(since)) {
+            return new SyncDelta<>(true, getAllTasks(), Collections.emptyList());
+        }
+        List<Task> changed = new ArrayList<>();
+        for (String id : versionIndex.changedSince(since)) {
+            Task task = tasksById.get(id);
+            if (task != null) {
+                changed.add(task);
+            }
+        }
+        return new SyncDelta<>(false, changed, versionIndex.deletedSince(since));
     }
 
     //get total number of tasks
     public int getTaskCount() {
-        return tasks.size();
+        return tasksById.size();
     }
 
-    public void clearAllTasks() {
-        tasks.clear();
+    public synchronized void clearAllTasks() {
+        List<Task> removed = new ArrayList<>(tasksById.values());
+        tasksById.clear();
         tasksByDate.clear();
+        tasksByStatus.values().forEach(TaskDateIndex::clear);
+        tasksByPriority.values().forEach(TaskDateIndex::clear);
+        occupancy.clear();
+        membershipChanges++;
+        for (Task task : removed) {
+            fireChange("delete", task);
+        }
     }
 }
@@ -0,0 +1,43 @@
+package backend;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+//server tuning settings, read from backend/config.properties (same file the Agent uses).
+//a -Dkey=value system property always wins over the file so settings can be changed per run.
+public final class ServerConfig {
+    private static final String CONFIG_FILE = "backend/config.properties";
+    private static final Properties props = loadProperties();
+
+    private ServerConfig() {}
+
+    private static Properties loadProperties() {
+        Properties props = new Properties();
+        try (FileInputStream fis = new FileInputStream(CONFIG_FILE)) {
+            props.load(fis);
+        } catch (IOException e) {
+            //missing file is fine, every setting has a default
+        }
+        return props;
+    }
+
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = props.getProperty(key);
+        }
+        return (value != null && !value.trim().isEmpty()) ? value.trim() : defaultValue;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package backend;
+
+import java.util.List;
+
+//entities changed and ids deleted after a given version. when reset is true the deletions could
+//not be tracked that far back: `changed` then holds every entity and the client should replace
+//its copy instead of merging.
+public class SyncDelta<T> {
+    private final boolean reset;
+    private final List<T> changed;
+    private final List<String> deletedIds;
+
+    public SyncDelta(boolean reset, List<T> changed, List<String> deletedIds) {
+        this.reset = reset;
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+    }
+
+    public boolean isReset() { return reset; }
+    public List<T> getChanged() { return changed; }
+    public List<String> getDeletedIds() { return deletedIds; }
+}
@@ -0,0 +1,91 @@
+package backend;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import backend.objects.Task;
+
+//tasks grouped by date in date order, each date's tasks in a TaskIntervalTree (start time order).
+//ScheduleManager uses one for the whole schedule and one per status and priority, so a date range
+//query walks only the dates in the range of the index it needs.
+//add/remove/clear/tree are for writers and must be called under the owning manager's lock. after
+//every change the date's tasks are republished as an immutable list, so tasksOn() and range()
+//never lock and never see a day half updated.
+public class TaskDateIndex {
+    private final NavigableMap<LocalDate, TaskIntervalTree> days = new TreeMap<>();
+    private final ConcurrentNavigableMap<LocalDate, List<Task>> published = new ConcurrentSkipListMap<>();
+    private volatile int size;
+
+    public void add(Task task) {
+        TaskIntervalTree dayTasks = days.computeIfAbsent(task.getDate(), d -> new TaskIntervalTree());
+        dayTasks.add(task);
+        size++;
+        published.put(task.getDate(), dayTasks.toList());
+    }
+
+    public boolean remove(Task task) {
+        TaskIntervalTree dayTasks = days.get(task.getDate());
+        if (dayTasks == null || !dayTasks.remove(task)) {
+            return false;
+        }
+        size--;
+        if (dayTasks.isEmpty()) {
+            days.remove(task.getDate());
+            published.remove(task.getDate());
+        } else {
+            published.put(task.getDate(), dayTasks.toList());
+        }
+        return true;
+    }
+
+    public void clear() {
+        days.clear();
+        published.clear();
+        size = 0;
+    }
+
+    //the date's tree for conflict checks, or null if it has no tasks. writers only
+    public TaskIntervalTree tree(LocalDate date) {
+        return days.get(date);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //the date's tasks ordered by start time (immutable)
+    public List<Task> tasksOn(LocalDate date) {
+        List<Task> dayTasks = published.get(date);
+        return dayTasks != null ? dayTasks : Collections.emptyList();
+    }
+
+    //tasks from `from` to `to` inclusive (null = unbounded), ordered by date then start time
+    public List<Task> range(LocalDate from, LocalDate to) {
+        List<Task> result = new ArrayList<>();
+        for (List<Task> dayTasks : days(from, to)) {
+            result.addAll(dayTasks);
+        }
+        return result;
+    }
+
+    private Collection<List<Task>> days(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return Collections.emptyList();
+        }
+        ConcurrentNavigableMap<LocalDate, List<Task>> view = published;
+        if (from != null) {
+            view = view.tailMap(from, true);
+        }
+        if (to != null) {
+            view = view.headMap(to, true);
+        }
+        return view.values();
+    }
+}
@@ -0,0 +1,235 @@
+package backend;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import backend.objects.Task;
+
+//one day's tasks as an AVL tree ordered by start time, where every node also remembers the
+//latest end time in its subtree. an overlap query can then skip every subtree that ends before
+//the slot starts, so checking a slot costs O(log n) (plus the number of conflicts listed) instead
+//of a scan of the whole day. times are kept as seconds of the day, taken when the task is
+//inserted; tasks are removed by identity. toList() hands out one cached, unmodifiable snapshot
+//until the next add or remove. not thread safe, ScheduleManager calls it under its lock.
+public class TaskIntervalTree {
+
+    private static final class Node {
+        final Task task;
+        final int start;
+        final int end;
+        int maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.start = task.getStartTime().toSecondOfDay();
+            this.end = task.getEndTime().toSecondOfDay();
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+    private List<Task> snapshot; //null after a change
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(Task task) {
+        root = insert(root, new Node(task));
+        size++;
+        snapshot = null;
+    }
+
+    //removes the given task object, returns false if it isn't in the tree
+    public boolean remove(Task task) {
+        int before = size;
+        root = delete(root, task.getStartTime().toSecondOfDay(), task.getEndTime().toSecondOfDay(), task);
+        if (size == before) {
+            return false;
+        }
+        snapshot = null;
+        return true;
+    }
+
+    //true if any task overlaps [startTime, endTime); touching end to start is not an overlap,
+    //same as Task.isOverlapping
+    public boolean overlapsAny(LocalTime startTime, LocalTime endTime) {
+        int start = startTime.toSecondOfDay();
+        int end = endTime.toSecondOfDay();
+        Node node = root;
+        while (node != null) {
+            if (node.start < end && node.end > start) {
+                return true;
+            }
+            //if the left subtree reaches past our start it holds an overlap or nothing does: all
+            //its tasks start no later than this node, and this node doesn't overlap
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else if (node.start < end) {
+                node = node.right;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    //every task overlapping [startTime, endTime), ordered by start time
+    public List<Task> overlapping(LocalTime startTime, LocalTime endTime) {
+        List<Task> result = new ArrayList<>();
+        collect(root, startTime.toSecondOfDay(), endTime.toSecondOfDay(), result);
+        return result;
+    }
+
+    //all tasks ordered by start time, unmodifiable
+    public List<Task> toList() {
+        if (snapshot == null) {
+            List<Task> result = new ArrayList<>(size);
+            collect(root, Integer.MIN_VALUE, Integer.MAX_VALUE, result);
+            snapshot = Collections.unmodifiableList(result);
+        }
+        return snapshot;
+    }
+
+    private static void collect(Node node, int start, int end, List<Task> result) {
+        if (node == null || node.maxEnd <= start) {
+            return; //nothing in this subtree ends after the slot starts
+        }
+        collect(node.left, start, end, result);
+        if (node.start < end) {
+            if (node.end > start) {
+                result.add(node.task);
+            }
+            collect(node.right, start, end, result); //right subtree starts too late otherwise
+        }
+    }
+
+    //orders by start, then end, then identity so equal intervals can live side by side
+    private static int compare(int start, int end, Task task, Node node) {
+        if (start != node.start) {
+            return Integer.compare(start, node.start);
+        }
+        if (end != node.end) {
+            return Integer.compare(end, node.end);
+        }
+        return Integer.compare(System.identityHashCode(task), System.identityHashCode(node.task));
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.end, added.task, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, int start, int end, Task task) {
+        if (node == null) {
+            return null;
+        }
+        if (node.task == task) {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        int cmp = compare(start, end, task, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, end, task);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, end, task);
+        } else {
+            //identity hash collision: the task may sit on either side
+            int before = size;
+            node.left = delete(node.left, start, end, task);
+            if (size == before) {
+                node.right = delete(node.right, start, end, task);
+            }
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        int maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
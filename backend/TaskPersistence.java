@@ -1,184 +1,271 @@
 package backend;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import backend.objects.Task;
 
-import java.util.ArrayList;
-
+//tasks.json holds every task. with the journal open (persistence.mode=journal, see Main) a save
+//no longer rewrites it: each change is appended to tasks.journal by a manager listener, and a save
+//just waits for those records to be fsynced. JournalCompactor calls compactJournal() in the
+//background to fold the journal into tasks.json once it grows big or old, and loading replays
+//whatever is left over tasks.json and folds that in too, so the journal starts empty on every run.
+//with persistence.mode=write-behind a save only marks the tasks dirty, and WriteBehind rewrites
+//tasks.json on its own thread a little later, once for however many saves came in meanwhile.
 public class TaskPersistence {
     private static final String TASKS_FILE = "tasks.json";
+    private static final String JOURNAL_FILE = "tasks.journal";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
-    //saves all tasks to a JSON file
+    private static volatile Journal journal;
+    private static volatile WriteBehind writeBehind;
+    private static volatile ScheduleManager persisted; //the manager the journal or write-behind belongs to
+
+    //saves the manager's changes: with write-behind it only marks them dirty and returns, with the
+    //journal it waits for them to be fsynced, otherwise it saves all tasks to the JSON file, one
+    //task per line
     public static void saveTasks(ScheduleManager scheduleManager) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TASKS_FILE))) {
-            List<Task> allTasks = scheduleManager.getAllTasks();
-            writer.println("[");
-            for (int i = 0; i < allTasks.size(); i++) {
-                Task task = allTasks.get(i);
-                writer.println(taskToJson(task));
-                if (i < allTasks.size() - 1) {
-                    writer.println(",");
-                }
+        WriteBehind behind = writeBehind;
+        if (behind != null && persisted == scheduleManager) {
+            behind.markDirty();
+            return;
+        }
+        Journal current = journal;
+        if (current != null && persisted == scheduleManager) {
+            try {
+                current.flush();
+            } catch (IOException e) {
+                System.err.println("Error saving tasks: " + e.getMessage());
             }
-            writer.println("]");
+            return;
+        }
+        saveTasks(scheduleManager, new File(TASKS_FILE));
+    }
+
+    //saves to the given file instead (benchmarks, backups). written like a snapshot, so a crash
+    //mid-save leaves the old file in place
+    public static synchronized void saveTasks(ScheduleManager scheduleManager, File file) {
+        try {
+            writeSnapshot(scheduleManager.getAllTasks(), file);
         } catch (IOException e) {
             System.err.println("Error saving tasks: " + e.getMessage());
         }
     }
 
-    //loads tasks from JSON file into the schedule manager
+    //loads tasks.json and replays tasks.journal over it into the schedule manager. if the journal
+    //held anything, the result is written back to tasks.json and the journal emptied
     public static void loadTasks(ScheduleManager scheduleManager) {
-        File file = new File(TASKS_FILE);
+        File snapshot = new File(TASKS_FILE);
+        File journalFile = new File(JOURNAL_FILE);
+        loadTasks(scheduleManager, snapshot);
+        try {
+            int replayed = Journal.replay(journalFile, record -> replay(scheduleManager, record));
+            if (!Journal.segments(journalFile).isEmpty()) {
+                if (replayed > 0) {
+                    System.out.println("Replayed " + replayed + " task changes from " + JOURNAL_FILE);
+                }
+                writeSnapshot(scheduleManager.getAllTasks(), snapshot);
+                Journal.deleteAll(journalFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying task journal: " + e.getMessage());
+        }
+    }
+
+    //from now on every change to the manager is appended to tasks.journal, and saveTasks() only
+    //flushes the journal. call after loadTasks
+    public static synchronized Journal openJournal(ScheduleManager scheduleManager) throws IOException {
+        if (journal != null || writeBehind != null) {
+            throw new IllegalStateException("Task persistence is already started");
+        }
+        Journal opened = new Journal(new File(JOURNAL_FILE));
+        scheduleManager.addListener((type, task) -> opened.append(journalRecord(type, task)));
+        persisted = scheduleManager;
+        journal = opened;
+        return opened;
+    }
+
+    //writes a snapshot of the manager to tasks.json and deletes the journal segments it covers. only
+    //the cut (starting a new segment and taking the list) holds the manager's lock; the file is
+    //written outside it, so changes and saves go on meanwhile
+    public static synchronized void compactJournal() throws IOException {
+        Journal current = journal;
+        if (current == null) {
+            return;
+        }
+        List<Task> allTasks;
+        long covered;
+        synchronized (persisted) {
+            covered = current.rotate();
+            allTasks = persisted.getAllTasks();
+        }
+        writeSnapshot(allTasks, new File(TASKS_FILE));
+        current.deleteSegments(covered);
+    }
+
+    //from now on saveTasks() only marks the manager dirty, and a background thread rewrites
+    //tasks.json at most once per delayMillis. call after loadTasks
+    public static synchronized void startWriteBehind(ScheduleManager scheduleManager, long delayMillis) {
+        if (journal != null || writeBehind != null) {
+            throw new IllegalStateException("Task persistence is already started");
+        }
+        persisted = scheduleManager;
+        writeBehind = new WriteBehind("tasks", delayMillis,
+            () -> writeSnapshot(scheduleManager.getAllTasks(), new File(TASKS_FILE)));
+    }
+
+    //writes any unsaved changes and stops the background writer (shutdown)
+    public static synchronized void stopWriteBehind() {
+        if (writeBehind == null) {
+            return;
+        }
+        WriteBehind stopping = writeBehind;
+        writeBehind = null; //saves from here on write the whole file themselves
+        stopping.close();
+    }
+
+    //flushes and closes the journal (shutdown)
+    public static synchronized void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing task journal: " + e.getMessage());
+        }
+        journal = null; //later saves write the whole file
+    }
+
+    //loads from the given file instead
+    public static void loadTasks(ScheduleManager scheduleManager, File file) {
         if (!file.exists()) {
             return; //no saved tasks yet
         }
 
-        try {
-            String jsonContent = readFileToString(file);
-            List<Task> tasks = parseTasksFromJson(jsonContent);
-            for (Task task : tasks) {
-                //add task directly to avoid conflict checking during load
-                scheduleManager.addTask(
-                    task.getDescription(),
-                    task.getStartTime(),
-                    task.getEndTime(),
-                    task.getDate(),
-                    true //allow overlaps during loading
-                );
+        //stream the file through the tokenizer one task object at a time
+        try (JsonReader reader = new JsonReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            if (reader.peek() == JsonReader.Token.END_DOCUMENT) {
+                return; //empty file
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Map<String, String> fields = reader.nextFlatObject();
+                Task task = parseTask(fields);
+                if (task != null) {
+                    scheduleManager.addExistingTask(task);
+                }
             }
+            reader.endArray();
         } catch (IOException e) {
             System.err.println("Error loading tasks: " + e.getMessage());
         }
     }
 
-    //converts a task to JSON string
-    private static String taskToJson(Task task) {
-        return String.format(
-            "  {\n" +
-            "    \"id\": \"%s\",\n" +
-            "    \"description\": \"%s\",\n" +
-            "    \"startTime\": \"%s\",\n" +
-            "    \"endTime\": \"%s\",\n" +
-            "    \"date\": \"%s\",\n" +
-            "    \"status\": \"%s\",\n" +
-            "    \"priority\": \"%s\"\n" +
-            "  }",
-            escapeJsonString(task.getId()),
-            escapeJsonString(task.getDescription()),
-            task.getStartTime().format(TIME_FORMATTER),
-            task.getEndTime().format(TIME_FORMATTER),
-            task.getDate().format(DATE_FORMATTER),
-            task.getStatus(),
-            escapeJsonString(task.getPriority())
-        );
-    }
-
-    //parses tasks from JSON string
-    private static List<Task> parseTasksFromJson(String jsonContent) {
-        List<Task> tasks = new ArrayList<>();
-        try {
-            String content = jsonContent.trim();
-            if (content.startsWith("[") && content.endsWith("]")) {
-                content = content.substring(1, content.length() - 1).trim();
+    private static void writeTasks(List<Task> tasks, OutputStream out) throws IOException {
+        try (JsonWriter json = JsonWriter.acquire(length -> out).lineBreaks(true)) {
+            json.beginArray();
+            for (Task task : tasks) {
+                json.beginObject();
+                writeTaskFields(json, task);
+                json.endObject();
             }
+            json.endArray();
+            json.finish();
+        }
+    }
+
+    //writes the tasks to a temp file next to `file`, fsyncs it and renames it over `file`, so a
+    //crash leaves either the old or the new snapshot, never half of one
+    private static void writeSnapshot(List<Task> tasks, File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            writeTasks(tasks, out);
+        }
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
 
-            if (content.isEmpty()) {
-                return tasks;
+    //one journal line: {"op":"create"|"update", ...the task} or {"op":"delete","id":...}
+    private static byte[] journalRecord(String type, Task task) {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            json.beginObject();
+            json.name("op").value(type);
+            if ("delete".equals(type)) {
+                json.name("id").value(task.getId());
+            } else {
+                writeTaskFields(json, task);
             }
+            json.endObject();
+            return json.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //no sink, nothing to fail
+        }
+    }
 
-            String[] objects = content.split("\\}\\s*,\\s*\\{");
-            for (int i = 0; i < objects.length; i++) {
-                String obj = objects[i].trim();
-                if (!obj.startsWith("{")) {
-                    obj = "{" + obj;
-                }
-                if (!obj.endsWith("}")) {
-                    obj = obj + "}";
-                }
-                if (!obj.trim().isEmpty()) {
-                    Task task = parseTaskFromJson(obj);
-                    if (task != null) {
-                        tasks.add(task);
-                    }
-                }
+    //applies one journal record. records carry the whole task, so replaying one twice (after a
+    //crash between writing tasks.json and deleting the journal) gives the same result
+    private static void replay(ScheduleManager scheduleManager, Map<String, String> record) {
+        String id = record.get("id");
+        if (id == null) {
+            return;
+        }
+        scheduleManager.removeTask(id);
+        if (!"delete".equals(record.get("op"))) {
+            Task task = parseTask(record);
+            if (task != null) {
+                scheduleManager.addExistingTask(task);
             }
-        } catch (Exception e) {
-            System.err.println("Error parsing JSON: " + e.getMessage());
         }
-        return tasks;
     }
 
-    //parses a single task from JSON object string
-    private static Task parseTaskFromJson(String jsonObject) {
-        try {
-            String id = extractJsonString(jsonObject, "id");
-            String description = extractJsonString(jsonObject, "description");
-            String startTimeStr = extractJsonString(jsonObject, "startTime");
-            String endTimeStr = extractJsonString(jsonObject, "endTime");
-            String dateStr = extractJsonString(jsonObject, "date");
-            String statusStr = extractJsonString(jsonObject, "status");
-            String priority = extractJsonString(jsonObject, "priority");
+    //writes a task's fields in the file format
+    private static void writeTaskFields(JsonWriter json, Task task) throws IOException {
+        json.name("id").value(task.getId());
+        json.name("description").value(task.getDescription());
+        json.name("startTime").value(task.getStartTime());
+        json.name("endTime").value(task.getEndTime());
+        json.name("date").value(task.getDate());
+        json.name("status").value(task.getStatus().name());
+        json.name("priority").value(task.getPriority());
+    }
 
-            LocalTime startTime = LocalTime.parse(startTimeStr, TIME_FORMATTER);
-            LocalTime endTime = LocalTime.parse(endTimeStr, TIME_FORMATTER);
-            LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);
-            Task.TaskStatus status = Task.TaskStatus.valueOf(statusStr);
+    //builds a task from one saved object's fields
+    private static Task parseTask(Map<String, String> fields) {
+        try {
+            LocalTime startTime = LocalTime.parse(fields.get("startTime"), TIME_FORMATTER);
+            LocalTime endTime = LocalTime.parse(fields.get("endTime"), TIME_FORMATTER);
+            LocalDate date = LocalDate.parse(fields.get("date"), DATE_FORMATTER);
+            String statusStr = fields.get("status");
+            Task.TaskStatus status = statusStr != null ? Task.TaskStatus.valueOf(statusStr) : Task.TaskStatus.PENDING;
+            String priority = fields.get("priority");
+            String id = fields.get("id");
+            if (id == null || id.isEmpty()) {
+                id = UUID.randomUUID().toString();
+            }
 
-            return new Task(id, description, startTime, endTime, date, status, priority);
+            return new Task(id, fields.get("description"), startTime, endTime, date, status,
+                priority != null && !priority.isEmpty() ? priority : "MEDIUM");
 
         } catch (Exception e) {
-            System.err.println("Error parsing task from JSON: " + jsonObject + " - " + e.getMessage());
+            System.err.println("Error parsing task from JSON: " + fields + " - " + e.getMessage());
             return null;
         }
     }
 
-    //helper methods for JSON processing
-
-    //reads entire file to string
-    private static String readFileToString(File file) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
-        }
-        return content.toString();
-    }
-
-    //escapes special characters for JSON strings
-    private static String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
-    }
-
-    //extracts string value from JSON field
-    private static String extractJsonString(String json, String fieldName) {
-        String pattern = "\"" + fieldName + "\":\\s*\"([^\"]*)\"";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-        if (m.find()) {
-            String value = m.group(1);
-            return value.replace("\\\"", "\"")
-                       .replace("\\n", "\n")
-                       .replace("\\r", "\r")
-                       .replace("\\t", "\t")
-                       .replace("\\\\", "\\");
-        }
-        return "";
-    }
-
     //clears the tasks file (useful for testing or reset)
     public static void clearSavedTasks() {
         File file = new File(TASKS_FILE);
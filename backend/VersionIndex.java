@@ -0,0 +1,81 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+//last-modified version of every entity in a manager, plus tombstones for deleted ones, indexed
+//by version so "what changed since N" only walks the changes after N. not thread safe, the
+//owning manager calls it under its own lock.
+public class VersionIndex {
+    private final int maxTombstones;
+    private final Map<String, Long> versions = new HashMap<>();
+    private final NavigableMap<Long, String> changed = new TreeMap<>();
+    private final NavigableMap<Long, String> deleted = new TreeMap<>();
+    //highest version whose tombstone was dropped; asking for changes before it needs a reset
+    private long tombstoneFloor = DataVersion.BOOT_VERSION;
+    private long lastVersion = DataVersion.BOOT_VERSION;
+
+    public VersionIndex(int maxTombstones) {
+        this.maxTombstones = maxTombstones;
+    }
+
+    public long touch(String id) {
+        long version = DataVersion.next();
+        Long previous = versions.put(id, version);
+        if (previous != null) {
+            changed.remove(previous);
+        }
+        changed.put(version, id);
+        lastVersion = version;
+        return version;
+    }
+
+    public long remove(String id) {
+        long version = DataVersion.next();
+        Long previous = versions.remove(id);
+        if (previous != null) {
+            changed.remove(previous);
+        }
+        deleted.put(version, id);
+        while (deleted.size() > maxTombstones) {
+            tombstoneFloor = deleted.pollFirstEntry().getKey();
+        }
+        lastVersion = version;
+        return version;
+    }
+
+    public long getVersion(String id) {
+        Long version = versions.get(id);
+        return version != null ? version : 0;
+    }
+
+    //version of the latest change to any entity in this index
+    public long getLastVersion() {
+        return lastVersion;
+    }
+
+    //true when deletions after `since` may have been forgotten (older run, or tombstones dropped)
+    public boolean needsReset(long since) {
+        return since < tombstoneFloor;
+    }
+
+    //ids created or updated after `since`, oldest change first
+    public List<String> changedSince(long since) {
+        return new ArrayList<>(changed.tailMap(since, false).values());
+    }
+
+    //ids deleted after `since` that have not been created again since
+    public List<String> deletedSince(long since) {
+        List<String> ids = new ArrayList<>();
+        for (String id : deleted.tailMap(since, false).values()) {
+            if (!versions.containsKey(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -1,19 +1,30 @@
 package backend;
 
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import backend.objects.Agent;
 import backend.objects.GeminiConfig;
 import backend.objects.Timer;
+import backend.webserver.Bulkhead;
+import backend.webserver.ChangeHandlers;
+import backend.webserver.GzipFilter;
+import backend.webserver.MetricsFilter;
+import backend.webserver.RequestExecutor;
+import backend.webserver.RequestMetrics;
+import backend.webserver.ServerHandlers;
 import backend.webserver.StaticFileHandler;
 import backend.webserver.TaskHandlers;
 import backend.webserver.NoteHandlers;
 import backend.webserver.AIHandlers;
 import backend.webserver.TimerHandlers;
 import backend.webserver.StatsHandlers;
+import backend.webserver.SyncHandlers;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.util.List;
 
 public class WebServer {
     private static final int PORT = 8000;
@@ -21,41 +32,90 @@ public class WebServer {
     private NoteManager noteManager;
     private Agent aiAgent;
     private Timer timer;
+    private RequestExecutor executor;
+    private List<Bulkhead> bulkheads;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final ChangeFeed changeFeed;
 
     public WebServer(ScheduleManager scheduleManager, NoteManager noteManager) {
         this.scheduleManager = scheduleManager;
         this.noteManager = noteManager;
         this.aiAgent = new Agent(new GeminiConfig(), noteManager, scheduleManager);
         this.timer = new Timer();
+        this.changeFeed = new ChangeFeed(ServerConfig.getInt("server.changes.buffer", 1024));
+        changeFeed.attach(scheduleManager, noteManager);
     }
 
     public void start() throws IOException {
         HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
 
         //handle all static files with one handler
-        server.createContext("/", new StaticFileHandler());
+        createContext(server, "/", new StaticFileHandler());
+
+        //separate bulkheads so slow AI calls can never starve task/note/timer/stats requests
+        Bulkhead aiBulkhead = new Bulkhead("ai",
+            ServerConfig.getInt("server.bulkhead.ai.threads", 4),
+            ServerConfig.getInt("server.bulkhead.ai.queue", 16),
+            503);
+        Bulkhead crudBulkhead = new Bulkhead("crud",
+            ServerConfig.getInt("server.bulkhead.crud.threads", 16),
+            ServerConfig.getInt("server.bulkhead.crud.queue", 256),
+            429);
+        bulkheads = List.of(aiBulkhead, crudBulkhead);
+
+        //compress the potentially large JSON list responses
+        GzipFilter gzipFilter = new GzipFilter(ServerConfig.getInt("server.gzip.minBytes", 1024));
 
         //API endpoints
-        server.createContext("/api/tasks", new TaskHandlers.TasksHandler(scheduleManager));
-        server.createContext("/api/tasks/", new TaskHandlers.TaskHandler(scheduleManager)); //for specific task operations
-        server.createContext("/api/notes", new NoteHandlers.NotesHandler(noteManager));
-        server.createContext("/api/notes/", new NoteHandlers.NoteHandler(noteManager)); //for specific note operations
-        server.createContext("/api/ai/chat", new AIHandlers.AIChatHandler(aiAgent));
-        server.createContext("/api/ai/edit-notes", new AIHandlers.AIEditNotesHandler(aiAgent));
-        server.createContext("/api/ai/edit-schedule", new AIHandlers.AIEditScheduleHandler(aiAgent));
-        server.createContext("/api/timer", new TimerHandlers.TimerHandler(timer));
-        server.createContext("/api/timer/start", new TimerHandlers.TimerStartHandler(timer));
-        server.createContext("/api/timer/pause", new TimerHandlers.TimerPauseHandler(timer));
-        server.createContext("/api/timer/stop", new TimerHandlers.TimerStopHandler(timer));
-        server.createContext("/api/timer/reset", new TimerHandlers.TimerResetHandler(timer));
+        createContext(server, "/api/tasks", crudBulkhead.wrap(new TaskHandlers.TasksHandler(scheduleManager)))
+            .getFilters().add(gzipFilter);
+        createContext(server, "/api/tasks/", crudBulkhead.wrap(new TaskHandlers.TaskHandler(scheduleManager))); //for specific task operations
+        createContext(server, "/api/tasks/free-slots", crudBulkhead.wrap(new TaskHandlers.FreeSlotsHandler(scheduleManager)))
+            .getFilters().add(gzipFilter);
+        createContext(server, "/api/tasks/auto-schedule", crudBulkhead.wrap(new TaskHandlers.AutoScheduleHandler(scheduleManager)));
+        createContext(server, "/api/notes", crudBulkhead.wrap(new NoteHandlers.NotesHandler(noteManager)))
+            .getFilters().add(gzipFilter);
+        createContext(server, "/api/notes/", crudBulkhead.wrap(new NoteHandlers.NoteHandler(noteManager))); //for specific note operations
+        createContext(server, "/api/ai/chat", aiBulkhead.wrap(new AIHandlers.AIChatHandler(aiAgent)));
+        createContext(server, "/api/ai/edit-notes", aiBulkhead.wrap(new AIHandlers.AIEditNotesHandler(aiAgent)));
+        createContext(server, "/api/ai/edit-schedule", aiBulkhead.wrap(new AIHandlers.AIEditScheduleHandler(aiAgent)));
+        createContext(server, "/api/timer", crudBulkhead.wrap(new TimerHandlers.TimerHandler(timer)));
+        createContext(server, "/api/timer/stream", crudBulkhead.wrap(new TimerHandlers.TimerStreamHandler(timer))); //event stream, not gzipped so events flush immediately
+        createContext(server, "/api/timer/start", crudBulkhead.wrap(new TimerHandlers.TimerStartHandler(timer)));
+        createContext(server, "/api/timer/pause", crudBulkhead.wrap(new TimerHandlers.TimerPauseHandler(timer)));
+        createContext(server, "/api/timer/stop", crudBulkhead.wrap(new TimerHandlers.TimerStopHandler(timer)));
+        createContext(server, "/api/timer/reset", crudBulkhead.wrap(new TimerHandlers.TimerResetHandler(timer)));
+
+        createContext(server, "/api/sync", crudBulkhead.wrap(new SyncHandlers.SyncHandler(scheduleManager, noteManager)))
+            .getFilters().add(gzipFilter);
+        //task/note change events for open tabs, not gzipped so events flush immediately
+        createContext(server, "/api/changes/stream", crudBulkhead.wrap(new ChangeHandlers.ChangeStreamHandler(changeFeed)));
 
         // Stats endpoints
-        server.createContext("/api/stats/session", new StatsHandlers.SaveSessionRatingHandler());
-        server.createContext("/api/stats/summary", new StatsHandlers.GetSessionStatsHandler());
+        createContext(server, "/api/stats/session", crudBulkhead.wrap(new StatsHandlers.SaveSessionRatingHandler()));
+        createContext(server, "/api/stats/summary", crudBulkhead.wrap(new StatsHandlers.GetSessionStatsHandler()))
+            .getFilters().add(gzipFilter);
 
-        server.setExecutor(null);
+        //server endpoints
+        createContext(server, "/api/bulkheads", new ServerHandlers.BulkheadStatsHandler(bulkheads));
+        createContext(server, "/api/metrics", new ServerHandlers.MetricsHandler(metrics, bulkheads));
+
+        //run exchanges off the dispatcher thread so a slow AI call does not block CRUD requests
+        executor = RequestExecutor.create(
+            ServerConfig.getString("server.executor", "virtual"),
+            ServerConfig.getInt("server.maxInFlight", 256),
+            ServerConfig.getInt("server.platformThreads", 32)
+        );
+        server.setExecutor(executor);
         server.start();
 
-        System.out.println("\n\nServer started on http://localhost:" + PORT);
+        System.out.println("\n\nServer started on http://localhost:" + PORT + " (executor: " + executor.getMode() + ")");
+    }
+
+    //every context gets the metrics filter first so it sees the whole request
+    private HttpContext createContext(HttpServer server, String path, HttpHandler handler) {
+        HttpContext context = server.createContext(path, handler);
+        context.getFilters().add(new MetricsFilter(metrics));
+        return context;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package backend;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//turns saves into "dirty" signals for one background thread. the first signal schedules a write
+//delayMillis later and every signal until that write starts rides along with it, so a burst of
+//changes (an ADD_MULTIPLE, a run of status toggles) costs one file write and the requests never
+//wait for the disk. a change made while a write runs schedules the next one, so writes are at
+//least delayMillis apart. a failed write is retried the same way.
+public class WriteBehind {
+
+    //writes the whole file from the manager's current state
+    public interface Save {
+        void run() throws IOException;
+    }
+
+    private final String name;
+    private final long delayMillis;
+    private final Save save;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor writer;
+
+    public WriteBehind(String name, long delayMillis, Save save) {
+        this.name = name;
+        this.delayMillis = delayMillis;
+        this.save = save;
+        this.writer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "write-behind-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false); //close() writes them itself
+    }
+
+    //there are changes to write
+    public void markDirty() {
+        if (dirty.compareAndSet(false, true)) {
+            try {
+                writer.schedule(this::write, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                //closing: close() writes whatever is dirty after the writer stops
+            }
+        }
+    }
+
+    //waits for a write in progress, then writes anything still dirty on the calling thread
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dirty.getAndSet(false)) {
+            try {
+                save.run();
+            } catch (IOException e) {
+                System.err.println("Error saving " + name + " at shutdown: " + e.getMessage());
+            }
+        }
+    }
+
+    private void write() {
+        //cleared before reading the state, so a change made during the write marks it dirty again
+        dirty.set(false);
+        try {
+            save.run();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error saving " + name + ": " + e.getMessage());
+            markDirty();
+        }
+    }
+}
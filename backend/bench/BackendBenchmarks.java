@@ -0,0 +1,238 @@
+package backend.bench;
+
+import backend.AutoScheduler;
+import backend.FrontendDataHandler;
+import backend.Journal;
+import backend.NoteManager;
+import backend.NotePersistence;
+import backend.ScheduleManager;
+import backend.TaskPersistence;
+import backend.objects.AIResponseHandler;
+import backend.objects.Task;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+//the JMH benchmarks in jmh/ run through the plain harness, for a quick run without Maven (the
+//JMH results are the ones to compare). run after compiling everything to out/:
+//  java -cp out backend.bench.BackendBenchmarks [name filter] [--quick]
+//e.g. "ScheduleManager" runs only the manager benchmarks. --quick trades accuracy for speed
+//(1 warmup + 3 short iterations) and is meant for checking the suite itself, not for numbers.
+//data files are written to a temp directory, never to tasks.json/notes.json.
+public class BackendBenchmarks {
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    private static final int TASKS_PER_DAY = 40;
+    private static final int DAY_SLOTS = 24 * 60 - 1; //one minute tasks from 00:00 to 23:59
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+
+    public static void main(String[] args) throws Exception {
+        String filter = null;
+        boolean quick = false;
+        for (String arg : args) {
+            if (arg.equals("--quick")) {
+                quick = true;
+            } else {
+                filter = arg;
+            }
+        }
+        Bench bench = quick ? new Bench(1, 3, 200, filter) : new Bench(3, 5, 1000, filter);
+        File dir = Files.createTempDirectory("pomodoro-bench").toFile();
+        dir.deleteOnExit();
+
+        bench.printHeader();
+        scheduleManager(bench);
+        persistence(bench, dir);
+        frontendData(bench);
+        aiResponses(bench);
+    }
+
+    private static void scheduleManager(Bench bench) throws Exception {
+        for (int size : SIZES) {
+            bench.run("ScheduleManager.addTask", size, size, () -> fill(new ScheduleManager(), size));
+        }
+
+        for (int size : SIZES) {
+            if (!bench.selectedAny("ScheduleManager.getTasksForDate", "ScheduleManager.getTasks(week)",
+                    "ScheduleManager.getAllTasks", "ScheduleManager.updateTaskStatus")) {
+                break;
+            }
+            ScheduleManager manager = fill(new ScheduleManager(), size);
+            List<Task> tasks = manager.getAllTasks();
+            int days = Math.max(1, size / TASKS_PER_DAY);
+            int[] cursor = {0};
+
+            bench.run("ScheduleManager.getTasksForDate", size,
+                () -> manager.getTasksForDate(FIRST_DAY.plusDays(cursor[0]++ % days)));
+            bench.run("ScheduleManager.getTasks(week)", size, () -> {
+                LocalDate from = FIRST_DAY.plusDays(cursor[0]++ % days);
+                return manager.getTasks(from, from.plusDays(6), Task.TaskStatus.PENDING, null);
+            });
+            bench.run("ScheduleManager.getAllTasks", size, manager::getAllTasks);
+            bench.run("ScheduleManager.updateTaskStatus", size, () -> {
+                Task task = tasks.get(cursor[0]++ % tasks.size());
+                Task.TaskStatus next = task.getStatus() == Task.TaskStatus.PENDING
+                    ? Task.TaskStatus.COMPLETED : Task.TaskStatus.PENDING;
+                return manager.updateTaskStatus(task.getId(), next);
+            });
+        }
+
+        //one crowded day, every add conflict checked: the bulk import / ADD_MULTIPLE shape
+        if (bench.selectedAny("ScheduleManager.addTask(sameDay)", "ScheduleManager.isTimeSlotAvailable")) {
+            int minutes = DAY_SLOTS;
+            bench.run("ScheduleManager.addTask(sameDay)", minutes, minutes, () -> fillDay(new ScheduleManager()));
+            ScheduleManager manager = fillDay(new ScheduleManager());
+            int[] cursor = {0};
+            bench.run("ScheduleManager.isTimeSlotAvailable", minutes, () -> {
+                LocalTime start = LocalTime.MIN.plusMinutes(cursor[0]++ % (minutes - 30));
+                return manager.isTimeSlotAvailable(start, start.plusMinutes(30), FIRST_DAY);
+            });
+        }
+
+        //"next free 45 minutes this week" on a normal schedule (fill leaves 06:00-16:00 busy)
+        if (bench.selected("ScheduleManager.findFreeSlots(week)")) {
+            ScheduleManager manager = fill(new ScheduleManager(), 10_000);
+            bench.run("ScheduleManager.findFreeSlots(week)", 10_000, () -> manager.findFreeSlots(FIRST_DAY,
+                FIRST_DAY.plusDays(6), 45, LocalTime.of(8, 0), LocalTime.of(20, 0), Integer.MAX_VALUE));
+        }
+
+        //plan (not apply) 300 new tasks of mixed priority into a week with room for all of them,
+        //so this is the greedy pass plus a local search that runs until nothing improves
+        if (bench.selected("AutoScheduler.plan(week)")) {
+            ScheduleManager manager = new ScheduleManager();
+            List<AutoScheduler.Item> items = new ArrayList<>();
+            int[] durations = {15, 15, 15, 30};
+            for (int i = 0; i < 300; i++) {
+                items.add(new AutoScheduler.Item("Task " + i, durations[i % durations.length],
+                    Task.Priority.values()[i % Task.Priority.values().length]));
+            }
+            //"now" is the start of the week, so none of it is in the past
+            AutoScheduler scheduler = new AutoScheduler(FIRST_DAY, FIRST_DAY.plusDays(6),
+                LocalTime.of(7, 0), LocalTime.of(22, 0), 15, 1_000,
+                Clock.fixed(FIRST_DAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+            bench.run("AutoScheduler.plan(week)", items.size(), () -> scheduler.plan(manager, items));
+        }
+    }
+
+    private static void persistence(Bench bench, File dir) throws Exception {
+        for (int size : SIZES) {
+            if (!bench.selectedAny("TaskPersistence.saveTasks", "TaskPersistence.loadTasks")) {
+                break;
+            }
+            File tasksFile = new File(dir, "tasks-" + size + ".json");
+            tasksFile.deleteOnExit();
+            ScheduleManager manager = fill(new ScheduleManager(), size);
+            bench.run("TaskPersistence.saveTasks", size, size, () -> {
+                TaskPersistence.saveTasks(manager, tasksFile);
+                return tasksFile;
+            });
+            TaskPersistence.saveTasks(manager, tasksFile);
+            bench.run("TaskPersistence.loadTasks", size, size, () -> {
+                ScheduleManager loaded = new ScheduleManager();
+                TaskPersistence.loadTasks(loaded, tasksFile);
+                return loaded;
+            });
+        }
+
+        //what one save costs with the journal: a task sized record plus its fsync, whatever the
+        //number of tasks (compare with TaskPersistence.saveTasks, which rewrites all of them)
+        if (bench.selected("Journal.append+flush")) {
+            File journalFile = new File(dir, "tasks.journal");
+            journalFile.deleteOnExit();
+            byte[] record = ("{\"op\":\"update\",\"id\":\"2f0c8e55-6a4b-4f1e-9d53-0b8f3c1d7a42\",\"description\":"
+                + "\"Study for the physics test\",\"startTime\":\"09:30\",\"endTime\":\"10:45\",\"date\":\"2025-03-14\","
+                + "\"status\":\"COMPLETED\",\"priority\":\"HIGH\"}").getBytes(StandardCharsets.UTF_8);
+            try (Journal journal = new Journal(journalFile)) {
+                bench.run("Journal.append+flush", "-", () -> {
+                    journal.append(record);
+                    journal.flush();
+                    return journal;
+                });
+            }
+        }
+
+        for (int size : new int[] {1_000, 10_000}) {
+            if (!bench.selected("NotePersistence.roundTrip")) {
+                break;
+            }
+            File notesFile = new File(dir, "notes-" + size + ".json");
+            notesFile.deleteOnExit();
+            NoteManager notes = new NoteManager();
+            for (int i = 0; i < size; i++) {
+                notes.addNote("Note " + i + ": review chapter " + (i % 12) + " and write a \"summary\" \u00e9");
+            }
+            bench.run("NotePersistence.roundTrip", size, size, () -> {
+                NotePersistence.saveNotes(notes, notesFile);
+                NoteManager loaded = new NoteManager();
+                NotePersistence.loadNotes(loaded, notesFile);
+                return loaded;
+            });
+        }
+    }
+
+    private static void frontendData(Bench bench) throws Exception {
+        String body = "{\"description\":\"Study for the \\\"physics\\\" test\",\"startTime\":\"09:30\","
+            + "\"endTime\":\"10:45\",\"date\":\"2025-03-14\",\"priority\":\"HIGH\"}";
+        bench.run("FrontendDataHandler.parseTaskCreateRequest", "-",
+            () -> FrontendDataHandler.parseTaskCreateRequest(body));
+
+        Task task = new Task("Study for the \"physics\" test", LocalTime.of(9, 30), LocalTime.of(10, 45), FIRST_DAY);
+        bench.run("FrontendDataHandler.taskToJson(cached)", "-", () -> FrontendDataHandler.taskToJson(task));
+        String[] priorities = {"HIGH", "LOW"};
+        int[] cursor = {0};
+        bench.run("FrontendDataHandler.taskToJson(changed)", "-", () -> {
+            task.setPriority(priorities[cursor[0]++ & 1]); //setters drop the cached JSON
+            return FrontendDataHandler.taskToJson(task);
+        });
+    }
+
+    private static void aiResponses(Bench bench) throws Exception {
+        for (int kb : new int[] {16, 256, 1024}) {
+            String text = aiText(kb * 1024);
+            String gemini = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + text
+                + "\"}],\"role\":\"model\"},\"finishReason\":\"STOP\"}]}";
+            String openAi = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"choices\":[{\"index\":0,"
+                + "\"message\":{\"role\":\"assistant\",\"content\":\"" + text + "\"},\"finish_reason\":\"stop\"}]}";
+            bench.run("AIResponseHandler.extract(gemini)", kb + "KB",
+                () -> AIResponseHandler.extractContentFromResponse(gemini));
+            bench.run("AIResponseHandler.extract(choices)", kb + "KB",
+                () -> AIResponseHandler.extractContentFromResponse(openAi));
+        }
+    }
+
+    //adds size tasks spread over consecutive days, TASKS_PER_DAY 15 minute slots a day
+    private static ScheduleManager fill(ScheduleManager manager, int size) {
+        for (int i = 0; i < size; i++) {
+            LocalDate date = FIRST_DAY.plusDays(i / TASKS_PER_DAY);
+            LocalTime start = LocalTime.of(6, 0).plusMinutes((i % TASKS_PER_DAY) * 15L);
+            manager.addTask("Task " + i, start, start.plusMinutes(15), date, true);
+        }
+        return manager;
+    }
+
+    //fills FIRST_DAY with back to back one minute tasks, each added with the conflict check on
+    private static ScheduleManager fillDay(ScheduleManager manager) {
+        for (int i = 0; i < DAY_SLOTS; i++) {
+            LocalTime start = LocalTime.MIN.plusMinutes(i);
+            if (manager.addTask("Task " + i, start, start.plusMinutes(1), FIRST_DAY, false) == null) {
+                throw new IllegalStateException("unexpected conflict at " + start);
+            }
+        }
+        return manager;
+    }
+
+    //escaped JSON string content of roughly the given length, like a long model answer
+    private static String aiText(int length) {
+        String line = "Here is a plan for \\\"Tuesday\\\": study 09:00-10:30, break, then review notes.\\n";
+        StringBuilder sb = new StringBuilder(length + line.length());
+        while (sb.length() < length) {
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+}
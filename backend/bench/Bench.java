@@ -0,0 +1,123 @@
+package backend.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+//tiny JMH-style harness for a quick look without Maven or extra jars. the numbers to compare
+//before and after a change come from the JMH module in jmh/ (forks, dead-code protection,
+//proper statistics); this one has none of that. each benchmark runs a few warmup iterations,
+//then timed iterations of a fixed length; the report is the mean time per operation with its
+//standard deviation, plus bytes allocated per operation when the JVM can tell.
+public final class Bench {
+
+    //one benchmarked operation; whatever it returns is kept alive so the JIT can't drop the work
+    public interface Op {
+        Object run() throws Exception;
+    }
+
+    public static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final long iterationNanos;
+    private final String filter;
+    private final com.sun.management.ThreadMXBean allocations;
+
+    public Bench(int warmupIterations, int measureIterations, long iterationMillis, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.filter = filter;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            allocations = (com.sun.management.ThreadMXBean) threads;
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            allocations = null;
+        }
+    }
+
+    //true when the benchmark name passes the command line filter
+    public boolean selected(String name) {
+        return filter == null || name.contains(filter);
+    }
+
+    //lets a group skip building its (possibly large) fixtures when none of its benchmarks run
+    public boolean selectedAny(String... names) {
+        for (String name : names) {
+            if (selected(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void printHeader() {
+        System.out.println(String.format(Locale.ROOT, "%-48s %8s %14s %12s %12s",
+            "Benchmark", "Param", "ns/op", "error", "B/op"));
+    }
+
+    public void run(String name, Object param, Op op) throws Exception {
+        run(name, param, 1, op);
+    }
+
+    //batch: how many operations one call of op performs (e.g. adding n tasks to a fresh manager)
+    public void run(String name, Object param, int batch, Op op) throws Exception {
+        if (!selected(name)) {
+            return;
+        }
+        try {
+            measure(name, param, batch, op);
+        } catch (Exception | StackOverflowError | OutOfMemoryError e) {
+            //a benchmark that blows up is a result too; report it and carry on with the rest
+            System.out.println(String.format(Locale.ROOT, "%-48s %8s %s", name, param, "FAILED: " + e));
+        }
+    }
+
+    private void measure(String name, Object param, int batch, Op op) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(op);
+        }
+        double[] nsPerOp = new double[measureIterations];
+        double bytesPerOp = 0;
+        for (int i = 0; i < measureIterations; i++) {
+            long allocatedBefore = allocatedBytes();
+            long[] result = iteration(op);
+            long allocated = allocatedBytes() - allocatedBefore;
+            long ops = result[0] * batch;
+            nsPerOp[i] = (double) result[1] / ops;
+            bytesPerOp += (double) allocated / ops / measureIterations;
+        }
+
+        double mean = 0;
+        for (double v : nsPerOp) {
+            mean += v / nsPerOp.length;
+        }
+        double variance = 0;
+        for (double v : nsPerOp) {
+            variance += (v - mean) * (v - mean) / Math.max(1, nsPerOp.length - 1);
+        }
+        String bytes = allocations != null ? String.format(Locale.ROOT, "%12.0f", bytesPerOp) : String.format("%12s", "n/a");
+        System.out.println(String.format(Locale.ROOT, "%-48s %8s %14.1f %12.1f %s",
+            name, param, mean, Math.sqrt(variance), bytes));
+    }
+
+    //runs op until the iteration time is used up; returns {calls, elapsed nanos}
+    private long[] iteration(Op op) throws Exception {
+        long calls = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink = op.run();
+            calls++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[] {calls, elapsed};
+    }
+
+    private long allocatedBytes() {
+        return allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+}
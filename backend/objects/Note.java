@@ -9,6 +9,7 @@ public class Note {
     private String id;
     private LocalDateTime creationTime;
     private String noteContent;
+    private byte[] cachedJson; //guarded by this
 
     public Note(String noteContent)
     {
@@ -60,8 +61,21 @@ public class Note {
         return creationTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
     }
 
-    public void setContent(String content)
+    //drops the cached JSON along with the old content
+    public synchronized void setContent(String content)
     {
         this.noteContent = content;
+        this.cachedJson = null;
+    }
+
+    //serialized API form, built lazily by FrontendDataHandler under this note's lock
+    public synchronized byte[] getCachedJson()
+    {
+        return cachedJson;
+    }
+
+    public synchronized void setCachedJson(byte[] json)
+    {
+        this.cachedJson = json;
     }
 }
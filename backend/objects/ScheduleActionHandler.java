@@ -40,9 +40,8 @@ public class ScheduleActionHandler {
                         }
                     }
 
-                    Task newTask = scheduleManager.addTask(description, startTime, endTime, LocalDate.now(), true);
+                    Task newTask = scheduleManager.addTask(description, startTime, endTime, LocalDate.now(), true, priority);
                     if (newTask != null) {
-                        newTask.setPriority(priority);
                         backend.TaskPersistence.saveTasks(scheduleManager);
                         return "Added task: " + description + " (" + startTime + " - " + endTime + ", Priority: " + priority + ")";
                     } else {
@@ -88,9 +87,8 @@ public class ScheduleActionHandler {
                                 }
                             }
 
-                            Task newTask = scheduleManager.addTask(description, startTime, endTime, LocalDate.now(), true);
+                            Task newTask = scheduleManager.addTask(description, startTime, endTime, LocalDate.now(), true, priority);
                             if (newTask != null) {
-                                newTask.setPriority(priority);
                                 resultMessage.append("- ").append(description).append(" (").append(startTime).append(" - ").append(endTime).append(", Priority: ").append(priority).append(")\n");
                                 successCount++;
                             } else {
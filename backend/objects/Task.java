@@ -6,13 +6,15 @@ import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
 public class Task {
+    //mutable fields are volatile: ScheduleManager hands tasks to readers that don't take its lock
     private String id;
-    private String description;
-    private LocalTime startTime;
-    private LocalTime endTime;
-    private LocalDate date;
-    private TaskStatus status;
-    private String priority;
+    private volatile String description;
+    private volatile LocalTime startTime;
+    private volatile LocalTime endTime;
+    private volatile LocalDate date;
+    private volatile TaskStatus status;
+    private volatile String priority;
+    private byte[] cachedJson; //guarded by this
 
     public enum TaskStatus {
         PENDING,
@@ -21,6 +23,25 @@ public class Task {
         CANCELLED
     }
 
+    //the priorities a task can have; the field itself stays a string as sent by clients
+    public enum Priority {
+        HIGH,
+        MEDIUM,
+        LOW;
+
+        //the priority named by the string, or null if it isn't one
+        public static Priority of(String value) {
+            if (value != null) {
+                for (Priority priority : values()) {
+                    if (priority.name().equals(value)) {
+                        return priority;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
     public Task(String description, LocalTime startTime, LocalTime endTime) {
         this(description, startTime, endTime, LocalDate.now());
     }
@@ -55,13 +76,20 @@ public class Task {
     public TaskStatus getStatus() { return status; }
     public String getPriority() { return priority; }
 
-    //setters
-    public void setDescription(String description) { this.description = description; }
-    public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
-    public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
-    public void setDate(LocalDate date) { this.date = date; }
-    public void setStatus(TaskStatus status) { this.status = status; }
-    public void setPriority(String priority) { this.priority = priority; }
+    //setters (each one drops the cached JSON). there are none for the date and times: ScheduleManager
+    //indexes tasks by them (interval tree, day occupancy, date index), so a task moves by being
+    //removed and added again as a new Task with the same id, as AutoScheduler.apply does
+    public synchronized void setDescription(String description) { this.description = description; cachedJson = null; }
+    //ScheduleManager also indexes tasks by status and priority: once a task is added to it, only
+    //the manager may call these (change them through updateTaskStatus/updateTaskPriority). on a
+    //task that isn't in a manager yet they are fine
+    public synchronized void setStatus(TaskStatus status) { this.status = status; cachedJson = null; }
+    public synchronized void setPriority(String priority) { this.priority = priority; cachedJson = null; }
+
+    //serialized API form, built lazily by FrontendDataHandler while holding this task's lock so a
+    //setter can't slip in between reading the fields and storing the bytes
+    public synchronized byte[] getCachedJson() { return cachedJson; }
+    public synchronized void setCachedJson(byte[] json) { this.cachedJson = json; }
 
     // Utility methods
     public boolean isOverlapping(Task other) {
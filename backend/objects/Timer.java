@@ -2,6 +2,7 @@ package backend.objects;
 
 //imports
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class Timer {
@@ -11,40 +12,85 @@ public class Timer {
     private java.util.Timer utilTimer;
     private TimerTask currentTask;
     private AtomicInteger remainingSeconds;
-    private boolean isRunning;
+    private volatile boolean isRunning;
     private int pomodorosCompleted = 0;  
+    private volatile String currentMode = "pomodoro";
+    //wall-clock time (epoch ms) the running timer reaches zero, 0 when not running
+    private volatile long deadlineMillis = 0;
     
     public interface TimerCallback {
         void onTimerComplete(String mode);
         void onReminder(String message);
     }
     private TimerCallback callback; 
+
+    //notified on every state transition: start, pause, resume, stop, reset, complete
+    public interface TimerListener {
+        void onTimerEvent(String event);
+    }
+    private final List<TimerListener> listeners = new CopyOnWriteArrayList<>();
+
     public void startPomodoro() {
         startTimer("pomodoro", pomodoroDuration);
     }
 
-    private void startTimer(String mode, int duration) {
-        stopTimer();
+    private synchronized void startTimer(String mode, int duration) {
+        cancelTimer();
+        currentMode = mode;
         remainingSeconds.set(duration);
+        scheduleTicks();
+        fireEvent("start");
+    }
+
+    //counts remainingSeconds down once a second (first tick one second from now) until it hits zero
+    private void scheduleTicks() {
         isRunning = true;
-        utilTimer = new java.util.Timer();
+        deadlineMillis = System.currentTimeMillis() + remainingSeconds.get() * 1000L;
+        java.util.Timer tickTimer = new java.util.Timer("pomodoro-timer", true);
+        utilTimer = tickTimer;
         currentTask = new TimerTask() {
             @Override
             public void run() {
-                int remaining = remainingSeconds.decrementAndGet();
-                if(remaining <= 0) {
-                    isRunning = false;
-                    if ("pomodoro".equals(mode)) {
-                        pomodorosCompleted++;
+                synchronized (Timer.this) {
+                    if (utilTimer != tickTimer) {
+                        return; //paused or restarted while this tick was waiting for the lock
                     }
-                    if (callback != null) {
-                        callback.onTimerComplete(mode);
+                    int remaining = remainingSeconds.decrementAndGet();
+                    if(remaining <= 0) {
+                        isRunning = false;
+                        deadlineMillis = 0;
+                        if ("pomodoro".equals(currentMode)) {
+                            pomodorosCompleted++;
+                        }
+                        cancel();
+                        tickTimer.cancel();
+                        if (callback != null) {
+                            callback.onTimerComplete(currentMode);
+                        }
+                        fireEvent("complete");
                     }
-                    cancel();
                 }
             }
         };
-        utilTimer.scheduleAtFixedRate(currentTask, 0, 1000);
+        utilTimer.scheduleAtFixedRate(currentTask, 1000, 1000);
+    }
+
+    public void addListener(TimerListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TimerListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireEvent(String event) {
+        for (TimerListener listener : listeners) {
+            try {
+                listener.onTimerEvent(event);
+            } catch (RuntimeException e) {
+                System.err.println("Timer listener failed on " + event + ": " + e.getMessage());
+            }
+        }
     }
 
     public Timer(){
@@ -76,47 +122,41 @@ public class Timer {
     public void startCustomTimer(int durationInSeconds) {
         startTimer("custom", durationInSeconds);
     }
-    public void pauseTimer() {
-        if (currentTask != null) {
-            currentTask.cancel();
-        }
-        if (utilTimer != null) {
-            utilTimer.cancel();
-        }
-        isRunning = false;
+    public synchronized void pauseTimer() {
+        cancelTimer();
+        fireEvent("pause");
     }
 
-    public void resumeTimer() {
+    public synchronized void resumeTimer() {
         if (!isRunning && remainingSeconds.get() > 0) {
-            utilTimer = new java.util.Timer();
-            currentTask = new TimerTask() {
-                @Override
-                public void run() {
-                    int remaining = remainingSeconds.decrementAndGet();
-                    if(remaining <= 0) {
-                        isRunning = false;
-                        cancel();
-                    }
-                }
-            };
-            utilTimer.scheduleAtFixedRate(currentTask, 0, 1000);
-            isRunning = true;
+            scheduleTicks();
+            fireEvent("resume");
         }
     }
 
-    public void stopTimer() {
+    public synchronized void stopTimer() {
+        cancelTimer();
+        fireEvent("stop");
+    }
+
+    private void cancelTimer() {
         if (currentTask != null) {
             currentTask.cancel();
         }
         if (utilTimer != null) {
             utilTimer.cancel();
         }
+        currentTask = null;
+        utilTimer = null;
         isRunning = false;
+        deadlineMillis = 0;
     }
 
-    public void resetTimer() {
-        stopTimer();
+    public synchronized void resetTimer() {
+        cancelTimer();
+        currentMode = "pomodoro";
         remainingSeconds.set(pomodoroDuration);
+        fireEvent("reset");
     }
     public int getRemainingTime() {
         return remainingSeconds.get();
@@ -124,6 +164,12 @@ public class Timer {
     public boolean isRunning() {
         return isRunning;
     }
+    public String getCurrentMode() {
+        return currentMode;
+    }
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
     public int getPomodorosCompleted() {
         return pomodorosCompleted;
     }
@@ -152,8 +198,8 @@ public class Timer {
         pomodorosCompleted = 0;
     }
 
-    public void cleanup() {
-        stopTimer();
+    public synchronized void cleanup() {
+        cancelTimer();
     }
 }
 
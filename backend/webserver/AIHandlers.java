@@ -2,6 +2,7 @@ package backend.webserver;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import backend.JsonReader;
 import backend.objects.Agent;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -28,15 +29,15 @@ public class AIHandlers {
             }
 
             try {
-                String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                String message = extractJsonValue(requestBody, "message");
+                String message = JsonReader.readFlatObject(exchange.getRequestBody()).get("message");
 
                 if (message == null) {
                     String errorResponse = "{\"error\":\"Missing required field: message\"}";
+                    byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                     exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.sendResponseHeaders(400, errorResponse.length());
+                    exchange.sendResponseHeaders(400, errorResponseBytes.length);
                     try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                        os.write(errorResponseBytes);
                     }
                     return;
                 }
@@ -51,6 +52,14 @@ public class AIHandlers {
                     os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
                 }
 
+            } catch (JsonReader.MalformedJsonException e) {
+                String errorResponse = "{\"error\":\"Invalid JSON format\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(400, errorResponseBytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(errorResponseBytes);
+                }
             } catch (Exception e) {
                 System.err.println("Error in AI chat: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
@@ -78,15 +87,15 @@ public class AIHandlers {
             }
 
             try {
-                String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                String instruction = extractJsonValue(requestBody, "instruction");
+                String instruction = JsonReader.readFlatObject(exchange.getRequestBody()).get("instruction");
 
                 if (instruction == null) {
                     String errorResponse = "{\"error\":\"Missing required field: instruction\"}";
+                    byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                     exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.sendResponseHeaders(400, errorResponse.length());
+                    exchange.sendResponseHeaders(400, errorResponseBytes.length);
                     try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                        os.write(errorResponseBytes);
                     }
                     return;
                 }
@@ -100,6 +109,14 @@ public class AIHandlers {
                     os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
                 }
 
+            } catch (JsonReader.MalformedJsonException e) {
+                String errorResponse = "{\"error\":\"Invalid JSON format\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(400, errorResponseBytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(errorResponseBytes);
+                }
             } catch (Exception e) {
                 System.err.println("Error in AI edit notes: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
@@ -127,15 +144,15 @@ public class AIHandlers {
             }
 
             try {
-                String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                String instruction = extractJsonValue(requestBody, "instruction");
+                String instruction = JsonReader.readFlatObject(exchange.getRequestBody()).get("instruction");
 
                 if (instruction == null) {
                     String errorResponse = "{\"error\":\"Missing required field: instruction\"}";
+                    byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                     exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.sendResponseHeaders(400, errorResponse.length());
+                    exchange.sendResponseHeaders(400, errorResponseBytes.length);
                     try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                        os.write(errorResponseBytes);
                     }
                     return;
                 }
@@ -149,6 +166,14 @@ public class AIHandlers {
                     os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
                 }
 
+            } catch (JsonReader.MalformedJsonException e) {
+                String errorResponse = "{\"error\":\"Invalid JSON format\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(400, errorResponseBytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(errorResponseBytes);
+                }
             } catch (Exception e) {
                 System.err.println("Error in AI edit schedule: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
@@ -177,22 +202,13 @@ public class AIHandlers {
         return sb.toString();
     }
 
-    private static String extractJsonValue(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*\"([^\"]+)\"";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-        if (m.find()) {
-            return m.group(1);
-        }
-        return null;
-    }
-
     private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
         String response = "{\"error\":\"Method not allowed\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(405, response.length());
+        exchange.sendResponseHeaders(405, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 }
\ No newline at end of file
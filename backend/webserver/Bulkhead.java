@@ -0,0 +1,127 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//a bounded pool + bounded queue that a group of contexts runs on, so one group (e.g. slow AI
+//calls) can never use up the threads another group (task/note CRUD) needs. when both the
+//threads and the queue are full the request is rejected right away with rejectStatus. a request
+//keeps its place in the server's maxInFlight (RequestExecutor) while it waits and runs here.
+public class Bulkhead {
+    private final String name;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final int rejectStatus;
+    private final ThreadPoolExecutor pool;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, int queueCapacity, int rejectStatus) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.rejectStatus = rejectStatus;
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "bulkhead-" + name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.pool = new ThreadPoolExecutor(this.maxConcurrent, this.maxConcurrent, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    //wraps a handler so it runs inside this bulkhead
+    public HttpHandler wrap(HttpHandler handler) {
+        return exchange -> {
+            Runnable done = RequestExecutor.handOff();
+            try {
+                pool.execute(() -> {
+                    try {
+                        runHandler(handler, exchange);
+                    } finally {
+                        done.run();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                try {
+                    rejectedCount.incrementAndGet();
+                    sendRejected(exchange);
+                } finally {
+                    done.run();
+                }
+            }
+        };
+    }
+
+    private void runHandler(HttpHandler handler, HttpExchange exchange) {
+        try {
+            handler.handle(exchange);
+        } catch (Throwable t) {
+            //we are off the dispatcher thread, so nobody else will close the exchange for us
+            System.err.println("Error handling " + exchange.getRequestURI() + " in bulkhead " + name + ": " + t.getMessage());
+            exchange.close();
+        }
+    }
+
+    private void sendRejected(HttpExchange exchange) throws IOException {
+        byte[] response = ("{\"error\":\"Server busy, try again shortly\",\"bulkhead\":\"" + name + "\"}")
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.sendResponseHeaders(rejectStatus, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getQueueLength() {
+        return pool.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return pool.getCompletedTaskCount();
+    }
+
+    public String toJson() {
+        return String.format(
+            "{\"name\":\"%s\",\"maxConcurrent\":%d,\"queueCapacity\":%d,\"queueLength\":%d,\"active\":%d,\"rejected\":%d,\"completed\":%d}",
+            name, maxConcurrent, queueCapacity, getQueueLength(), getActiveCount(), getRejectedCount(), getCompletedCount()
+        );
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,66 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import backend.ChangeFeed;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ChangeHandlers {
+
+    //handle /api/changes/stream (GET event stream of task and note create/update/delete events).
+    //each event carries its feed id; browsers send it back as Last-Event-ID when they reconnect
+    //(or pages pass ?lastEventId=) and the missed events are replayed. when that is no longer
+    //possible a "reset" event tells the page to reload its lists once.
+    public static class ChangeStreamHandler implements HttpHandler {
+        private final ChangeFeed feed;
+        private final SseBroadcaster broadcaster = new SseBroadcaster("changes");
+
+        public ChangeStreamHandler(ChangeFeed feed) {
+            this.feed = feed;
+            feed.addSubscriber(change ->
+                broadcaster.broadcast(change.getId(), change.getEntity(), change.toJson()));
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+
+            String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+            if (lastEventId == null) {
+                lastEventId = QueryParams.get(exchange, "lastEventId");
+            }
+            String resumeFrom = lastEventId;
+
+            broadcaster.open(exchange);
+            //replay and join under the feed lock so no event is missed or sent twice
+            feed.withLock(() -> {
+                StringBuilder initial = new StringBuilder();
+                List<ChangeFeed.Change> missed = resumeFrom != null ? feed.changesSince(resumeFrom) : null;
+                if (missed != null) {
+                    for (ChangeFeed.Change change : missed) {
+                        initial.append(SseBroadcaster.formatEvent(change.getId(), change.getEntity(), change.toJson()));
+                    }
+                } else {
+                    String event = resumeFrom != null ? "reset" : "ready";
+                    initial.append(SseBroadcaster.formatEvent(feed.getLastId(), event, "{\"id\":\"" + feed.getLastId() + "\"}"));
+                }
+                broadcaster.join(exchange, initial.toString());
+            });
+        }
+    }
+
+    private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        String response = "{\"error\":\"Method not allowed\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(405, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+}
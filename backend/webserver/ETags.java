@@ -0,0 +1,43 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+//conditional GET helpers for API responses whose ETag comes from a data version, so a match
+//can be answered before anything is loaded or serialized
+final class ETags {
+    private ETags() {}
+
+    //true when If-None-Match lists the etag (or *). weak and strong forms compare equal since
+    //the gzip filter may change the representation
+    static boolean matches(HttpExchange exchange, String etag) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String bare = strip(etag);
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = strip(tag.trim());
+            if (t.equals("*") || t.equals(bare)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //sets the validator headers on a 200 response: browsers then revalidate on every fetch
+    static void setHeaders(HttpExchange exchange, String etag) {
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+    }
+
+    static void sendNotModified(HttpExchange exchange, String etag) throws IOException {
+        setHeaders(exchange, etag);
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+    }
+
+    private static String strip(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
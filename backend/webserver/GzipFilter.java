@@ -0,0 +1,111 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+//gzips JSON responses on the fly when the client accepts gzip. responses whose declared length
+//is below minBytes are left alone; chunked responses (length 0) are always compressed. the body
+//goes through a GZIPOutputStream straight into the chunked response, nothing is buffered whole.
+public class GzipFilter extends Filter {
+    private final int minBytes;
+
+    public GzipFilter(int minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (acceptsGzip(exchange)) {
+            chain.doFilter(new GzipExchange(exchange));
+        } else {
+            exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+            chain.doFilter(exchange);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "gzip JSON responses over " + minBytes + " bytes";
+    }
+
+    //true unless the client lists gzip (or *) with q=0 or leaves it out
+    static boolean acceptsGzip(HttpExchange exchange) {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase();
+            if (!coding.equals("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private class GzipExchange extends ForwardingExchange {
+        private GZIPOutputStream gzipStream;
+
+        GzipExchange(HttpExchange delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+            getResponseHeaders().add("Vary", "Accept-Encoding");
+            if (shouldCompress(rCode, responseLength)) {
+                getResponseHeaders().set("Content-Encoding", "gzip");
+                delegate.sendResponseHeaders(rCode, 0); //compressed length is unknown up front, send chunked
+                gzipStream = new GZIPOutputStream(delegate.getResponseBody(), 8192);
+            } else {
+                delegate.sendResponseHeaders(rCode, responseLength);
+            }
+        }
+
+        private boolean shouldCompress(int rCode, long responseLength) {
+            if (rCode < 200 || rCode == 204 || rCode == 304 || responseLength < 0) {
+                return false;
+            }
+            if (responseLength > 0 && responseLength < minBytes) {
+                return false;
+            }
+            if (getResponseHeaders().containsKey("Content-Encoding")) {
+                return false;
+            }
+            String contentType = getResponseHeaders().getFirst("Content-Type");
+            return contentType != null && contentType.contains("json");
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return gzipStream != null ? gzipStream : delegate.getResponseBody();
+        }
+
+        @Override
+        public void close() {
+            if (gzipStream != null) {
+                try {
+                    gzipStream.close(); //writes the gzip trailer and closes the real body
+                } catch (IOException e) {
+                    //client went away, nothing left to do
+                }
+            }
+            delegate.close();
+        }
+    }
+}
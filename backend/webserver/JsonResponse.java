@@ -0,0 +1,20 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import backend.JsonWriter;
+
+//glue between JsonWriter and an HttpExchange: a response that fits the writer's buffer goes out
+//with an exact Content-Length, a bigger one is sent chunked while it is being written
+final class JsonResponse {
+
+    private JsonResponse() {}
+
+    //a pooled writer whose finish() sends the response with the given status
+    static JsonWriter writer(HttpExchange exchange, int status) {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        return JsonWriter.acquire(length -> {
+            exchange.sendResponseHeaders(status, length >= 0 ? length : 0);
+            return exchange.getResponseBody();
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//records count, status, bytes and latency for every exchange on a context. handlers may finish
+//on another thread (bulkheads), so a request counts as done when its response body or the
+//exchange is closed, not when doFilter returns.
+public class MetricsFilter extends Filter {
+    private final RequestMetrics metrics;
+
+    public MetricsFilter(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        RequestMetrics.RouteMetrics route = metrics.route(exchange.getHttpContext().getPath());
+        MetricsExchange wrapped = new MetricsExchange(exchange, route);
+        try {
+            chain.doFilter(wrapped);
+        } catch (IOException | RuntimeException e) {
+            wrapped.finish(500);
+            throw e;
+        }
+    }
+
+    @Override
+    public String description() {
+        return "request metrics";
+    }
+
+    private static class MetricsExchange extends ForwardingExchange {
+        private final RequestMetrics.RouteMetrics route;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile int status = 0;
+        private CountingInputStream requestBody;
+        private CountingOutputStream responseBody;
+
+        MetricsExchange(HttpExchange delegate, RequestMetrics.RouteMetrics route) {
+            super(delegate);
+            this.route = route;
+            route.requestStarted();
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+            status = rCode;
+            delegate.sendResponseHeaders(rCode, responseLength);
+        }
+
+        @Override
+        public synchronized InputStream getRequestBody() {
+            if (requestBody == null) {
+                requestBody = new CountingInputStream(delegate.getRequestBody());
+            }
+            return requestBody;
+        }
+
+        @Override
+        public synchronized OutputStream getResponseBody() {
+            if (responseBody == null) {
+                responseBody = new CountingOutputStream(delegate.getResponseBody(), this);
+            }
+            return responseBody;
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                finish(status);
+            }
+        }
+
+        void finish(int finalStatus) {
+            if (finished.compareAndSet(false, true)) {
+                long in = requestBody != null ? requestBody.count : 0;
+                long out = responseBody != null ? responseBody.count : 0;
+                route.requestFinished(finalStatus, System.nanoTime() - startNanos, in, out);
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final MetricsExchange exchange;
+        volatile long count;
+
+        CountingOutputStream(OutputStream out, MetricsExchange exchange) {
+            super(out);
+            this.exchange = exchange;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                exchange.finish(exchange.status);
+            }
+        }
+    }
+}
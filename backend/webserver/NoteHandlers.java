@@ -2,9 +2,12 @@ package backend.webserver;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import backend.DataVersion;
+import backend.FrontendDataHandler;
 import backend.NoteManager;
 import backend.NotePersistence;
-import backend.JsonUtils;
+import backend.JsonReader;
+import backend.JsonWriter;
 import backend.objects.Note;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -39,30 +42,25 @@ public class NoteHandlers {
         }
 
         private void handleGetNotes(HttpExchange exchange) throws IOException {
-            List<Note> notes = noteManager.getAllNotes();
-            String jsonResponse = notesToJsonArray(notes);
+            //version read before the notes, see TasksHandler.handleGetTasks
+            String etag = "W/\"notes-" + DataVersion.BOOT_VERSION + "." + noteManager.getVersion() + "\"";
+            if (ETags.matches(exchange, etag)) {
+                ETags.sendNotModified(exchange, etag);
+                return;
+            }
 
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
-            exchange.sendResponseHeaders(200, jsonResponse.length());
+            List<Note> notes = noteManager.getAllNotes();
 
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+            ETags.setHeaders(exchange, etag);
+            try (JsonWriter json = JsonResponse.writer(exchange, 200)) {
+                FrontendDataHandler.writeNotes(json, notes);
+                json.finish();
             }
         }
 
         private void handlePostNote(HttpExchange exchange) throws IOException {
             try {
-                //read request body
-                InputStreamReader isr = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
-                BufferedReader br = new BufferedReader(isr);
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = br.readLine()) != null) {
-                    sb.append(line);
-                }
-                String requestBody = sb.toString();
-
-                String content = JsonUtils.extractJsonStringValue(requestBody, "content");
+                String content = JsonReader.readFlatObject(exchange.getRequestBody()).get("content");
                 if (content == null || content.trim().isEmpty()) {
                     sendBadRequest(exchange, "Note content is required");
                     return;
@@ -73,44 +71,16 @@ public class NoteHandlers {
                 NotePersistence.saveNotes(noteManager);
 
                 //return the created note
-                String jsonResponse = noteToJson(newNote);
-                exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(201, jsonResponse.length());
-
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                try (JsonWriter json = JsonResponse.writer(exchange, 201)) {
+                    FrontendDataHandler.writeNote(json, newNote);
+                    json.finish();
                 }
+            } catch (JsonReader.MalformedJsonException e) {
+                sendBadRequest(exchange, FrontendDataHandler.ERR_INVALID_JSON);
             } catch (Exception e) {
                 sendBadRequest(exchange, "Error processing request: " + e.getMessage());
             }
         }
-
-        private String notesToJsonArray(List<Note> notes) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("[");
-            for (int i = 0; i < notes.size(); i++) {
-                sb.append(noteToJson(notes.get(i)));
-                if (i < notes.size() - 1) {
-                    sb.append(",");
-                }
-            }
-            sb.append("]");
-            return sb.toString();
-        }
-
-        private String noteToJson(Note note) {
-            return String.format(
-                "{\"id\":\"%s\",\"content\":\"%s\",\"creationTime\":\"%s\"}",
-                note.getId(),
-                escapeJsonString(note.getContent()),
-                note.getCreationTime()
-            );
-        }
-
-        private String escapeJsonString(String str) {
-            if (str == null) return "";
-            return str.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
-        }
     }
 
     //handle /api/notes/{id} (PUT, DELETE specific note)
@@ -143,9 +113,7 @@ public class NoteHandlers {
 
         private void handleUpdateNote(HttpExchange exchange, String noteId) throws IOException {
             try {
-                String requestBody = readRequestBody(exchange);
-
-                String newContent = JsonUtils.extractJsonStringValue(requestBody, "content");
+                String newContent = JsonReader.readFlatObject(exchange.getRequestBody()).get("content");
                 if (newContent == null || newContent.trim().isEmpty()) {
                     sendBadRequest(exchange, "Note content is required");
                     return;
@@ -158,6 +126,8 @@ public class NoteHandlers {
                 } else {
                     sendNotFound(exchange, "Note not found");
                 }
+            } catch (JsonReader.MalformedJsonException e) {
+                sendBadRequest(exchange, FrontendDataHandler.ERR_INVALID_JSON);
             } catch (Exception e) {
                 sendBadRequest(exchange, "Error updating note: " + e.getMessage());
             }
@@ -172,53 +142,46 @@ public class NoteHandlers {
                 sendNotFound(exchange, "Note not found");
             }
         }
-
-        private String readRequestBody(HttpExchange exchange) throws IOException {
-            InputStreamReader isr = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
-            BufferedReader br = new BufferedReader(isr);
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-            }
-            return sb.toString();
-        }
     }
 
     // Utility methods for HTTP responses
     private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
         String response = "{\"error\":\"Method not allowed\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(405, response.length());
+        exchange.sendResponseHeaders(405, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 
     private static void sendBadRequest(HttpExchange exchange, String message) throws IOException {
         String response = "{\"error\":\"" + message + "\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(400, response.length());
+        exchange.sendResponseHeaders(400, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 
     private static void sendNotFound(HttpExchange exchange, String message) throws IOException {
         String response = "{\"error\":\"" + message + "\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(404, response.length());
+        exchange.sendResponseHeaders(404, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 
     private static void sendSuccess(HttpExchange exchange, String message) throws IOException {
         String response = "{\"message\":\"" + message + "\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(200, response.length());
+        exchange.sendResponseHeaders(200, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+//query string lookup shared by the handlers, so every route splits and decodes the same way
+final class QueryParams {
+    private QueryParams() {}
+
+    //the decoded value of the first name=value pair with that name, null when there is none.
+    //splits the raw query first so an encoded '&' or '=' inside a value stays part of it
+    static String get(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && decode(pair.substring(0, eq)).equals(name)) {
+                return decode(pair.substring(eq + 1));
+            }
+        }
+        return null;
+    }
+
+    //a malformed escape is left as it is, so the value fails its own validation with a 400
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+}
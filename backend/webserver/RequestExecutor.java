@@ -0,0 +1,136 @@
+package backend.webserver;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//executor handed to HttpServer so every HttpExchange runs off the dispatcher thread.
+//"virtual" runs each exchange on its own virtual thread (falls back to the platform pool
+//when the JVM has no virtual threads), "platform" uses a fixed pool, "dispatcher" keeps
+//the old single-thread behaviour. maxInFlight caps how many exchanges run at once; once
+//it is reached the dispatcher waits, so the server stops accepting work instead of piling it up.
+//an exchange counts until it is finished, including when its handler passes it on to another
+//thread (a Bulkhead): see handOff().
+public class RequestExecutor implements Executor {
+    //the running exchange's place in maxInFlight
+    private static final ThreadLocal<Permit> CURRENT = new ThreadLocal<>();
+
+    private static final class Permit {
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean handedOff;
+
+        Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private final ExecutorService delegate;
+    private final Semaphore inFlight;
+    private final String mode;
+
+    private RequestExecutor(ExecutorService delegate, int maxInFlight, String mode) {
+        this.delegate = delegate;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.mode = mode;
+    }
+
+    public static RequestExecutor create(String mode, int maxInFlight, int platformThreads) {
+        if (maxInFlight < 1) maxInFlight = 1;
+        if (platformThreads < 1) platformThreads = 1;
+
+        if ("dispatcher".equalsIgnoreCase(mode)) {
+            return new RequestExecutor(null, maxInFlight, "dispatcher");
+        }
+        if ("virtual".equalsIgnoreCase(mode)) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                return new RequestExecutor(virtual, maxInFlight, "virtual");
+            }
+            System.err.println("Virtual threads not available on this JVM, using platform thread pool");
+        }
+        return new RequestExecutor(newPlatformPool(platformThreads), maxInFlight, "platform");
+    }
+
+    //looked up reflectively so the code still compiles and runs on JDKs before 21
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "http-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (delegate == null) {
+            command.run();
+            return;
+        }
+
+        inFlight.acquireUninterruptibly();
+        try {
+            delegate.execute(() -> {
+                Permit permit = new Permit(inFlight);
+                CURRENT.set(permit);
+                try {
+                    command.run();
+                } finally {
+                    CURRENT.remove();
+                    if (!permit.handedOff) {
+                        permit.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    //for a handler that passes the exchange on to another thread: the exchange keeps its place in
+    //maxInFlight after the handler returns, until the returned callback runs (call it once that
+    //thread is done). a no-op outside an exchange this executor counts, e.g. in dispatcher mode
+    public static Runnable handOff() {
+        Permit permit = CURRENT.get();
+        if (permit == null) {
+            return () -> { };
+        }
+        permit.handedOff = true;
+        return permit::release;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void shutdown() {
+        if (delegate != null) {
+            delegate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package backend.webserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//per-route request counters and latency histograms. everything is lock-free (LongAdder /
+//atomic arrays) so recording a request never makes handler threads wait on each other.
+public class RequestMetrics {
+    //latency bucket upper bounds in microseconds: 100us, then x sqrt(2) each step up to ~2.5 minutes.
+    //the last bucket (index BUCKET_BOUNDS.length) catches everything slower
+    private static final long[] BUCKET_BOUNDS = buildBucketBounds();
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    private static long[] buildBucketBounds() {
+        long[] bounds = new long[42];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = Math.round(100 * Math.pow(2, i / 2.0));
+        }
+        return bounds;
+    }
+
+    public RouteMetrics route(String route) {
+        return routes.computeIfAbsent(route, RouteMetrics::new);
+    }
+
+    public List<RouteMetrics> getRoutes() {
+        return new ArrayList<>(new TreeMap<>(routes).values());
+    }
+
+    public static class RouteMetrics {
+        private final String route;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder latencySumMicros = new LongAdder();
+        private final AtomicLong latencyMaxMicros = new AtomicLong();
+        //index = status code, only 100-599 are used
+        private final AtomicLongArray statusCounts = new AtomicLongArray(600);
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+        RouteMetrics(String route) {
+            this.route = route;
+        }
+
+        public void requestStarted() {
+            inFlight.increment();
+        }
+
+        public void requestFinished(int status, long latencyNanos, long in, long out) {
+            inFlight.decrement();
+            requests.increment();
+            bytesIn.add(in);
+            bytesOut.add(out);
+            if (status >= 100 && status < 600) {
+                statusCounts.incrementAndGet(status);
+            }
+
+            long micros = Math.max(0, latencyNanos / 1000);
+            latencySumMicros.add(micros);
+            latencyMaxMicros.accumulateAndGet(micros, Math::max);
+            latencyBuckets.incrementAndGet(bucketFor(micros));
+        }
+
+        private static int bucketFor(long micros) {
+            int low = 0;
+            int high = BUCKET_BOUNDS.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (BUCKET_BOUNDS[mid] < micros) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        //estimated latency (microseconds) at the given quantile, interpolated inside the bucket
+        public long percentileMicros(double quantile) {
+            long[] counts = bucketCounts();
+            long total = 0;
+            for (long c : counts) total += c;
+            if (total == 0) return 0;
+
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) continue;
+                if (seen + counts[i] >= rank) {
+                    long lower = i == 0 ? 0 : BUCKET_BOUNDS[i - 1];
+                    long upper = i < BUCKET_BOUNDS.length ? BUCKET_BOUNDS[i] : latencyMaxMicros.get();
+                    double fraction = (double) (rank - seen) / counts[i];
+                    return Math.min(latencyMaxMicros.get(), lower + Math.round((upper - lower) * fraction));
+                }
+                seen += counts[i];
+            }
+            return latencyMaxMicros.get();
+        }
+
+        private long[] bucketCounts() {
+            long[] counts = new long[latencyBuckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = latencyBuckets.get(i);
+            }
+            return counts;
+        }
+
+        private Map<Integer, Long> statusCountMap() {
+            Map<Integer, Long> map = new TreeMap<>();
+            for (int status = 100; status < 600; status++) {
+                long count = statusCounts.get(status);
+                if (count > 0) map.put(status, count);
+            }
+            return map;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public long getRequestCount() {
+            return requests.sum();
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"route\":\"").append(route).append("\"");
+            sb.append(",\"requests\":").append(requests.sum());
+            sb.append(",\"inFlight\":").append(inFlight.sum());
+            sb.append(",\"bytesIn\":").append(bytesIn.sum());
+            sb.append(",\"bytesOut\":").append(bytesOut.sum());
+            sb.append(",\"status\":{");
+            boolean first = true;
+            for (Map.Entry<Integer, Long> e : statusCountMap().entrySet()) {
+                if (!first) sb.append(",");
+                sb.append("\"").append(e.getKey()).append("\":").append(e.getValue());
+                first = false;
+            }
+            sb.append("}");
+            sb.append(",\"latencyMs\":{");
+            sb.append("\"p50\":").append(millis(percentileMicros(0.50)));
+            sb.append(",\"p90\":").append(millis(percentileMicros(0.90)));
+            sb.append(",\"p99\":").append(millis(percentileMicros(0.99)));
+            sb.append(",\"max\":").append(millis(latencyMaxMicros.get()));
+            long count = requests.sum();
+            sb.append(",\"mean\":").append(millis(count == 0 ? 0 : latencySumMicros.sum() / count));
+            sb.append("}}");
+            return sb.toString();
+        }
+
+        public void appendPrometheus(StringBuilder sb) {
+            String label = "route=\"" + route + "\"";
+            for (Map.Entry<Integer, Long> e : statusCountMap().entrySet()) {
+                sb.append("http_requests_total{").append(label).append(",status=\"").append(e.getKey()).append("\"} ")
+                  .append(e.getValue()).append("\n");
+            }
+            sb.append("http_requests_in_flight{").append(label).append("} ").append(inFlight.sum()).append("\n");
+            sb.append("http_request_bytes_total{").append(label).append("} ").append(bytesIn.sum()).append("\n");
+            sb.append("http_response_bytes_total{").append(label).append("} ").append(bytesOut.sum()).append("\n");
+
+            long[] counts = bucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                cumulative += counts[i];
+                sb.append("http_request_duration_seconds_bucket{").append(label).append(",le=\"")
+                  .append(seconds(BUCKET_BOUNDS[i])).append("\"} ").append(cumulative).append("\n");
+            }
+            cumulative += counts[BUCKET_BOUNDS.length];
+            sb.append("http_request_duration_seconds_bucket{").append(label).append(",le=\"+Inf\"} ").append(cumulative).append("\n");
+            sb.append("http_request_duration_seconds_sum{").append(label).append("} ").append(seconds(latencySumMicros.sum())).append("\n");
+            sb.append("http_request_duration_seconds_count{").append(label).append("} ").append(cumulative).append("\n");
+
+            for (double q : new double[] { 0.5, 0.9, 0.99 }) {
+                sb.append("http_request_duration_quantile_seconds{").append(label).append(",quantile=\"").append(q).append("\"} ")
+                  .append(seconds(percentileMicros(q))).append("\n");
+            }
+            sb.append("http_request_duration_max_seconds{").append(label).append("} ").append(seconds(latencyMaxMicros.get())).append("\n");
+        }
+
+        private static String millis(long micros) {
+            return String.format(Locale.ROOT, "%.3f", micros / 1000.0);
+        }
+
+        private static String seconds(long micros) {
+            return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+        }
+    }
+
+    public String toJson(List<Bulkhead> bulkheads) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"routes\":[");
+        List<RouteMetrics> list = getRoutes();
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) sb.append(",");
+            sb.append(list.get(i).toJson());
+        }
+        sb.append("],\"bulkheads\":[");
+        for (int i = 0; i < bulkheads.size(); i++) {
+            if (i > 0) sb.append(",");
+            sb.append(bulkheads.get(i).toJson());
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    //Prometheus text exposition format (version 0.0.4)
+    public String toPrometheus(List<Bulkhead> bulkheads) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP http_requests_total Completed requests by route and status code.\n");
+        sb.append("# TYPE http_requests_total counter\n");
+        sb.append("# HELP http_requests_in_flight Requests currently being handled.\n");
+        sb.append("# TYPE http_requests_in_flight gauge\n");
+        sb.append("# HELP http_request_bytes_total Request body bytes received.\n");
+        sb.append("# TYPE http_request_bytes_total counter\n");
+        sb.append("# HELP http_response_bytes_total Response body bytes sent.\n");
+        sb.append("# TYPE http_response_bytes_total counter\n");
+        sb.append("# HELP http_request_duration_seconds Request latency.\n");
+        sb.append("# TYPE http_request_duration_seconds histogram\n");
+        sb.append("# HELP http_request_duration_quantile_seconds Estimated request latency quantiles.\n");
+        sb.append("# TYPE http_request_duration_quantile_seconds gauge\n");
+        sb.append("# HELP http_request_duration_max_seconds Slowest request seen.\n");
+        sb.append("# TYPE http_request_duration_max_seconds gauge\n");
+        for (RouteMetrics route : getRoutes()) {
+            route.appendPrometheus(sb);
+        }
+
+        sb.append("# HELP bulkhead_queue_length Requests waiting in the bulkhead queue.\n");
+        sb.append("# TYPE bulkhead_queue_length gauge\n");
+        sb.append("# HELP bulkhead_active Requests running in the bulkhead.\n");
+        sb.append("# TYPE bulkhead_active gauge\n");
+        sb.append("# HELP bulkhead_rejected_total Requests rejected because the bulkhead was full.\n");
+        sb.append("# TYPE bulkhead_rejected_total counter\n");
+        for (Bulkhead bulkhead : bulkheads) {
+            String label = "{bulkhead=\"" + bulkhead.getName() + "\"} ";
+            sb.append("bulkhead_queue_length").append(label).append(bulkhead.getQueueLength()).append("\n");
+            sb.append("bulkhead_active").append(label).append(bulkhead.getActiveCount()).append("\n");
+            sb.append("bulkhead_rejected_total").append(label).append(bulkhead.getRejectedCount()).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ServerHandlers {
+
+    //handle /api/bulkheads (GET queue length and rejection counts per bulkhead)
+    public static class BulkheadStatsHandler implements HttpHandler {
+        private final List<Bulkhead> bulkheads;
+
+        public BulkheadStatsHandler(List<Bulkhead> bulkheads) {
+            this.bulkheads = bulkheads;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("[");
+            for (int i = 0; i < bulkheads.size(); i++) {
+                if (i > 0) sb.append(",");
+                sb.append(bulkheads.get(i).toJson());
+            }
+            sb.append("]");
+
+            byte[] response = sb.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        }
+    }
+
+    //handle /api/metrics (GET per-route request metrics as JSON, or Prometheus text with
+    //?format=prometheus or an Accept header asking for text/plain)
+    public static class MetricsHandler implements HttpHandler {
+        private final RequestMetrics metrics;
+        private final List<Bulkhead> bulkheads;
+
+        public MetricsHandler(RequestMetrics metrics, List<Bulkhead> bulkheads) {
+            this.metrics = metrics;
+            this.bulkheads = bulkheads;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            boolean prometheus = "prometheus".equals(QueryParams.get(exchange, "format"))
+                || (accept != null && accept.contains("text/plain") && !accept.contains("application/json"));
+
+            byte[] response;
+            if (prometheus) {
+                response = metrics.toPrometheus(bulkheads).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            } else {
+                response = metrics.toJson(bulkheads).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        }
+    }
+
+    private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        String response = "{\"error\":\"Method not allowed\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(405, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//keeps Server-Sent Events connections open and pushes events to all of them. writes happen on
+//one background thread so whoever publishes (timer thread, request handler) never blocks on a
+//slow client; clients whose connection fails are dropped.
+public class SseBroadcaster {
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final int RETRY_MILLIS = 3000;
+
+    private final String name;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService sender;
+
+    public SseBroadcaster(String name) {
+        this.name = name;
+        this.sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        //comment lines keep idle connections from being cut by proxies and reveal dead clients
+        sender.scheduleAtFixedRate(() -> sendToAll(": ping\n\n"), HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    //switches the exchange to an event stream and keeps it open. initialEvent/initialData, when
+    //given, are sent first so the client starts from the current state
+    public void register(HttpExchange exchange, String initialEvent, String initialData) throws IOException {
+        register(exchange, initialEvent != null ? formatEvent(null, initialEvent, initialData) : "");
+    }
+
+    //same, with already formatted events (see formatEvent) to send first
+    public void register(HttpExchange exchange, String initialMessages) throws IOException {
+        open(exchange);
+        join(exchange, initialMessages);
+    }
+
+    //sends the event-stream response headers; join() then adds the connection to the broadcast
+    public void open(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+        exchange.sendResponseHeaders(200, 0);
+    }
+
+    //the client joins on the sender thread, so it receives every broadcast made after this call
+    //and none made before it
+    public void join(HttpExchange exchange, String initialMessages) {
+        Client client = new Client(exchange);
+        String first = "retry: " + RETRY_MILLIS + "\n\n" + initialMessages;
+        sender.execute(() -> {
+            if (client.send(first)) {
+                clients.add(client);
+            }
+        });
+    }
+
+    public void broadcast(String event, String data) {
+        broadcast(null, event, data);
+    }
+
+    public void broadcast(String id, String event, String data) {
+        String message = formatEvent(id, event, data);
+        sender.execute(() -> sendToAll(message));
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public void shutdown() {
+        sender.shutdownNow();
+        for (Client client : clients) {
+            client.close();
+        }
+        clients.clear();
+    }
+
+    private void sendToAll(String message) {
+        for (Client client : clients) {
+            if (!client.send(message)) {
+                clients.remove(client);
+            }
+        }
+    }
+
+    //one event in the text/event-stream format; id may be null
+    public static String formatEvent(String id, String event, String data) {
+        StringBuilder sb = new StringBuilder();
+        if (id != null) {
+            sb.append("id: ").append(id).append("\n");
+        }
+        sb.append("event: ").append(event).append("\n");
+        for (String line : data.split("\n", -1)) {
+            sb.append("data: ").append(line).append("\n");
+        }
+        sb.append("\n");
+        return sb.toString();
+    }
+
+    private class Client {
+        private final HttpExchange exchange;
+        private final OutputStream out;
+
+        Client(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+        }
+
+        synchronized boolean send(String message) {
+            try {
+                out.write(message.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                close();
+                return false;
+            }
+        }
+
+        void close() {
+            try {
+                exchange.close();
+            } catch (RuntimeException e) {
+                System.err.println("Error closing " + name + " event stream: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -2,15 +2,77 @@ package backend.webserver;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 public class StaticFileHandler implements HttpHandler {
     private static final String FRONTEND_PATH = "frontend/";
+    //files above this size (and all audio) are streamed from disk instead of being held on the heap
+    private static final long MAX_CACHED_FILE_BYTES = 256 * 1024;
+
+    private final Path frontendRoot = Paths.get(FRONTEND_PATH).toAbsolutePath().normalize();
+    //file bytes + validators, keyed by resolved file path. entries are dropped by the watcher when files change
+    private final Map<Path, CachedAsset> cache = new ConcurrentHashMap<>();
+    private volatile boolean watcherAvailable = true;
+
+    private static class CachedAsset {
+        final Path path;
+        final long length;
+        //null for streamed files, only their metadata is cached
+        final byte[] bytes;
+        final String etag;
+        final long lastModifiedSeconds;
+        final String lastModifiedHeader;
+        //the file's modification time and size as seen before reading it, to tell if it changed since
+        final FileTime modifiedTime;
+        final long fileSize;
+        //gzip variant, compressed once on first request for compressible types (null until then)
+        volatile byte[] gzipBytes;
+
+        CachedAsset(Path path, long length, byte[] bytes, String etag, BasicFileAttributes attributes) {
+            this.path = path;
+            this.length = length;
+            this.bytes = bytes;
+            this.etag = etag;
+            this.modifiedTime = attributes.lastModifiedTime();
+            this.fileSize = attributes.size();
+            this.lastModifiedSeconds = modifiedTime.toMillis() / 1000;
+            this.lastModifiedHeader = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochSecond(lastModifiedSeconds), ZoneOffset.UTC));
+        }
+    }
+
+    public StaticFileHandler() {
+        startWatcher();
+    }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
@@ -19,32 +81,354 @@ public class StaticFileHandler implements HttpHandler {
             requestPath = "/index.html";
         }
 
-        //build path relative to frontend directory
-        Path filePath = Paths.get(FRONTEND_PATH, requestPath.substring(1));
-        File file = filePath.toFile();
+        //build path relative to frontend directory (and refuse anything that escapes it)
+        Path filePath = frontendRoot.resolve(requestPath.substring(1)).normalize();
+        if (!filePath.startsWith(frontendRoot)) {
+            sendNotFound(exchange, requestPath);
+            return;
+        }
+
+        CachedAsset asset = getAsset(filePath);
+        if (asset == null) {
+            sendNotFound(exchange, requestPath);
+            return;
+        }
 
-        // System.out.println("File path: " + filePath); // Debug logging disabled
+        //set appropriate content type and caching headers
+        exchange.getResponseHeaders().set("Content-Type", getContentType(requestPath));
+        exchange.getResponseHeaders().set("Cache-Control", getCacheControl(requestPath));
+        exchange.getResponseHeaders().set("Last-Modified", asset.lastModifiedHeader);
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
 
-        if (file.exists() && file.isFile()) {
-            //set appropriate content type
-            String contentType = getContentType(requestPath);
-            exchange.getResponseHeaders().set("Content-Type", contentType);
+        //pick the precompressed variant when the client takes gzip and it actually saves bytes.
+        //range requests always get the identity encoding so offsets refer to the real file
+        boolean compressible = asset.bytes != null && isCompressible(requestPath);
+        String rangeHeader = exchange.getRequestHeaders().getFirst("Range");
+        byte[] gzipped = null;
+        if (compressible) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            if (rangeHeader == null && GzipFilter.acceptsGzip(exchange)) {
+                gzipped = getGzipBytes(asset);
+                if (gzipped.length >= asset.bytes.length) {
+                    gzipped = null;
+                }
+            }
+        }
+        exchange.getResponseHeaders().set("ETag", gzipped != null ? gzipEtag(asset.etag) : asset.etag);
 
-            //read and send file
-            byte[] fileBytes = Files.readAllBytes(filePath);
-            exchange.sendResponseHeaders(200, fileBytes.length);
+        if (isNotModified(exchange, asset)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        if (gzipped != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, gzipped.length);
             try (OutputStream os = exchange.getResponseBody()) {
-                os.write(fileBytes);
+                os.write(gzipped);
+            }
+            return;
+        }
+
+        long start = 0;
+        long end = asset.length - 1;
+        int status = 200;
+        if (rangeHeader != null && ifRangeMatches(exchange, asset)) {
+            long[] range = parseRange(rangeHeader, asset.length);
+            if (range == UNSATISFIABLE) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + asset.length);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            if (range != null) {
+                start = range[0];
+                end = range[1];
+                status = 206;
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + asset.length);
             }
+        }
+
+        long count = end - start + 1;
+        exchange.sendResponseHeaders(status, count > 0 ? count : -1);
+        if (count <= 0) {
+            exchange.close();
+            return;
+        }
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (asset.bytes != null) {
+                os.write(asset.bytes, (int) start, (int) count);
+            } else {
+                transferFile(asset.path, start, count, os);
+            }
+        }
+    }
+
+    //streams a slice of the file with FileChannel.transferTo so the body never sits on the heap
+    private void transferFile(Path path, long start, long count, OutputStream os) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(os);
+            long position = start;
+            long remaining = count;
+            //the file shrank after Content-Length went out: abort the exchange rather than end
+            //the body short and leave the client waiting for the rest
+            if (channel.size() < start + count) {
+                throw new IOException("file shrank while sending " + path);
+            }
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    throw new IOException("file shrank while sending " + path);
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    static final long[] UNSATISFIABLE = new long[0];
+
+    //parses a single "bytes=" range into {start, end} (inclusive). returns null when the
+    //header should be ignored (other units, several ranges, bad syntax) and UNSATISFIABLE
+    //when it is valid but lies outside the file
+    static long[] parseRange(String header, long length) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                //suffix range: the last N bytes
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return UNSATISFIABLE;
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = length - 1;
+                if (!last.isEmpty()) {
+                    long lastByte = Long.parseLong(last);
+                    if (lastByte < start) return null; //syntactically invalid, ignore
+                    end = Math.min(lastByte, length - 1);
+                }
+            }
+            if (start >= length || start > end) {
+                return UNSATISFIABLE;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //If-Range: only honour the Range header if the client's copy is still current
+    private static boolean ifRangeMatches(HttpExchange exchange, CachedAsset asset) {
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"")) {
+            return value.equals(asset.etag);
+        }
+        return value.equals(asset.lastModifiedHeader);
+    }
+
+    private byte[] getGzipBytes(CachedAsset asset) throws IOException {
+        byte[] gzipped = asset.gzipBytes;
+        if (gzipped == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(asset.bytes.length / 3 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(asset.bytes);
+            }
+            gzipped = out.toByteArray();
+            asset.gzipBytes = gzipped;
+        }
+        return gzipped;
+    }
+
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    //returns the cached asset, reading it from disk on first use. large files only get
+    //their metadata cached and an ETag built from size + modification time
+    private CachedAsset getAsset(Path filePath) throws IOException {
+        CachedAsset asset = cache.get(filePath);
+        if (asset != null) {
+            return asset;
+        }
+        BasicFileAttributes attributes = readAttributes(filePath);
+        if (attributes == null || !attributes.isRegularFile()) {
+            return null;
+        }
+
+        long length = attributes.size();
+        if (length > MAX_CACHED_FILE_BYTES || filePath.toString().endsWith(".mp3")) {
+            long lastModified = attributes.lastModifiedTime().toMillis() / 1000;
+            String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+            asset = new CachedAsset(filePath, length, null, etag, attributes);
         } else {
-            String response = "File not found: " + requestPath;
-            exchange.sendResponseHeaders(404, response.length());
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes());
+            byte[] bytes = Files.readAllBytes(filePath);
+            asset = new CachedAsset(filePath, bytes.length, bytes, computeEtag(bytes), attributes);
+        }
+        if (watcherAvailable) {
+            cache.put(filePath, asset);
+            //the watcher may have dropped this path between our read and the put, leaving what we
+            //read in the cache for good. if the file changed since we looked, take it back out
+            if (!isUnchanged(asset)) {
+                cache.remove(filePath, asset);
+            }
+        }
+        return asset;
+    }
+
+    //true while the file still has the modification time and size the asset was read with
+    private static boolean isUnchanged(CachedAsset asset) {
+        BasicFileAttributes attributes = readAttributes(asset.path);
+        return attributes != null && attributes.lastModifiedTime().equals(asset.modifiedTime)
+            && attributes.size() == asset.fileSize;
+    }
+
+    //null when the file is missing or can't be read
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean isNotModified(HttpExchange exchange, CachedAsset asset) {
+        //If-None-Match takes precedence over If-Modified-Since
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.startsWith("W/")) t = t.substring(2);
+                if (t.equals("*") || t.equals(asset.etag) || t.equals(gzipEtag(asset.etag))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+                return asset.lastModifiedSeconds <= since;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static String computeEtag(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder sb = new StringBuilder("\"");
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.append("\"").toString();
+        } catch (NoSuchAlgorithmException e) {
+            //every JVM ships SHA-256, but fall back to something still content based
+            return "\"" + Integer.toHexString(java.util.Arrays.hashCode(bytes)) + "-" + bytes.length + "\"";
+        }
+    }
+
+    //watches frontend/ (and its subfolders) and drops cache entries for files that change
+    private void startWatcher() {
+        if (!Files.isDirectory(frontendRoot)) {
+            return;
+        }
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            registerAll(watchService, frontendRoot);
+
+            Thread watcher = new Thread(() -> watchLoop(watchService), "static-file-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            //without a watcher we can't tell when files change, so don't cache at all
+            System.err.println("Could not watch " + FRONTEND_PATH + " for changes, static file cache disabled: " + e.getMessage());
+            watcherAvailable = false;
+        }
+    }
+
+    private void registerAll(WatchService watchService, Path root) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
             }
         }
     }
 
+    private void watchLoop(WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        cache.clear();
+                        continue;
+                    }
+                    Path changed = dir.resolve((Path) event.context()).normalize();
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                        try {
+                            registerAll(watchService, changed);
+                        } catch (IOException e) {
+                            System.err.println("Could not watch new folder " + changed + ": " + e.getMessage());
+                        }
+                    }
+                    //a changed folder (rename/delete) may affect everything under it
+                    cache.keySet().removeIf(p -> p.startsWith(changed));
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            watcherAvailable = false;
+            cache.clear();
+        }
+    }
+
+    private void sendNotFound(HttpExchange exchange, String requestPath) throws IOException {
+        byte[] response = ("File not found: " + requestPath).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(404, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    //html is revalidated on every load so new deployments show up straight away,
+    //the rest can be reused for a while and then revalidated with the ETag
+    private String getCacheControl(String path) {
+        if (path.endsWith(".html")) return "no-cache";
+        if (path.endsWith(".mp3")) return "public, max-age=86400";
+        return "public, max-age=300";
+    }
+
+    private boolean isCompressible(String path) {
+        return path.endsWith(".html") || path.endsWith(".css") || path.endsWith(".js");
+    }
+
     private String getContentType(String path) {
         if (path.endsWith(".html")) return "text/html";
         if (path.endsWith(".css")) return "text/css";
@@ -52,4 +436,4 @@ public class StaticFileHandler implements HttpHandler {
         if (path.endsWith(".mp3")) return "audio/mpeg";
         return "text/plain";
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package backend.webserver;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import backend.JsonReader;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -36,24 +37,21 @@ public class StatsHandlers {
             }
 
             try {
-                String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-
-                // Parse JSON manually (simple implementation)
-                String date = extractJsonValue(requestBody, "date");
-                int pomodoros = Integer.parseInt(extractJsonValue(requestBody, "pomodoros") != null ?
-                    extractJsonValue(requestBody, "pomodoros") : "0");
-                int rating = Integer.parseInt(extractJsonValue(requestBody, "rating") != null ?
-                    extractJsonValue(requestBody, "rating") : "0");
-                String notes = extractJsonValue(requestBody, "notes");
-                int focusTime = Integer.parseInt(extractJsonValue(requestBody, "focusTime") != null ?
-                    extractJsonValue(requestBody, "focusTime") : "0");
+                Map<String, String> fields = JsonReader.readFlatObject(exchange.getRequestBody());
+
+                String date = fields.get("date");
+                int pomodoros = Integer.parseInt(fields.getOrDefault("pomodoros", "0"));
+                int rating = Integer.parseInt(fields.getOrDefault("rating", "0"));
+                String notes = fields.get("notes");
+                int focusTime = Integer.parseInt(fields.getOrDefault("focusTime", "0"));
 
                 if (date == null) {
                     String errorResponse = "{\"error\":\"Missing required field: date\"}";
+                    byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                     exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.sendResponseHeaders(400, errorResponse.length());
+                    exchange.sendResponseHeaders(400, errorResponseBytes.length);
                     try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                        os.write(errorResponseBytes);
                     }
                     return;
                 }
@@ -64,19 +62,29 @@ public class StatsHandlers {
                     .add(new SessionRating(date, pomodoros, rating, notes != null ? notes : "", focusTime));
 
                 String jsonResponse = "{\"status\":\"Session rating saved\"}";
+                byte[] jsonResponseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, jsonResponse.length());
+                exchange.sendResponseHeaders(200, jsonResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(jsonResponseBytes);
                 }
 
+            } catch (JsonReader.MalformedJsonException | NumberFormatException e) {
+                String errorResponse = "{\"error\":\"Invalid JSON format\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(400, errorResponseBytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(errorResponseBytes);
+                }
             } catch (Exception e) {
                 System.err.println("Error saving session rating: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(500, errorResponse.length());
+                exchange.sendResponseHeaders(500, errorResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(errorResponseBytes);
                 }
             }
         }
@@ -139,47 +147,16 @@ public class StatsHandlers {
             } catch (Exception e) {
                 System.err.println("Error getting session stats: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(500, errorResponse.length());
+                exchange.sendResponseHeaders(500, errorResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(errorResponseBytes);
                 }
             }
         }
     }
 
-    private static String extractJsonValue(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*";
-        int keyIndex = json.indexOf("\"" + key + "\":");
-        if (keyIndex == -1) return null;
-
-        int valueStart = json.indexOf(":", keyIndex) + 1;
-        if (valueStart == 0) return null;
-
-        // Skip whitespace
-        while (valueStart < json.length() && Character.isWhitespace(json.charAt(valueStart))) {
-            valueStart++;
-        }
-
-        if (valueStart >= json.length()) return null;
-
-        char firstChar = json.charAt(valueStart);
-
-        if (firstChar == '"') {
-            // String value
-            int endQuote = json.indexOf('"', valueStart + 1);
-            if (endQuote == -1) return null;
-            return json.substring(valueStart + 1, endQuote);
-        } else {
-            // Number or other value - find next comma or closing brace
-            int endIndex = valueStart;
-            while (endIndex < json.length() && json.charAt(endIndex) != ',' && json.charAt(endIndex) != '}') {
-                endIndex++;
-            }
-            return json.substring(valueStart, endIndex).trim();
-        }
-    }
-
     private static String escapeJsonString(String str) {
         if (str == null) return "";
         return str.replace("\\", "\\\\")
@@ -191,10 +168,11 @@ public class StatsHandlers {
 
     private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
         String response = "{\"error\":\"Method not allowed\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(405, response.length());
+        exchange.sendResponseHeaders(405, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package backend.webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import backend.DataVersion;
+import backend.FrontendDataHandler;
+import backend.JsonWriter;
+import backend.NoteManager;
+import backend.ScheduleManager;
+import backend.SyncDelta;
+import backend.objects.Note;
+import backend.objects.Task;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class SyncHandlers {
+
+    //handle /api/sync?since=<version> (GET tasks and notes changed after that version plus the ids
+    //deleted since). the response's "version" is the value to pass as since next time. with no
+    //since, or one the server can no longer answer, "reset" is true and the lists hold everything.
+    public static class SyncHandler implements HttpHandler {
+        private final ScheduleManager scheduleManager;
+        private final NoteManager noteManager;
+
+        public SyncHandler(ScheduleManager scheduleManager, NoteManager noteManager) {
+            this.scheduleManager = scheduleManager;
+            this.noteManager = noteManager;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            long since = 0;
+            String sinceParam = QueryParams.get(exchange, "since");
+            if (sinceParam != null) {
+                try {
+                    since = Long.parseLong(sinceParam);
+                } catch (NumberFormatException e) {
+                    sendError(exchange, 400, "since must be a version number");
+                    return;
+                }
+            }
+
+            try {
+                //read the clock first: everything up to it is already visible in the managers, and
+                //anything newer that slips into the lists is just sent again next time
+                long version = DataVersion.current();
+                SyncDelta<Task> tasks = scheduleManager.getChangesSince(since);
+                SyncDelta<Note> notes = noteManager.getChangesSince(since);
+                boolean reset = tasks.isReset() || notes.isReset();
+                if (reset && !(tasks.isReset() && notes.isReset())) {
+                    //both lists must be complete when the client is told to replace its copy
+                    tasks = scheduleManager.getChangesSince(0);
+                    notes = noteManager.getChangesSince(0);
+                }
+
+                try (JsonWriter json = JsonResponse.writer(exchange, 200)) {
+                    json.beginObject();
+                    json.name("version").value(version);
+                    json.name("reset").value(reset);
+                    json.name("tasks");
+                    FrontendDataHandler.writeTasks(json, tasks.getChanged());
+                    json.name("deletedTasks");
+                    writeIds(json, tasks.getDeletedIds());
+                    json.name("notes");
+                    FrontendDataHandler.writeNotes(json, notes.getChanged());
+                    json.name("deletedNotes");
+                    writeIds(json, notes.getDeletedIds());
+                    json.endObject();
+                    json.finish();
+                }
+            } catch (Exception e) {
+                System.err.println("Error building sync response: " + e.getMessage());
+                sendError(exchange, 500, "Internal server error");
+            }
+        }
+
+        private static void writeIds(JsonWriter json, List<String> ids) throws IOException {
+            json.beginArray();
+            for (String id : ids) {
+                json.value(id);
+            }
+            json.endArray();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        String response = "{\"error\":\"" + message + "\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+}
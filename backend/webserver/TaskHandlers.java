@@ -2,17 +2,31 @@ package backend.webserver;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import backend.AutoScheduler;
+import backend.DataVersion;
+import backend.FreeSlot;
 import backend.ScheduleManager;
+import backend.ServerConfig;
 import backend.TaskPersistence;
 import backend.FrontendDataHandler;
+import backend.JsonReader;
+import backend.JsonWriter;
 import backend.objects.Task;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TaskHandlers {
 
-    //handle /api/tasks (GET all tasks, POST new task)
+    //handle /api/tasks (GET tasks, POST new task). GET returns today's tasks, or with any of
+    //?from=&to= (yyyy-MM-dd, inclusive, either may be left out), ?status= and ?priority= the
+    //matching tasks ordered by date and start time
     public static class TasksHandler implements HttpHandler {
         private final ScheduleManager scheduleManager;
 
@@ -34,32 +48,89 @@ public class TaskHandlers {
         }
 
         private void handleGetTasks(HttpExchange exchange) throws IOException {
-            List<Task> tasks = scheduleManager.getTodayTasks();
-            String jsonResponse = tasksToJsonArray(tasks);
+            //only a filter makes it a query; other parameters (a cache buster like ?_=123) still
+            //get today's tasks
+            if (QueryParams.get(exchange, "from") != null || QueryParams.get(exchange, "to") != null
+                    || QueryParams.get(exchange, "status") != null || QueryParams.get(exchange, "priority") != null) {
+                handleQueryTasks(exchange);
+                return;
+            }
+
+            //the etag is the date's version, read before the tasks so it never claims newer data
+            //than what is sent. a match is answered without touching the task list
+            LocalDate today = LocalDate.now();
+            String etag = "W/\"tasks-" + today + "-" + DataVersion.BOOT_VERSION + "." + scheduleManager.getDateVersion(today) + "\"";
+            if (ETags.matches(exchange, etag)) {
+                ETags.sendNotModified(exchange, etag);
+                return;
+            }
 
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
-            exchange.sendResponseHeaders(200, jsonResponse.length());
+            List<Task> tasks = scheduleManager.getTasksForDate(today);
 
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+            ETags.setHeaders(exchange, etag);
+            try (JsonWriter json = JsonResponse.writer(exchange, 200)) {
+                FrontendDataHandler.writeTasks(json, tasks);
+                json.finish();
             }
         }
 
-        private void handlePostTask(HttpExchange exchange) throws IOException {
+        private void handleQueryTasks(HttpExchange exchange) throws IOException {
+            LocalDate from;
+            LocalDate to;
             try {
-                //read request body
-                InputStreamReader isr = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
-                BufferedReader br = new BufferedReader(isr);
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = br.readLine()) != null) {
-                    sb.append(line);
+                from = parseDate(QueryParams.get(exchange, "from"));
+                to = parseDate(QueryParams.get(exchange, "to"));
+            } catch (DateTimeParseException e) {
+                sendBadRequest(exchange, "{\"error\":\"Invalid date. Use YYYY-MM-DD\"}");
+                return;
+            }
+            if (from != null && to != null && from.isAfter(to)) {
+                sendBadRequest(exchange, "{\"error\":\"'from' must not be after 'to'\"}");
+                return;
+            }
+
+            String statusParam = QueryParams.get(exchange, "status");
+            Task.TaskStatus status = null;
+            if (statusParam != null && !statusParam.isEmpty()) {
+                try {
+                    status = Task.TaskStatus.valueOf(statusParam.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    sendBadRequest(exchange, "{\"error\":\"Invalid status value\"}");
+                    return;
+                }
+            }
+            String priorityParam = QueryParams.get(exchange, "priority");
+            Task.Priority priority = null;
+            if (priorityParam != null && !priorityParam.isEmpty()) {
+                priority = Task.Priority.of(priorityParam.toUpperCase());
+                if (priority == null) {
+                    sendBadRequest(exchange, "{\"error\":\"Invalid priority value. Must be HIGH, MEDIUM, or LOW\"}");
+                    return;
                 }
-                String requestBody = sb.toString();
-                // System.out.println("Received request body: " + requestBody);
+            }
+
+            //any change on a date in the range moves the range's version, same idea as the
+            //single day etag above
+            String etag = "W/\"tasks-" + from + "-" + to + "-" + status + "-" + priority + "-"
+                + DataVersion.BOOT_VERSION + "." + scheduleManager.getDateRangeVersion(from, to) + "\"";
+            if (ETags.matches(exchange, etag)) {
+                ETags.sendNotModified(exchange, etag);
+                return;
+            }
+
+            List<Task> tasks = scheduleManager.getTasks(from, to, status, priority);
+
+            ETags.setHeaders(exchange, etag);
+            try (JsonWriter json = JsonResponse.writer(exchange, 200)) {
+                FrontendDataHandler.writeTasks(json, tasks);
+                json.finish();
+            }
+        }
 
-                //parse and validate JSON using FrontendDataHandler
-                FrontendDataHandler.TaskCreateRequest request = FrontendDataHandler.parseTaskCreateRequest(requestBody);
+        private void handlePostTask(HttpExchange exchange) throws IOException {
+            try {
+                //parse and validate JSON using FrontendDataHandler, straight off the request body
+                FrontendDataHandler.TaskCreateRequest request = FrontendDataHandler.parseTaskCreateRequest(exchange.getRequestBody());
                 if (request == null) {
                     // System.out.println("Failed to parse JSON request");
                     sendBadRequest(exchange, FrontendDataHandler.ERR_INVALID_JSON);
@@ -89,12 +160,9 @@ public class TaskHandlers {
                     //save to persistence
                     TaskPersistence.saveTasks(scheduleManager);
 
-                    String jsonResponse = FrontendDataHandler.taskToJson(addedTask);
-                    exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.sendResponseHeaders(201, jsonResponse.length());
-
-                    try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                    try (JsonWriter json = JsonResponse.writer(exchange, 201)) {
+                        FrontendDataHandler.writeTask(json, addedTask);
+                        json.finish();
                     }
                 } else {
                     sendConflict(exchange, "Task conflicts with existing schedule");
@@ -110,71 +178,6 @@ public class TaskHandlers {
                 }
             }
         }
-
-        //helper method to read request body
-        public static String readRequestBody(HttpExchange exchange) throws IOException {
-            InputStreamReader isr = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
-            BufferedReader br = new BufferedReader(isr);
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-            }
-            return sb.toString();
-        }
-
-
-
-
-        //extract string value from JSON field
-        public static String extractJsonString(String json, String fieldName) {
-            String pattern = "\"" + fieldName + "\":\\s*\"([^\"]*)\"";
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(json);
-            if (m.find()) {
-                return m.group(1);
-            }
-            return null;
-        }
-
-        //convert Task to JSON
-        private String taskToJson(Task task) {
-            return String.format(
-                "{\"id\":\"%s\",\"description\":\"%s\",\"startTime\":\"%s\",\"endTime\":\"%s\",\"date\":\"%s\",\"status\":\"%s\",\"priority\":\"%s\",\"duration\":%d}",
-                task.getId(),
-                escapeJsonString(task.getDescription()),
-                task.getStartTime(),
-                task.getEndTime(),
-                task.getDate(),
-                task.getStatus(),
-                task.getPriority(),
-                task.getDurationMinutes()
-            );
-        }
-
-        //convert list of tasks to JSON array
-        private String tasksToJsonArray(List<Task> tasks) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("[");
-            for (int i = 0; i < tasks.size(); i++) {
-                sb.append(taskToJson(tasks.get(i)));
-                if (i < tasks.size() - 1) {
-                    sb.append(",");
-                }
-            }
-            sb.append("]");
-            return sb.toString();
-        }
-
-        //escape special characters for JSON
-        public static String escapeJsonString(String str) {
-            if (str == null) return "";
-            return str.replace("\\", "\\\\")
-                      .replace("\"", "\\\"")
-                      .replace("\n", "\\n")
-                      .replace("\r", "\\r")
-                      .replace("\t", "\\t");
-        }
     }
 
     //handle /api/tasks/{id} (GET, PUT, DELETE specific task)
@@ -209,24 +212,13 @@ public class TaskHandlers {
         }
 
         private void handleGetTask(HttpExchange exchange, String taskId) throws IOException {
-            //find task by ID
-            List<Task> todayTasks = scheduleManager.getTodayTasks();
-            Task task = null;
-            for (Task t : todayTasks) {
-                if (t.getId().equals(taskId)) {
-                    task = t;
-                    break;
-                }
-            }
+            //find task by ID, on any date
+            Task task = scheduleManager.getTask(taskId);
 
             if (task != null) {
-                // Use TaskHandler's own taskToJson method (need to add it)
-                String jsonResponse = taskToJson(task);
-                exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, jsonResponse.length());
-
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                try (JsonWriter json = JsonResponse.writer(exchange, 200)) {
+                    FrontendDataHandler.writeTask(json, task);
+                    json.finish();
                 }
             } else {
                 sendNotFound(exchange, "{\"error\":\"Task not found\"}");
@@ -235,11 +227,17 @@ public class TaskHandlers {
 
         private void handleUpdateTask(HttpExchange exchange, String taskId) throws IOException {
             try {
-                String requestBody = readRequestBody(exchange);
+                Map<String, String> fields;
+                try {
+                    fields = JsonReader.readFlatObject(exchange.getRequestBody());
+                } catch (JsonReader.MalformedJsonException e) {
+                    sendBadRequest(exchange, "{\"error\":\"" + FrontendDataHandler.ERR_INVALID_JSON + "\"}");
+                    return;
+                }
 
-                String statusStr = extractJsonString(requestBody, "status");
-                String description = extractJsonString(requestBody, "description");
-                String priority = extractJsonString(requestBody, "priority");
+                String statusStr = fields.get("status");
+                String description = fields.get("description");
+                String priority = fields.get("priority");
 
                 if (statusStr == null && description == null && priority == null) {
                     sendBadRequest(exchange, "{\"error\":\"At least one field (status, description, or priority) must be provided\"}");
@@ -296,93 +294,295 @@ public class TaskHandlers {
                 sendNotFound(exchange, "{\"error\":\"Task not found\"}");
             }
         }
+    }
+
+    //handle /api/tasks/free-slots?duration=45 (GET). optional: date, or from and to (yyyy-MM-dd,
+    //default today), start and end of the daily window (HH:mm, default the whole day) and limit.
+    //answers with the free gaps at least `duration` minutes long, earliest first
+    public static class FreeSlotsHandler implements HttpHandler {
+        private static final int MAX_DAYS = 366;
+        private static final int DEFAULT_LIMIT = 50;
+        private static final int MAX_LIMIT = 1000;
+
+        private final ScheduleManager scheduleManager;
+
+        public FreeSlotsHandler(ScheduleManager scheduleManager) {
+            this.scheduleManager = scheduleManager;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
 
-        //helper methods for TaskHandler
+            LocalDate from;
+            LocalDate to;
+            LocalTime windowStart;
+            LocalTime windowEnd;
+            try {
+                LocalDate date = parseDate(QueryParams.get(exchange, "date"));
+                from = date != null ? date : parseDate(QueryParams.get(exchange, "from"));
+                to = date != null ? date : parseDate(QueryParams.get(exchange, "to"));
+                windowStart = parseTime(QueryParams.get(exchange, "start"), LocalTime.MIN);
+                windowEnd = parseTime(QueryParams.get(exchange, "end"), LocalTime.of(23, 59));
+            } catch (DateTimeParseException e) {
+                sendBadRequest(exchange, "{\"error\":\"Invalid date or time. Use YYYY-MM-DD and HH:MM\"}");
+                return;
+            }
+            if (from == null) {
+                from = to != null ? to : LocalDate.now();
+            }
+            if (to == null) {
+                to = from;
+            }
+            if (from.isAfter(to) || from.plusDays(MAX_DAYS).isBefore(to)) {
+                sendBadRequest(exchange, "{\"error\":\"'from' must not be after 'to', and the range is limited to " + MAX_DAYS + " days\"}");
+                return;
+            }
+
+            int duration;
+            int limit;
+            try {
+                duration = Integer.parseInt(QueryParams.get(exchange, "duration"));
+                String limitParam = QueryParams.get(exchange, "limit");
+                limit = limitParam == null || limitParam.isEmpty() ? DEFAULT_LIMIT : Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                sendBadRequest(exchange, "{\"error\":\"'duration' (minutes) is required and must be a number\"}");
+                return;
+            }
+            if (duration <= 0 || limit <= 0) {
+                sendBadRequest(exchange, "{\"error\":\"'duration' and 'limit' must be positive\"}");
+                return;
+            }
 
-        private String readRequestBody(HttpExchange exchange) throws IOException {
-            InputStreamReader isr = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
-            BufferedReader br = new BufferedReader(isr);
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
+            List<FreeSlot> slots;
+            try {
+                slots = scheduleManager.findFreeSlots(from, to, duration, windowStart, windowEnd, Math.min(limit, MAX_LIMIT));
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, "{\"error\":\"" + e.getMessage() + "\"}");
+                return;
+            }
+            try (JsonWriter json = JsonResponse.writer(exchange, 200)) {
+                FrontendDataHandler.writeFreeSlots(json, slots);
+                json.finish();
             }
-            return sb.toString();
         }
+    }
+
+    //handle /api/tasks/auto-schedule (POST). body: {"tasks":[{"description","duration","priority"}
+    //or {"taskId"}, ...], "from", "to" (yyyy-MM-dd, default today), "start", "end" (HH:mm, daily
+    //window), "step" (minutes between possible starts) and "apply"}. plans the new tasks (and moves
+    //the listed existing ones) into free time with AutoScheduler. without "apply": true it's only a
+    //preview, with it the tasks are created/moved and saved
+    public static class AutoScheduleHandler implements HttpHandler {
+        private static final int MAX_DAYS = 31;
+        private static final int MAX_TASKS = 500;
+        //an applied plan is searched under the manager's write lock, so every write waits this long at most
+        private static final int MAX_BUDGET_MILLIS = 200;
+
+        private final ScheduleManager scheduleManager;
+        private final LocalTime defaultWindowStart;
+        private final LocalTime defaultWindowEnd;
+        private final int defaultStep;
+        private final int budgetMillis;
 
-        private String extractJsonString(String json, String fieldName) {
-            String pattern = "\"" + fieldName + "\":\\s*\"([^\"]*)\"";
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(json);
-            if (m.find()) {
-                return m.group(1);
+        public AutoScheduleHandler(ScheduleManager scheduleManager) {
+            this.scheduleManager = scheduleManager;
+            this.defaultWindowStart = LocalTime.parse(ServerConfig.getString("scheduler.windowStart", "08:00"));
+            this.defaultWindowEnd = LocalTime.parse(ServerConfig.getString("scheduler.windowEnd", "20:00"));
+            this.defaultStep = ServerConfig.getInt("scheduler.stepMinutes", 15);
+            int budget = ServerConfig.getInt("scheduler.timeBudgetMillis", 50);
+            if (budget < 0 || budget > MAX_BUDGET_MILLIS) {
+                System.err.println("Invalid value for scheduler.timeBudgetMillis: " + budget
+                    + " (must be between 0 and " + MAX_BUDGET_MILLIS + ")");
+                budget = Math.max(0, Math.min(budget, MAX_BUDGET_MILLIS));
             }
-            return null;
+            this.budgetMillis = budget;
         }
 
-        private String taskToJson(Task task) {
-            return String.format(
-                "{\"id\":\"%s\",\"description\":\"%s\",\"startTime\":\"%s\",\"endTime\":\"%s\",\"date\":\"%s\",\"status\":\"%s\",\"priority\":\"%s\",\"duration\":%d}",
-                task.getId(),
-                escapeJsonString(task.getDescription()),
-                task.getStartTime(),
-                task.getEndTime(),
-                task.getDate(),
-                task.getStatus(),
-                task.getPriority(),
-                task.getDurationMinutes()
-            );
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            List<Map<String, String>> taskFields = new ArrayList<>();
+            try {
+                JsonReader reader = new JsonReader(exchange.getRequestBody());
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals("tasks")) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            taskFields.add(reader.nextFlatObject());
+                        }
+                        reader.endArray();
+                    } else if (reader.peek() == JsonReader.Token.NULL) {
+                        reader.nextNull();
+                    } else if (reader.peek() == JsonReader.Token.BEGIN_OBJECT || reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                        reader.skipValue();
+                    } else {
+                        fields.put(name, reader.nextString());
+                    }
+                }
+                reader.endObject();
+                reader.endDocument();
+            } catch (JsonReader.MalformedJsonException e) {
+                sendBadRequest(exchange, FrontendDataHandler.ERR_INVALID_JSON);
+                return;
+            }
+            if (taskFields.isEmpty() || taskFields.size() > MAX_TASKS) {
+                sendBadRequest(exchange, "{\"error\":\"'tasks' must list between 1 and " + MAX_TASKS + " tasks\"}");
+                return;
+            }
+
+            LocalDate from;
+            LocalDate to;
+            LocalTime windowStart;
+            LocalTime windowEnd;
+            try {
+                from = parseDate(fields.get("from"));
+                to = parseDate(fields.get("to"));
+                windowStart = parseTime(fields.get("start"), defaultWindowStart);
+                windowEnd = parseTime(fields.get("end"), defaultWindowEnd);
+            } catch (DateTimeParseException e) {
+                sendBadRequest(exchange, "{\"error\":\"Invalid date or time. Use YYYY-MM-DD and HH:MM\"}");
+                return;
+            }
+            if (from == null) {
+                from = to != null && to.isBefore(LocalDate.now()) ? to : LocalDate.now();
+            }
+            if (to == null) {
+                to = from;
+            }
+            if (from.isAfter(to) || from.plusDays(MAX_DAYS).isBefore(to)) {
+                sendBadRequest(exchange, "{\"error\":\"'from' must not be after 'to', and the range is limited to " + MAX_DAYS + " days\"}");
+                return;
+            }
+
+            List<AutoScheduler.Item> items = new ArrayList<>();
+            AutoScheduler scheduler;
+            try {
+                String step = fields.get("step");
+                scheduler = new AutoScheduler(from, to, windowStart, windowEnd,
+                    step == null || step.isEmpty() ? defaultStep : Integer.parseInt(step), budgetMillis);
+                for (Map<String, String> task : taskFields) {
+                    items.add(toItem(task));
+                }
+            } catch (NumberFormatException e) {
+                sendBadRequest(exchange, "{\"error\":\"'duration' and 'step' must be numbers (minutes)\"}");
+                return;
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, FrontendDataHandler.createValidationErrorResponse(List.of(e.getMessage())));
+                return;
+            }
+
+            AutoScheduler.Result result = scheduler.schedule(scheduleManager, items, "true".equals(fields.get("apply")));
+            if (result.isApplied()) {
+                TaskPersistence.saveTasks(scheduleManager);
+            }
+            try (JsonWriter json = JsonResponse.writer(exchange, 200)) {
+                FrontendDataHandler.writeAutoSchedule(json, result);
+                json.finish();
+            }
         }
 
-        private String escapeJsonString(String str) {
-            if (str == null) return "";
-            return str.replace("\\", "\\\\")
-                      .replace("\"", "\\\"")
-                      .replace("\n", "\\n")
-                      .replace("\r", "\\r")
-                      .replace("\t", "\\t");
+        //{"taskId"} names an existing task to move, anything else describes a new one. an unknown id
+        //is a bad request; the scheduler looks the task up again under the manager's lock and
+        //reports it in "notFound" if it was deleted in between
+        private AutoScheduler.Item toItem(Map<String, String> task) {
+            String taskId = task.get("taskId");
+            if (taskId != null && !taskId.isEmpty()) {
+                Task existing = scheduleManager.getTask(taskId);
+                if (existing == null) {
+                    throw new IllegalArgumentException("Task not found: " + taskId);
+                }
+                return AutoScheduler.Item.of(existing);
+            }
+            String description = task.get("description");
+            if (description == null || description.trim().isEmpty()) {
+                throw new IllegalArgumentException("Task description cannot be empty");
+            }
+            if (description.length() > FrontendDataHandler.MAX_DESCRIPTION_LENGTH) {
+                throw new IllegalArgumentException("Task description is longer than "
+                    + FrontendDataHandler.MAX_DESCRIPTION_LENGTH + " characters");
+            }
+            String duration = task.get("duration");
+            if (duration == null) {
+                throw new IllegalArgumentException("Every new task needs a 'duration' in minutes");
+            }
+            Task.Priority priority = Task.Priority.MEDIUM;
+            String priorityValue = task.get("priority");
+            if (priorityValue != null && !priorityValue.isEmpty()) {
+                priority = Task.Priority.of(priorityValue);
+                if (priority == null) {
+                    throw new IllegalArgumentException("Invalid priority value. Must be HIGH, MEDIUM, or LOW");
+                }
+            }
+            return new AutoScheduler.Item(description.trim(), Integer.parseInt(duration), priority);
         }
     }
 
+    //the URL-decoded value of a query parameter, or null. split before decoding, so an encoded
+    //"&" or "=" stays part of the value
+    //null for a missing or empty parameter
+    private static LocalDate parseDate(String value) {
+        return value == null || value.isEmpty() ? null : LocalDate.parse(value);
+    }
+
+    private static LocalTime parseTime(String value, LocalTime defaultTime) {
+        return value == null || value.isEmpty() ? defaultTime : LocalTime.parse(value);
+    }
+
     // Utility methods for HTTP responses
     private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
         String response = "{\"error\":\"Method not allowed\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(405, response.length());
+        exchange.sendResponseHeaders(405, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 
     private static void sendBadRequest(HttpExchange exchange, String message) throws IOException {
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(400, message.length());
+        exchange.sendResponseHeaders(400, messageBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(message.getBytes(StandardCharsets.UTF_8));
+            os.write(messageBytes);
         }
     }
 
     private static void sendConflict(HttpExchange exchange, String message) throws IOException {
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(409, message.length());
+        exchange.sendResponseHeaders(409, messageBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(message.getBytes(StandardCharsets.UTF_8));
+            os.write(messageBytes);
         }
     }
 
     private static void sendNotFound(HttpExchange exchange, String message) throws IOException {
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(404, message.length());
+        exchange.sendResponseHeaders(404, messageBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(message.getBytes(StandardCharsets.UTF_8));
+            os.write(messageBytes);
         }
     }
 
     private static void sendSuccess(HttpExchange exchange, String message) throws IOException {
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(200, message.length());
+        exchange.sendResponseHeaders(200, messageBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(message.getBytes(StandardCharsets.UTF_8));
+            os.write(messageBytes);
         }
     }
 }
\ No newline at end of file
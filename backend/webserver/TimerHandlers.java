@@ -2,9 +2,11 @@ package backend.webserver;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import backend.JsonReader;
 import backend.objects.Timer;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 public class TimerHandlers {
     private final Timer timer;
@@ -28,33 +30,49 @@ public class TimerHandlers {
             }
 
             try {
-                String jsonResponse = String.format(
-                    "{\"isRunning\":%b,\"remainingSeconds\":%d,\"remainingTimeFormatted\":\"%s\",\"pomodorosCompleted\":%d,\"suggestedNextMode\":\"%s\"}",
-                    timer.isRunning(),
-                    timer.getRemainingTime(),
-                    timer.getRemainingTimeFormatted(),
-                    timer.getPomodorosCompleted(),
-                    timer.getSuggestedNextMode()
-                );
+                String jsonResponse = timerStateJson(timer, null);
 
+                byte[] jsonResponseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, jsonResponse.length());
+                exchange.sendResponseHeaders(200, jsonResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(jsonResponseBytes);
                 }
 
             } catch (Exception e) {
                 System.err.println("Error getting timer status: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(500, errorResponse.length());
+                exchange.sendResponseHeaders(500, errorResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(errorResponseBytes);
                 }
             }
         }
     }
 
+    //handle /api/timer/stream (GET keeps an event stream open and pushes the timer state on every
+    //start, pause, resume, stop, reset and complete so pages no longer poll /api/timer)
+    public static class TimerStreamHandler implements HttpHandler {
+        private final Timer timer;
+        private final SseBroadcaster broadcaster = new SseBroadcaster("timer");
+
+        public TimerStreamHandler(Timer timer) {
+            this.timer = timer;
+            timer.addListener(event -> broadcaster.broadcast(event, timerStateJson(timer, event)));
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+            broadcaster.register(exchange, "state", timerStateJson(timer, "state"));
+        }
+    }
+
     public static class TimerStartHandler implements HttpHandler {
         private final Timer timer;
 
@@ -70,15 +88,16 @@ public class TimerHandlers {
             }
 
             try {
-                String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                String mode = extractJsonValue(requestBody, "mode");
+                Map<String, String> fields = JsonReader.readFlatObject(exchange.getRequestBody());
+                String mode = fields.get("mode");
 
                 if (mode == null) {
                     String errorResponse = "{\"error\":\"Missing required field: mode\"}";
+                    byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                     exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.sendResponseHeaders(400, errorResponse.length());
+                    exchange.sendResponseHeaders(400, errorResponseBytes.length);
                     try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                        os.write(errorResponseBytes);
                     }
                     return;
                 }
@@ -95,54 +114,67 @@ public class TimerHandlers {
                         break;
                     case "custom":
                         // Parse custom duration from request
-                        String durationStr = extractJsonValue(requestBody, "duration");
+                        String durationStr = fields.get("duration");
                         if (durationStr != null) {
                             try {
                                 int customDuration = Integer.parseInt(durationStr);
                                 timer.startCustomTimer(customDuration);
                             } catch (NumberFormatException e) {
                                 String errorResponse = "{\"error\":\"Invalid duration format\"}";
+                                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                                exchange.sendResponseHeaders(400, errorResponse.length());
+                                exchange.sendResponseHeaders(400, errorResponseBytes.length);
                                 try (OutputStream os = exchange.getResponseBody()) {
-                                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                                    os.write(errorResponseBytes);
                                 }
                                 return;
                             }
                         } else {
                             String errorResponse = "{\"error\":\"Custom timer requires duration parameter\"}";
+                            byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                             exchange.getResponseHeaders().set("Content-Type", "application/json");
-                            exchange.sendResponseHeaders(400, errorResponse.length());
+                            exchange.sendResponseHeaders(400, errorResponseBytes.length);
                             try (OutputStream os = exchange.getResponseBody()) {
-                                os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                                os.write(errorResponseBytes);
                             }
                             return;
                         }
                         break;
                     default:
                         String errorResponse = "{\"error\":\"Invalid mode. Use: pomodoro, short-break, long-break, custom\"}";
+                        byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                         exchange.getResponseHeaders().set("Content-Type", "application/json");
-                        exchange.sendResponseHeaders(400, errorResponse.length());
+                        exchange.sendResponseHeaders(400, errorResponseBytes.length);
                         try (OutputStream os = exchange.getResponseBody()) {
-                            os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                            os.write(errorResponseBytes);
                         }
                         return;
                 }
 
                 String jsonResponse = "{\"status\":\"Timer started\",\"mode\":\"" + mode + "\"}";
+                byte[] jsonResponseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, jsonResponse.length());
+                exchange.sendResponseHeaders(200, jsonResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(jsonResponseBytes);
                 }
 
+            } catch (JsonReader.MalformedJsonException e) {
+                String errorResponse = "{\"error\":\"Invalid JSON format\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(400, errorResponseBytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(errorResponseBytes);
+                }
             } catch (Exception e) {
                 System.err.println("Error starting timer: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(500, errorResponse.length());
+                exchange.sendResponseHeaders(500, errorResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(errorResponseBytes);
                 }
             }
         }
@@ -166,19 +198,21 @@ public class TimerHandlers {
                 timer.pauseTimer();
 
                 String jsonResponse = "{\"status\":\"Timer paused\"}";
+                byte[] jsonResponseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, jsonResponse.length());
+                exchange.sendResponseHeaders(200, jsonResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(jsonResponseBytes);
                 }
 
             } catch (Exception e) {
                 System.err.println("Error pausing timer: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(500, errorResponse.length());
+                exchange.sendResponseHeaders(500, errorResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(errorResponseBytes);
                 }
             }
         }
@@ -202,19 +236,21 @@ public class TimerHandlers {
                 timer.stopTimer();
 
                 String jsonResponse = "{\"status\":\"Timer stopped\"}";
+                byte[] jsonResponseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, jsonResponse.length());
+                exchange.sendResponseHeaders(200, jsonResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(jsonResponseBytes);
                 }
 
             } catch (Exception e) {
                 System.err.println("Error stopping timer: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(500, errorResponse.length());
+                exchange.sendResponseHeaders(500, errorResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(errorResponseBytes);
                 }
             }
         }
@@ -238,51 +274,53 @@ public class TimerHandlers {
                 timer.resetTimer();
 
                 String jsonResponse = "{\"status\":\"Timer reset\"}";
+                byte[] jsonResponseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, jsonResponse.length());
+                exchange.sendResponseHeaders(200, jsonResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(jsonResponseBytes);
                 }
 
             } catch (Exception e) {
                 System.err.println("Error resetting timer: " + e.getMessage());
                 String errorResponse = "{\"error\":\"Internal server error\"}";
+                byte[] errorResponseBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(500, errorResponse.length());
+                exchange.sendResponseHeaders(500, errorResponseBytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(errorResponse.getBytes(StandardCharsets.UTF_8));
+                    os.write(errorResponseBytes);
                 }
             }
         }
     }
 
-    // Utility method for extracting JSON values
-    private static String extractJsonValue(String json, String key) {
-        // First try to match string values (with quotes)
-        String stringPattern = "\"" + key + "\"\\s*:\\s*\"([^\"]+)\"";
-        java.util.regex.Pattern stringP = java.util.regex.Pattern.compile(stringPattern);
-        java.util.regex.Matcher stringM = stringP.matcher(json);
-        if (stringM.find()) {
-            return stringM.group(1);
+    //current timer state. deadline is the epoch ms at which a running timer hits zero, clients
+    //count down against it (corrected by serverTime) instead of asking the server every second
+    static String timerStateJson(Timer timer, String event) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        if (event != null) {
+            sb.append("\"event\":\"").append(event).append("\",");
         }
-
-        // Then try to match numeric values (without quotes)
-        String numericPattern = "\"" + key + "\"\\s*:\\s*([0-9]+(?:\\.[0-9]+)?)";
-        java.util.regex.Pattern numericP = java.util.regex.Pattern.compile(numericPattern);
-        java.util.regex.Matcher numericM = numericP.matcher(json);
-        if (numericM.find()) {
-            return numericM.group(1);
-        }
-
-        return null;
+        sb.append("\"isRunning\":").append(timer.isRunning());
+        sb.append(",\"remainingSeconds\":").append(timer.getRemainingTime());
+        sb.append(",\"remainingTimeFormatted\":\"").append(timer.getRemainingTimeFormatted()).append("\"");
+        sb.append(",\"mode\":\"").append(timer.getCurrentMode()).append("\"");
+        sb.append(",\"deadline\":").append(timer.getDeadlineMillis());
+        sb.append(",\"serverTime\":").append(System.currentTimeMillis());
+        sb.append(",\"pomodorosCompleted\":").append(timer.getPomodorosCompleted());
+        sb.append(",\"suggestedNextMode\":\"").append(timer.getSuggestedNextMode()).append("\"");
+        sb.append("}");
+        return sb.toString();
     }
 
     private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
         String response = "{\"error\":\"Method not allowed\"}";
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(405, response.length());
+        exchange.sendResponseHeaders(405, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(responseBytes);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+// Live task/note changes from /api/changes/stream
+// Pages pass handlers for the entity types they show; each gets (type, item, id)
+// where type is 'create', 'update' or 'delete'. onReset is called when the server
+// could not replay the missed events and the page should reload its lists.
+
+let changeFeedSource = null;
+let changeFeedConnected = false;
+
+function subscribeToChanges(handlers) {
+    if (typeof EventSource === 'undefined') {
+        return false;
+    }
+
+    changeFeedSource = new EventSource('/api/changes/stream');
+
+    changeFeedSource.addEventListener('ready', () => {
+        changeFeedConnected = true;
+    });
+
+    changeFeedSource.addEventListener('reset', () => {
+        changeFeedConnected = true;
+        if (handlers.onReset) handlers.onReset();
+    });
+
+    ['task', 'note'].forEach(entity => {
+        changeFeedSource.addEventListener(entity, (e) => {
+            const change = JSON.parse(e.data);
+            const handler = handlers[entity];
+            if (handler) handler(change.type, change.data, change.entityId);
+        });
+    });
+
+    changeFeedSource.onopen = function() {
+        changeFeedConnected = true;
+    };
+
+    // EventSource reconnects on its own and sends Last-Event-ID, so missed changes are replayed
+    changeFeedSource.onerror = function() {
+        changeFeedConnected = false;
+    };
+
+    return true;
+}
+
+function isChangeFeedConnected() {
+    return changeFeedConnected;
+}
+
+// Apply one change to an array of items keyed by id, returns the new array
+function applyChange(items, type, item, id) {
+    const rest = items.filter(existing => existing.id !== id);
+    if (type === 'delete') {
+        return rest;
+    }
+    rest.push(item);
+    return rest;
+}
@@ -1,7 +1,18 @@
+let currentNotes = [];
+
 document.addEventListener('DOMContentLoaded', function() {
     initializeNotes();
     setupEventListeners();
     loadNotes();
+
+    // Keep the list in sync with changes made in other tabs or by the AI assistant
+    subscribeToChanges({
+        note: function(type, note, id) {
+            currentNotes = applyChange(currentNotes, type, note, id);
+            displayNotes(currentNotes);
+        },
+        onReset: loadNotes
+    });
 });
 
 function initializeNotes() {
@@ -47,6 +58,7 @@ async function loadNotes() {
         }
 
         const notes = await response.json();
+        currentNotes = notes;
         displayNotes(notes);
 
     } catch (error) {
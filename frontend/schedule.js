@@ -10,6 +10,7 @@ let selectedDate = today.getFullYear() + '-' +
     String(today.getMonth() + 1).padStart(2, '0') + '-' +
     String(today.getDate()).padStart(2, '0');
 let currentView = 'timeline'; 
+let timelineTasks = []; // tasks currently drawn on the timeline for selectedDate
 let calendarStartDate = new Date(); 
 
 document.addEventListener('DOMContentLoaded', function() {
@@ -19,11 +20,43 @@ document.addEventListener('DOMContentLoaded', function() {
     setTimeout(() => {
         loadScheduleTimeline();
     }, 100);
+
+    // Apply task changes from other tabs or the AI assistant as they happen
+    subscribeToChanges({
+        task: applyTaskChange,
+        onReset: refreshCurrentView
+    });
 });
 
+function refreshCurrentView() {
+    if (currentView === 'timeline') {
+        loadScheduleTimeline();
+    } else {
+        loadCalendarView();
+    }
+}
+
+function applyTaskChange(type, task, id) {
+    if (currentView !== 'timeline') {
+        loadCalendarView();
+        return;
+    }
+
+    const wasShown = timelineTasks.some(t => t.id === id);
+    if (task.date !== selectedDate && !wasShown) {
+        return;
+    }
+
+    timelineTasks = applyChange(timelineTasks, type, task, id)
+        .filter(t => t.date === selectedDate);
+    updateScheduleTimeline(timelineTasks);
+    updateScheduleStats(timelineTasks);
+}
+
 // Refresh timeline when page becomes visible (user returns to tab)
+// (not needed while the change feed is connected, it already keeps the view current)
 document.addEventListener('visibilitychange', function() {
-    if (!document.hidden) {
+    if (!document.hidden && !isChangeFeedConnected()) {
         if (currentView === 'timeline') {
             loadScheduleTimeline();
         } else {
@@ -34,6 +67,9 @@ document.addEventListener('visibilitychange', function() {
 
 // Also refresh when window regains focus
 window.addEventListener('focus', function() {
+    if (isChangeFeedConnected()) {
+        return;
+    }
     if (currentView === 'timeline') {
         loadScheduleTimeline();
     } else {
@@ -189,54 +225,51 @@ function displayPriorityEvent() {
     document.getElementById('priority-end').value = currentPriorityEvent.endTime;
 }
 
+// Local copy of every task, brought up to date with the small diffs from /api/sync
+const SYNCED_TASKS_KEY = 'syncedTasks';
+const SYNCED_VERSION_KEY = 'syncedTasksVersion';
+
+async function syncTasks() {
+    let tasks = [];
+    let since = 0;
+    try {
+        tasks = JSON.parse(localStorage.getItem(SYNCED_TASKS_KEY)) || [];
+        since = Number(localStorage.getItem(SYNCED_VERSION_KEY)) || 0;
+    } catch (e) {
+        tasks = [];
+        since = 0;
+    }
+
+    const response = await fetch(`/api/sync?since=${since}`);
+    if (!response.ok) {
+        throw new Error('Failed to sync tasks');
+    }
+    const delta = await response.json();
+
+    if (delta.reset) {
+        // Server could not diff from our version, it sent everything
+        tasks = delta.tasks;
+    } else if (delta.tasks.length > 0 || delta.deletedTasks.length > 0) {
+        const byId = new Map(tasks.map(task => [task.id, task]));
+        delta.tasks.forEach(task => byId.set(task.id, task));
+        delta.deletedTasks.forEach(id => byId.delete(id));
+        tasks = Array.from(byId.values());
+    }
+
+    localStorage.setItem(SYNCED_TASKS_KEY, JSON.stringify(tasks));
+    localStorage.setItem(SYNCED_VERSION_KEY, String(delta.version));
+    return tasks;
+}
+
 async function loadScheduleTimeline() {
     try {
-        // First try to load from API
-        const response = await fetch('/api/tasks');
-        if (response.ok) {
-            const apiTasks = await response.json();
-
-            // Filter tasks for the selected date
-            const dateTasks = apiTasks.filter(task => {
-                const taskDate = new Date(task.date).toISOString().split('T')[0];
-                return taskDate === selectedDate;
-            });
+        // First try to load from API (the synced copy is complete, no merging needed)
+        const apiTasks = await syncTasks();
+        const dateTasks = apiTasks.filter(task => task.date === selectedDate);
 
-            updateScheduleTimeline(dateTasks);
-            updateScheduleStats(dateTasks);
-
-            // Also merge with localStorage tasks for the same date
-            try {
-                const savedTasks = localStorage.getItem('savedTasks');
-                if (savedTasks) {
-                    const localTasks = JSON.parse(savedTasks);
-                    const localDateTasks = localTasks.filter(task => {
-                        let taskDate = task.date;
-                        if (task.date && task.date.includes('T')) {
-                            taskDate = task.date.split('T')[0];
-                        }
-                        return taskDate === selectedDate;
-                    });
-
-                    // Merge local tasks that aren't already in API tasks
-                    const mergedTasks = [...dateTasks];
-                    localDateTasks.forEach(localTask => {
-                        const exists = mergedTasks.some(apiTask => apiTask.id === localTask.id);
-                        if (!exists) {
-                            mergedTasks.push(localTask);
-                        }
-                    });
-
-                    if (mergedTasks.length > dateTasks.length) {
-                        updateScheduleTimeline(mergedTasks);
-                        updateScheduleStats(mergedTasks);
-                    }
-                }
-            } catch (localError) {
-            }
-        } else {
-            loadTimelineFromLocalStorage();
-        }
+        timelineTasks = dateTasks;
+        updateScheduleTimeline(dateTasks);
+        updateScheduleStats(dateTasks);
     } catch (error) {
         console.error('Error loading timeline from API, trying localStorage:', error);
         loadTimelineFromLocalStorage();
@@ -245,8 +278,8 @@ async function loadScheduleTimeline() {
 
 function loadTimelineFromLocalStorage() {
     try {
-        // Try to get tasks from localStorage
-        const savedTasks = localStorage.getItem('savedTasks');
+        // Try to get tasks from localStorage, preferring the last synced copy
+        const savedTasks = localStorage.getItem(SYNCED_TASKS_KEY) || localStorage.getItem('savedTasks');
         let localTasks = [];
         if (savedTasks) {
             localTasks = JSON.parse(savedTasks);
@@ -562,20 +595,18 @@ async function loadCalendarView() {
         const monthName = monthStart.toLocaleDateString('en-US', { month: 'long', year: 'numeric' });
         titleElement.textContent = monthName;
 
-        // Fetch tasks for the entire month
+        // Sync once, then group tasks by day for the entire month
+        let allTasks = [];
+        try {
+            allTasks = await syncTasks();
+        } catch (error) {
+            console.error('Error syncing tasks for calendar:', error);
+        }
         const monthTasks = {};
         const currentDate = new Date(calendarStart);
         while (currentDate <= calendarEnd) {
             const dateStr = currentDate.toISOString().split('T')[0];
-
-            try {
-                const tasks = await fetchTasksForDate(dateStr);
-                monthTasks[dateStr] = tasks;
-            } catch (error) {
-                console.error(`Error fetching tasks for ${dateStr}:`, error);
-                monthTasks[dateStr] = [];
-            }
-
+            monthTasks[dateStr] = allTasks.filter(task => task.date === dateStr);
             currentDate.setDate(currentDate.getDate() + 1);
         }
 
@@ -813,12 +844,8 @@ async function editTimelineWithAI() {
 
 async function fetchTasksForDate(date) {
     try {
-        const response = await fetch('/api/tasks');
-        const tasks = await response.json();
-        return tasks.filter(task => {
-            const taskDate = new Date(task.date).toISOString().split('T')[0];
-            return taskDate === date;
-        });
+        const tasks = await syncTasks();
+        return tasks.filter(task => task.date === date);
     } catch (error) {
         console.error('Error fetching tasks:', error);
         return [];
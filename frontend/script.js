@@ -4,6 +4,8 @@
  * Date: January 2026
  */
 
+let currentTasks = [];
+
 document.addEventListener('DOMContentLoaded', function() {
     initializeApp();
 
@@ -11,8 +13,31 @@ document.addEventListener('DOMContentLoaded', function() {
     loadPriorityEvent();
 
     setupEventListeners();
+
+    // Keep today's list in sync with changes made in other tabs or by the AI assistant
+    subscribeToChanges({
+        task: applyTaskChange,
+        onReset: loadTasks
+    });
 });
 
+function applyTaskChange(type, task, id) {
+    const d = new Date();
+    const todayLocal = d.getFullYear() + '-' +
+        String(d.getMonth() + 1).padStart(2, '0') + '-' +
+        String(d.getDate()).padStart(2, '0');
+    if (task.date !== todayLocal) {
+        return;
+    }
+
+    currentTasks = applyChange(currentTasks, type, task, id);
+    localStorage.setItem('savedTasks', JSON.stringify(currentTasks));
+    displayTasks(currentTasks);
+
+    const activeFilter = document.querySelector('.filter-btn.active');
+    filterTasks(activeFilter ? activeFilter.dataset.filter || 'all' : 'all');
+}
+
 function initializeApp() {
 
     //update greeting with current time
@@ -158,6 +183,7 @@ async function loadTasks() {
         }
 
         const tasks = await response.json();
+        currentTasks = tasks;
         // Update localStorage with server data for consistency
         localStorage.setItem('savedTasks', JSON.stringify(tasks));
         displayTasks(tasks);
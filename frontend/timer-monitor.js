@@ -12,6 +12,7 @@ let lastTimerStatus = {
 };
 
 let timerMonitorInterval = null;
+let timerEventSource = null;
 let lastCompletionTime = 0; // Track when we last showed a completion notification
 
 // Helper function to get settings from localStorage
@@ -74,8 +75,48 @@ function requestNotificationPermission() {
 }
 
 // Start monitoring the backend timer
+// Uses the /api/timer/stream event stream so the server pushes state changes;
+// falls back to polling /api/timer if EventSource is unavailable
 function startTimerMonitor() {
-    // Check timer status every second
+    if (typeof EventSource === 'undefined') {
+        startTimerPolling();
+        return;
+    }
+
+    timerEventSource = new EventSource('/api/timer/stream');
+
+    timerEventSource.addEventListener('state', (e) => updateTimerStatus(JSON.parse(e.data)));
+    ['start', 'pause', 'resume', 'stop', 'reset'].forEach(eventName => {
+        timerEventSource.addEventListener(eventName, (e) => updateTimerStatus(JSON.parse(e.data)));
+    });
+    timerEventSource.addEventListener('complete', (e) => {
+        const status = JSON.parse(e.data);
+        const now = Date.now();
+        if (now - lastCompletionTime > 2000) {
+            console.log('Timer completion event received', status);
+            lastCompletionTime = now;
+            handleTimerCompletion();
+        }
+        updateTimerStatus(status);
+    });
+
+    // EventSource reconnects on its own; the 'state' event sent on reconnect resyncs us
+    timerEventSource.onerror = function() {
+        console.warn('Timer event stream interrupted, reconnecting...');
+    };
+}
+
+function updateTimerStatus(status) {
+    lastTimerStatus = {
+        isRunning: status.isRunning,
+        remainingSeconds: status.remainingSeconds || 0
+    };
+    // Let the timer page (or anything else) follow the pushed state
+    document.dispatchEvent(new CustomEvent('timerstatus', { detail: status }));
+}
+
+// Fallback: check timer status every second
+function startTimerPolling() {
     timerMonitorInterval = setInterval(async () => {
         try {
             const response = await fetch('/api/timer');
@@ -88,28 +129,16 @@ function startTimerMonitor() {
                 const isNowRunning = status.isRunning;
                 const remainingTime = status.remainingSeconds || 0;
                 
-                // More robust detection: timer completed if it was running and now it's not
-                // OR if remaining time is 0 or negative (even if isRunning is still true due to timing)
+                // timer completed if it was running and now it's not
                 const timerJustCompleted = wasRunning && (!isNowRunning || remainingTime <= 0) && 
                     (now - lastCompletionTime > 2000);
                 
                 if (timerJustCompleted) {
-                    console.log('Timer completion detected!', {
-                        wasRunning,
-                        isNowRunning,
-                        remainingTime,
-                        lastStatus: lastTimerStatus,
-                        currentStatus: status
-                    });
                     lastCompletionTime = now;
                     handleTimerCompletion();
                 }
                 
-                // Update last known status
-                lastTimerStatus = {
-                    isRunning: status.isRunning,
-                    remainingSeconds: status.remainingSeconds
-                };
+                updateTimerStatus(status);
             }
         } catch (error) {
             // Silently handle errors (network issues, etc.)
@@ -26,6 +26,7 @@ let timerInterval;
 let isRunning = false;
 let isPaused = false;
 let currentTime = 25 * 60;
+let timerDeadline = 0; // local Date.now() value when the running timer hits zero
 let currentMode = 'pomodoro';
 let pomodorosCompleted = 0;
 let totalFocusTime = 0;
@@ -62,25 +63,44 @@ async function fetchTimerStatus() {
         const response = await fetch('/api/timer');
         if (response.ok) {
             const status = await response.json();
-            isRunning = status.isRunning;
-            isPaused = status.isPaused || false;  // Default to false if not provided
-            currentTime = status.remainingSeconds;
-            // Don't overwrite currentMode - the backend doesn't provide it
-            // currentMode = status.mode;  // Remove this line
-
-            updateTimerDisplay();
-            updateUI();
-            updateModeButtons();
-
-            if (isRunning && !isPaused) {
-                startLocalTimer();
-            }
+            applyTimerStatus(status);
         }
     } catch (error) {
         console.error('Failed to fetch timer status:', error);
     }
 }
 
+// Sync local state with a status from /api/timer or the timer event stream
+function applyTimerStatus(status) {
+    isRunning = status.isRunning;
+    isPaused = status.isPaused || false;  // Default to false if not provided
+    currentTime = status.remainingSeconds;
+    // Don't overwrite currentMode - the user may have picked a mode that has not started yet
+
+    if (isRunning && status.deadline) {
+        // shift the server deadline onto the local clock
+        timerDeadline = Date.now() + (status.deadline - status.serverTime);
+    }
+
+    updateTimerDisplay();
+    updateUI();
+    updateModeButtons();
+
+    if (isRunning && !isPaused) {
+        startLocalTimer();
+    } else {
+        clearInterval(timerInterval);
+        timerDeadline = 0;
+    }
+}
+
+// Pushed by timer-monitor.js whenever the server timer changes state
+document.addEventListener('timerstatus', function(e) {
+    if (e.detail.event !== 'complete') {
+        applyTimerStatus(e.detail);
+    }
+});
+
 // Start timer
 async function startTimer() {
     try {
@@ -107,7 +127,8 @@ async function startTimer() {
         if (result.status === 'Timer started') {
             isRunning = true;
             isPaused = false;
-            fetchTimerStatus();  // Update status from backend
+            timerDeadline = Date.now() + currentTime * 1000;
+            fetchTimerStatus();  // Update status (and deadline) from backend
             updateUI();
             updateStatus('Timer started');
             startLocalTimer();  // Start the local countdown display
@@ -136,6 +157,7 @@ async function pauseTimer() {
         if (result.status === 'Timer paused') {
             isPaused = true;
             clearInterval(timerInterval);
+            timerDeadline = 0;
             updateUI();
             updateStatus('Timer paused');
         }
@@ -164,6 +186,7 @@ async function stopTimer() {
             isRunning = false;
             isPaused = false;
             clearInterval(timerInterval);
+            timerDeadline = 0;
             fetchTimerStatus();  // Update status from backend
             updateUI();
             updateStatus('Timer stopped');
@@ -194,6 +217,7 @@ async function resetTimer() {
             isRunning = false;
             isPaused = false;
             clearInterval(timerInterval);
+            timerDeadline = 0;
             fetchTimerStatus();  // Update status from backend
             updateUI();
             updateStatus('Timer reset');
@@ -242,10 +266,14 @@ function setCustomTimer() {
 }
 
 // Start local countdown (for visual feedback)
+// Counts against the deadline rather than decrementing, so throttled or late ticks don't drift
 function startLocalTimer() {
     clearInterval(timerInterval);
+    if (!timerDeadline) {
+        timerDeadline = Date.now() + currentTime * 1000;
+    }
     timerInterval = setInterval(() => {
-        currentTime--;
+        currentTime = Math.max(0, Math.ceil((timerDeadline - Date.now()) / 1000));
         updateTimerDisplay();
 
         if (currentTime <= 0) {
@@ -282,6 +310,7 @@ function getSettings() {
 // Handle timer completion
 function timerComplete() {
     clearInterval(timerInterval);
+    timerDeadline = 0;
     isRunning = false;
 
     const settings = getSettings();
@@ -673,13 +702,10 @@ function setupPageVisibilityHandling() {
 function recalibrateTimer(hiddenDuration) {
     if (!isRunning) return;
 
-    // This is a best-effort attempt to adjust for time spent in background
-    // Note: This is not perfectly accurate due to browser timer throttling
-    const hiddenSeconds = Math.floor(hiddenDuration / 1000);
-
-    if (hiddenSeconds > 0 && currentTime > hiddenSeconds) {
-        // Try to account for missed time
-        currentTime = Math.max(0, currentTime - hiddenSeconds);
+    // The countdown is derived from the server deadline, so the time spent hidden is
+    // already accounted for; just redraw from it
+    if (timerDeadline) {
+        currentTime = Math.max(0, Math.ceil((timerDeadline - Date.now()) / 1000));
 
         if (currentTime <= 0) {
             // Timer should have completed while hidden
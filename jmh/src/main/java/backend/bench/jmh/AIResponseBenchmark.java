@@ -0,0 +1,51 @@
+package backend.bench.jmh;
+
+import backend.objects.AIResponseHandler;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//pulling the text out of large model responses, in the Gemini and the OpenAI ("choices") shape
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class AIResponseBenchmark {
+
+    @Param({"16", "256", "1024"})
+    int kb;
+
+    private String gemini;
+    private String openAi;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String text = Fixtures.aiText(kb * 1024);
+        gemini = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + text
+            + "\"}],\"role\":\"model\"},\"finishReason\":\"STOP\"}]}";
+        openAi = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"choices\":[{\"index\":0,"
+            + "\"message\":{\"role\":\"assistant\",\"content\":\"" + text + "\"},\"finish_reason\":\"stop\"}]}";
+    }
+
+    @Benchmark
+    public String extractGemini() {
+        return AIResponseHandler.extractContentFromResponse(gemini);
+    }
+
+    @Benchmark
+    public String extractChoices() {
+        return AIResponseHandler.extractContentFromResponse(openAi);
+    }
+}
@@ -0,0 +1,46 @@
+package backend.bench.jmh;
+
+import backend.ScheduleManager;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+//the data the benchmarks run on, the same shapes as backend.bench.BackendBenchmarks uses
+final class Fixtures {
+    static final int TASKS_PER_DAY = 40;
+    static final int DAY_SLOTS = 24 * 60 - 1; //one minute tasks from 00:00 to 23:59
+    static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+
+    private Fixtures() {
+    }
+
+    //adds size tasks spread over consecutive days, TASKS_PER_DAY 15 minute slots a day
+    static ScheduleManager fill(ScheduleManager manager, int size) {
+        for (int i = 0; i < size; i++) {
+            LocalDate date = FIRST_DAY.plusDays(i / TASKS_PER_DAY);
+            LocalTime start = LocalTime.of(6, 0).plusMinutes((i % TASKS_PER_DAY) * 15L);
+            manager.addTask("Task " + i, start, start.plusMinutes(15), date, true);
+        }
+        return manager;
+    }
+
+    //fills FIRST_DAY with back to back one minute tasks, each added with the conflict check on
+    static ScheduleManager fillDay(ScheduleManager manager) {
+        for (int i = 0; i < DAY_SLOTS; i++) {
+            LocalTime start = LocalTime.MIN.plusMinutes(i);
+            if (manager.addTask("Task " + i, start, start.plusMinutes(1), FIRST_DAY, false) == null) {
+                throw new IllegalStateException("unexpected conflict at " + start);
+            }
+        }
+        return manager;
+    }
+
+    //escaped JSON string content of roughly the given length, like a long model answer
+    static String aiText(int length) {
+        String line = "Here is a plan for \\\"Tuesday\\\": study 09:00-10:30, break, then review notes.\\n";
+        StringBuilder sb = new StringBuilder(length + line.length());
+        while (sb.length() < length) {
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package backend.bench.jmh;
+
+import backend.FrontendDataHandler;
+import backend.objects.Task;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//decoding a task create request and encoding one task
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FrontendDataBenchmark {
+    private static final String[] PRIORITIES = {"HIGH", "LOW"};
+
+    private String body;
+    private Task task;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        body = "{\"description\":\"Study for the \\\"physics\\\" test\",\"startTime\":\"09:30\","
+            + "\"endTime\":\"10:45\",\"date\":\"2025-03-14\",\"priority\":\"HIGH\"}";
+        task = new Task("Study for the \"physics\" test", LocalTime.of(9, 30), LocalTime.of(10, 45), Fixtures.FIRST_DAY);
+    }
+
+    @Benchmark
+    public FrontendDataHandler.TaskCreateRequest parseTaskCreateRequest() {
+        return FrontendDataHandler.parseTaskCreateRequest(body);
+    }
+
+    @Benchmark
+    public String taskToJsonCached() {
+        return FrontendDataHandler.taskToJson(task);
+    }
+
+    @Benchmark
+    public String taskToJsonChanged() {
+        task.setPriority(PRIORITIES[cursor++ & 1]); //setters drop the cached JSON
+        return FrontendDataHandler.taskToJson(task);
+    }
+}
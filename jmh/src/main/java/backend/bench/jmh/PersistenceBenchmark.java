@@ -0,0 +1,132 @@
+package backend.bench.jmh;
+
+import backend.Journal;
+import backend.NoteManager;
+import backend.NotePersistence;
+import backend.ScheduleManager;
+import backend.TaskPersistence;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//saving and loading the data files. everything is written to a temp directory, never to
+//tasks.json/notes.json
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PersistenceBenchmark {
+
+    @State(Scope.Thread)
+    public static class Tasks {
+        @Param({"1000", "10000", "100000"})
+        int size;
+
+        ScheduleManager manager;
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            manager = Fixtures.fill(new ScheduleManager(), size);
+            file = File.createTempFile("pomodoro-bench-tasks", ".json");
+            TaskPersistence.saveTasks(manager, file);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Notes {
+        @Param({"1000", "10000"})
+        int notes;
+
+        NoteManager manager;
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            manager = new NoteManager();
+            for (int i = 0; i < notes; i++) {
+                manager.addNote("Note " + i + ": review chapter " + (i % 12) + " and write a \"summary\" \u00e9");
+            }
+            file = File.createTempFile("pomodoro-bench-notes", ".json");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class JournalFile {
+        File dir;
+        Journal journal;
+        byte[] record;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("pomodoro-bench-journal").toFile();
+            journal = new Journal(new File(dir, "tasks.journal"));
+            record = ("{\"op\":\"update\",\"id\":\"2f0c8e55-6a4b-4f1e-9d53-0b8f3c1d7a42\",\"description\":"
+                + "\"Study for the physics test\",\"startTime\":\"09:30\",\"endTime\":\"10:45\",\"date\":\"2025-03-14\","
+                + "\"status\":\"COMPLETED\",\"priority\":\"HIGH\"}").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            Journal.deleteAll(new File(dir, "tasks.journal"));
+            Files.deleteIfExists(dir.toPath());
+        }
+    }
+
+    @Benchmark
+    public File saveTasks(Tasks tasks) {
+        TaskPersistence.saveTasks(tasks.manager, tasks.file);
+        return tasks.file;
+    }
+
+    @Benchmark
+    public ScheduleManager loadTasks(Tasks tasks) {
+        ScheduleManager loaded = new ScheduleManager();
+        TaskPersistence.loadTasks(loaded, tasks.file);
+        return loaded;
+    }
+
+    @Benchmark
+    public NoteManager notesRoundTrip(Notes notes) {
+        NotePersistence.saveNotes(notes.manager, notes.file);
+        NoteManager loaded = new NoteManager();
+        NotePersistence.loadNotes(loaded, notes.file);
+        return loaded;
+    }
+
+    //what one save costs with the journal: a task sized record plus its fsync, whatever the
+    //number of tasks (compare with saveTasks, which rewrites all of them)
+    @Benchmark
+    public Journal journalAppendFlush(JournalFile journal) throws IOException {
+        journal.journal.append(journal.record);
+        journal.journal.flush();
+        return journal.journal;
+    }
+}
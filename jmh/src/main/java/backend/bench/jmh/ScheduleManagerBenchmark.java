@@ -0,0 +1,74 @@
+package backend.bench.jmh;
+
+import backend.ScheduleManager;
+import backend.objects.Task;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//ScheduleManager at 1k/10k/100k tasks, TASKS_PER_DAY a day from FIRST_DAY on
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ScheduleManagerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private ScheduleManager manager;
+    private List<Task> tasks;
+    private int days;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = Fixtures.fill(new ScheduleManager(), size);
+        tasks = manager.getAllTasks();
+        days = Math.max(1, size / Fixtures.TASKS_PER_DAY);
+    }
+
+    //fills an empty manager with size tasks, so one op is size adds
+    @Benchmark
+    public ScheduleManager addTask() {
+        return Fixtures.fill(new ScheduleManager(), size);
+    }
+
+    @Benchmark
+    public List<Task> getTasksForDate() {
+        return manager.getTasksForDate(Fixtures.FIRST_DAY.plusDays(cursor++ % days));
+    }
+
+    @Benchmark
+    public List<Task> getTasksWeek() {
+        LocalDate from = Fixtures.FIRST_DAY.plusDays(cursor++ % days);
+        return manager.getTasks(from, from.plusDays(6), Task.TaskStatus.PENDING, null);
+    }
+
+    @Benchmark
+    public List<Task> getAllTasks() {
+        return manager.getAllTasks();
+    }
+
+    @Benchmark
+    public boolean updateTaskStatus() {
+        Task task = tasks.get(cursor++ % tasks.size());
+        Task.TaskStatus next = task.getStatus() == Task.TaskStatus.PENDING
+            ? Task.TaskStatus.COMPLETED : Task.TaskStatus.PENDING;
+        return manager.updateTaskStatus(task.getId(), next);
+    }
+}
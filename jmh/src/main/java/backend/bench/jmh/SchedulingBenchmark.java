@@ -0,0 +1,84 @@
+package backend.bench.jmh;
+
+import backend.AutoScheduler;
+import backend.FreeSlot;
+import backend.ScheduleManager;
+import backend.objects.Task;
+import java.time.Clock;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//conflict checks and free time: one crowded day (the bulk import / ADD_MULTIPLE shape), the
+//free-slot search over a normal week and the auto-scheduler
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SchedulingBenchmark {
+
+    private ScheduleManager fullDay;
+    private ScheduleManager week;
+    private ScheduleManager empty;
+    private List<AutoScheduler.Item> items;
+    private AutoScheduler scheduler;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fullDay = Fixtures.fillDay(new ScheduleManager());
+        week = Fixtures.fill(new ScheduleManager(), 10_000); //06:00-16:00 busy every day
+        empty = new ScheduleManager();
+        items = new ArrayList<>();
+        int[] durations = {15, 15, 15, 30};
+        for (int i = 0; i < 300; i++) {
+            items.add(new AutoScheduler.Item("Task " + i, durations[i % durations.length],
+                Task.Priority.values()[i % Task.Priority.values().length]));
+        }
+        //"now" is the start of the week, so none of it is in the past
+        scheduler = new AutoScheduler(Fixtures.FIRST_DAY, Fixtures.FIRST_DAY.plusDays(6),
+            LocalTime.of(7, 0), LocalTime.of(22, 0), 15, 1_000,
+            Clock.fixed(Fixtures.FIRST_DAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+    }
+
+    //fills a day minute by minute with the conflict check on, so one op is DAY_SLOTS adds
+    @Benchmark
+    public ScheduleManager addTaskSameDay() {
+        return Fixtures.fillDay(new ScheduleManager());
+    }
+
+    @Benchmark
+    public boolean isTimeSlotAvailable() {
+        LocalTime start = LocalTime.MIN.plusMinutes(cursor++ % (Fixtures.DAY_SLOTS - 30));
+        return fullDay.isTimeSlotAvailable(start, start.plusMinutes(30), Fixtures.FIRST_DAY);
+    }
+
+    //"next free 45 minutes this week"
+    @Benchmark
+    public List<FreeSlot> findFreeSlotsWeek() {
+        return week.findFreeSlots(Fixtures.FIRST_DAY, Fixtures.FIRST_DAY.plusDays(6), 45,
+            LocalTime.of(8, 0), LocalTime.of(20, 0), Integer.MAX_VALUE);
+    }
+
+    //plans (doesn't apply) 300 new tasks of mixed priority into a week with room for all of them:
+    //the greedy pass plus a local search that runs until nothing improves
+    @Benchmark
+    public AutoScheduler.Result autoSchedulePlanWeek() {
+        return scheduler.plan(empty, items);
+    }
+}
@@ -0,0 +1,155 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import backend.objects.Task;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AutoSchedulerTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    private static Clock at(LocalTime time) {
+        return Clock.fixed(LocalDateTime.of(TODAY, time).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    private static AutoScheduler scheduler(LocalDate from, LocalDate to, Clock clock) {
+        return new AutoScheduler(from, to, LocalTime.of(8, 0), LocalTime.of(22, 30), 15, 50, clock);
+    }
+
+    private static void assertNotBefore(LocalTime now, AutoScheduler.Result result) {
+        for (AutoScheduler.Placement placement : result.getScheduled()) {
+            assertFalse(placement.getDate().isBefore(TODAY), "placed on " + placement.getDate());
+            if (placement.getDate().equals(TODAY)) {
+                assertFalse(placement.getStart().isBefore(now), "placed at " + placement.getStart());
+            }
+        }
+    }
+
+    @Test
+    void windowStartingTodayStartsAtNow() {
+        LocalTime now = LocalTime.of(21, 37);
+        ScheduleManager manager = new ScheduleManager();
+        List<AutoScheduler.Item> items = List.of(
+            new AutoScheduler.Item("Review", 30, Task.Priority.HIGH),
+            new AutoScheduler.Item("Essay", 45, Task.Priority.MEDIUM));
+
+        AutoScheduler.Result result = scheduler(TODAY, TODAY, at(now)).schedule(manager, items, true);
+
+        assertNotBefore(now, result);
+        assertEquals(1, result.getScheduled().size());
+        AutoScheduler.Placement placed = result.getScheduled().get(0);
+        assertEquals("Review", placed.getItem().getDescription());
+        assertEquals(LocalTime.of(21, 45), placed.getStart()); //the next step after now
+        assertEquals(1, result.getUnscheduled().size()); //no 45 minutes left before 22:30
+        assertEquals(1, manager.getTaskCount());
+    }
+
+    @Test
+    void restOfTheWindowGoesToLaterDays() {
+        LocalTime now = LocalTime.of(21, 37);
+        List<AutoScheduler.Item> items = List.of(
+            new AutoScheduler.Item("Review", 30, Task.Priority.HIGH),
+            new AutoScheduler.Item("Essay", 45, Task.Priority.MEDIUM));
+
+        AutoScheduler.Result result = scheduler(TODAY, TODAY.plusDays(1), at(now)).plan(new ScheduleManager(), items);
+
+        assertNotBefore(now, result);
+        assertTrue(result.getUnscheduled().isEmpty());
+        AutoScheduler.Placement essay = result.getScheduled().get(1);
+        assertEquals(TODAY.plusDays(1), essay.getDate());
+        assertEquals(LocalTime.of(8, 0), essay.getStart());
+    }
+
+    @Test
+    void daysBeforeTodayAreSkipped() {
+        LocalTime now = LocalTime.of(12, 0);
+        List<AutoScheduler.Item> items = List.of(
+            new AutoScheduler.Item("One", 60, Task.Priority.HIGH),
+            new AutoScheduler.Item("Two", 60, Task.Priority.LOW));
+
+        AutoScheduler.Result result = scheduler(TODAY.minusDays(2), TODAY, at(now)).plan(new ScheduleManager(), items);
+
+        assertNotBefore(now, result);
+        assertEquals(2, result.getScheduled().size());
+        assertEquals(LocalTime.of(12, 0), result.getScheduled().get(0).getStart());
+    }
+
+    @Test
+    void startedTaskIsLeftWhereItIs() {
+        ScheduleManager manager = new ScheduleManager();
+        Task started = manager.addTask("Started", LocalTime.of(9, 0), LocalTime.of(10, 0), TODAY, false);
+
+        AutoScheduler.Result result = scheduler(TODAY, TODAY, at(LocalTime.of(9, 30)))
+            .schedule(manager, List.of(AutoScheduler.Item.of(started)), true);
+
+        assertTrue(result.getScheduled().isEmpty());
+        assertEquals(1, result.getUnscheduled().size());
+        assertEquals(LocalTime.of(9, 0), manager.getTask(started.getId()).getStartTime());
+    }
+
+    @Test
+    void deletedTaskIsReportedNotRecreated() {
+        ScheduleManager manager = new ScheduleManager();
+        Task deleted = manager.addTask("Deleted", LocalTime.of(9, 0), LocalTime.of(10, 0), TODAY.plusDays(1), false);
+        Task kept = manager.addTask("Kept", LocalTime.of(11, 0), LocalTime.of(12, 0), TODAY.plusDays(1), false);
+        //looked up by the handler, then deleted by another request before the scheduler ran
+        List<AutoScheduler.Item> items = List.of(AutoScheduler.Item.of(deleted), AutoScheduler.Item.of(kept));
+        manager.removeTask(deleted.getId());
+
+        AutoScheduler.Result result = scheduler(TODAY.plusDays(1), TODAY.plusDays(1), at(LocalTime.of(7, 0)))
+            .schedule(manager, items, true);
+
+        assertEquals(List.of(deleted.getId()), result.getNotFound());
+        assertEquals(1, result.getScheduled().size());
+        assertEquals(kept.getId(), result.getScheduled().get(0).getTaskId());
+        assertEquals(null, manager.getTask(deleted.getId()));
+        assertEquals(1, manager.getTaskCount());
+    }
+
+    @Test
+    void movedTaskKeepsItsCurrentFields() {
+        ScheduleManager manager = new ScheduleManager();
+        Task task = manager.addTask("Draft", LocalTime.of(15, 0), LocalTime.of(16, 0), TODAY.plusDays(1), false);
+        List<AutoScheduler.Item> items = List.of(AutoScheduler.Item.of(task));
+        manager.updateTask(task.getId(), "Final draft", "HIGH");
+        manager.updateTaskStatus(task.getId(), Task.TaskStatus.COMPLETED);
+
+        AutoScheduler.Result result = scheduler(TODAY.plusDays(1), TODAY.plusDays(1), at(LocalTime.of(7, 0)))
+            .schedule(manager, items, true);
+
+        assertTrue(result.getNotFound().isEmpty());
+        Task moved = manager.getTask(task.getId());
+        assertEquals(LocalTime.of(8, 0), moved.getStartTime());
+        assertEquals("Final draft", moved.getDescription());
+        assertEquals(Task.TaskStatus.COMPLETED, moved.getStatus());
+        assertEquals(Task.Priority.HIGH, AutoScheduler.Item.of(moved).getPriority());
+    }
+
+    @Test
+    void previewDoesNotTakeTheManagersLock() throws Exception {
+        ScheduleManager manager = new ScheduleManager();
+        List<AutoScheduler.Item> items = List.of(new AutoScheduler.Item("Review", 30, Task.Priority.HIGH));
+        AutoScheduler scheduler = scheduler(TODAY, TODAY.plusDays(1), at(LocalTime.of(9, 0)));
+
+        //a writer holds the lock while the preview runs on another thread
+        AutoScheduler.Result[] preview = new AutoScheduler.Result[1];
+        Thread previewer = new Thread(() -> preview[0] = scheduler.schedule(manager, items, false));
+        synchronized (manager) {
+            previewer.start();
+            previewer.join(5_000);
+            assertFalse(previewer.isAlive(), "preview waited for the manager's lock");
+        }
+
+        assertFalse(preview[0].isApplied());
+        assertEquals(1, preview[0].getScheduled().size());
+        assertEquals(0, manager.getTaskCount());
+    }
+}
@@ -0,0 +1,201 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import backend.objects.Task;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+//DayOccupancy's bitmap and the free slot search ScheduleManager runs on it
+class DayOccupancyTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+    private static final int MINUTES = DayOccupancy.MINUTES_PER_DAY;
+
+    private static Task task(LocalTime start, LocalTime end) {
+        return new Task("t", start, end, DAY);
+    }
+
+    private static Task task(int startMinute, int endMinute) {
+        return task(LocalTime.MIN.plusMinutes(startMinute), LocalTime.MIN.plusMinutes(endMinute));
+    }
+
+    private static String slots(List<FreeSlot> slots) {
+        StringBuilder sb = new StringBuilder();
+        for (FreeSlot slot : slots) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(slot.getDate().getDayOfMonth()).append('@').append(slot.getStart()).append('-').append(slot.getEnd());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void partialMinutesCountAsBusy() {
+        DayOccupancy day = DayOccupancy.of(List.of(task(LocalTime.of(9, 0, 30), LocalTime.of(10, 0, 30))));
+
+        assertFalse(day.isBusy(539));
+        assertTrue(day.isBusy(540)); //9:00, the task starts half way through it
+        assertTrue(day.isBusy(600)); //10:00, the task ends half way through it
+        assertFalse(day.isBusy(601));
+        assertEquals(540, DayOccupancy.startMinute(LocalTime.of(9, 0, 30)));
+        assertEquals(601, DayOccupancy.endMinute(LocalTime.of(10, 0, 30)));
+        assertEquals(600, DayOccupancy.endMinute(LocalTime.of(10, 0)));
+    }
+
+    @Test
+    void searchesAcrossWordBoundaries() {
+        //63-65 straddles the first and second word, 1400-1440 runs to the end of the last one
+        DayOccupancy day = DayOccupancy.of(List.of(task(63, 65), task(128, 192), task(1400, 1439)));
+
+        assertEquals(63, day.nextBusy(0, MINUTES));
+        assertEquals(65, day.nextFree(63, MINUTES));
+        assertEquals(128, day.nextBusy(65, MINUTES));
+        assertEquals(192, day.nextFree(128, MINUTES));
+        assertEquals(1400, day.nextBusy(192, MINUTES));
+        assertEquals(1439, day.nextFree(1400, MINUTES));
+        assertEquals(MINUTES, day.nextBusy(1439, MINUTES));
+    }
+
+    @Test
+    void searchStopsAtTheLimit() {
+        DayOccupancy day = DayOccupancy.of(List.of(task(0, 600)));
+
+        assertEquals(-1, day.nextFree(0, 600), "the first free minute is outside [0, 600)");
+        assertEquals(600, day.nextFree(0, 601));
+        assertEquals(700, day.nextBusy(600, 700), "no busy minute before the limit gives the limit");
+        assertEquals(-1, day.nextFree(10, 10));
+        assertEquals(-1, DayOccupancy.of(List.of(task(0, MINUTES - 1), task(LocalTime.of(23, 59), LocalTime.MAX)))
+            .nextFree(0, MINUTES), "a full day has no free minute");
+    }
+
+    @Test
+    void withLeavesTheOriginalAlone() {
+        DayOccupancy before = DayOccupancy.EMPTY;
+        DayOccupancy after = before.with(task(60, 120));
+
+        assertTrue(after.isBusy(60));
+        assertFalse(before.isBusy(60));
+        assertEquals(0, DayOccupancy.EMPTY.nextFree(0, MINUTES));
+    }
+
+    @Test
+    void matchesAMinuteByMinuteScan() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            List<Task> tasks = new ArrayList<>();
+            boolean[] busy = new boolean[MINUTES];
+            for (int i = random.nextInt(12); i > 0; i--) {
+                int start = random.nextInt(MINUTES - 1);
+                int end = start + 1 + random.nextInt(Math.min(180, MINUTES - 1 - start));
+                tasks.add(task(start, end));
+                for (int m = start; m < end; m++) {
+                    busy[m] = true;
+                }
+            }
+            DayOccupancy day = DayOccupancy.of(tasks);
+            for (int m = 0; m < MINUTES; m++) {
+                assertEquals(busy[m], day.isBusy(m), "minute " + m);
+            }
+            for (int probe = 0; probe < 50; probe++) {
+                int from = random.nextInt(MINUTES);
+                int to = from + random.nextInt(MINUTES - from + 1);
+                int free = -1;
+                int nextBusy = to;
+                for (int m = to - 1; m >= from; m--) {
+                    if (busy[m]) {
+                        nextBusy = m;
+                    } else {
+                        free = m;
+                    }
+                }
+                assertEquals(free, day.nextFree(from, to), "nextFree(" + from + ", " + to + ")");
+                assertEquals(nextBusy, day.nextBusy(from, to), "nextBusy(" + from + ", " + to + ")");
+            }
+        }
+    }
+
+    @Test
+    void freeSlotsAreClippedToTheWindow() {
+        ScheduleManager manager = new ScheduleManager();
+        manager.addTask("Early", LocalTime.of(7, 0), LocalTime.of(9, 30), DAY, false, null); //starts before the window
+        manager.addTask("Lunch", LocalTime.of(12, 0), LocalTime.of(13, 0), DAY, false, null);
+        manager.addTask("Late", LocalTime.of(17, 0), LocalTime.of(19, 0), DAY, false, null); //ends at the window end
+
+        List<FreeSlot> slots = manager.findFreeSlots(DAY, DAY, 30, LocalTime.of(8, 0), LocalTime.of(17, 0), 10);
+
+        assertEquals("10@09:30-12:00 10@13:00-17:00", slots(slots));
+        assertEquals(150, slots.get(0).getDurationMinutes());
+    }
+
+    @Test
+    void gapsShorterThanTheDurationAreSkipped() {
+        ScheduleManager manager = new ScheduleManager();
+        manager.addTask("A", LocalTime.of(9, 0), LocalTime.of(10, 0), DAY, false, null);
+        manager.addTask("B", LocalTime.of(10, 29), LocalTime.of(11, 0), DAY, false, null); //leaves 29 minutes
+        manager.addTask("C", LocalTime.of(11, 30), LocalTime.of(12, 0), DAY, false, null); //leaves exactly 30
+
+        List<FreeSlot> slots = manager.findFreeSlots(DAY, DAY, 30, LocalTime.of(9, 0), LocalTime.of(12, 0), 10);
+
+        assertEquals("10@11:00-11:30", slots(slots));
+    }
+
+    @Test
+    void windowEndsAt2359AtTheLatest() {
+        ScheduleManager manager = new ScheduleManager();
+
+        List<FreeSlot> slots = manager.findFreeSlots(DAY, DAY, 60, LocalTime.of(23, 0), LocalTime.MAX, 10);
+
+        assertEquals("", slots(slots), "23:00-23:59 is one minute short of an hour");
+        assertEquals("10@23:00-23:59",
+            slots(manager.findFreeSlots(DAY, DAY, 59, LocalTime.of(23, 0), LocalTime.MAX, 10)));
+        //a window start with seconds only begins at the next whole minute
+        assertEquals("10@00:01-01:00",
+            slots(manager.findFreeSlots(DAY, DAY, 15, LocalTime.of(0, 0, 30), LocalTime.of(1, 0), 10)));
+    }
+
+    @Test
+    void rangeIsSearchedDayByDayUpToTheLimit() {
+        ScheduleManager manager = new ScheduleManager();
+        manager.addTask("Busy", LocalTime.of(8, 0), LocalTime.of(20, 0), DAY.plusDays(1), false, null);
+
+        List<FreeSlot> slots = manager.findFreeSlots(DAY, DAY.plusDays(2), 60, LocalTime.of(8, 0), LocalTime.of(20, 0), 10);
+        assertEquals("10@08:00-20:00 12@08:00-20:00", slots(slots));
+
+        assertEquals("10@08:00-20:00",
+            slots(manager.findFreeSlots(DAY, DAY.plusDays(2), 60, LocalTime.of(8, 0), LocalTime.of(20, 0), 1)));
+    }
+
+    @Test
+    void removingATaskFreesItsMinutes() {
+        ScheduleManager manager = new ScheduleManager();
+        Task task = manager.addTask("Gone", LocalTime.of(9, 0), LocalTime.of(10, 0), DAY, false, null);
+        manager.addTask("Stays", LocalTime.of(9, 30), LocalTime.of(10, 30), DAY, true, null); //overlapping
+
+        manager.removeTask(task.getId());
+
+        assertEquals("10@08:00-09:30 10@10:30-12:00",
+            slots(manager.findFreeSlots(DAY, DAY, 30, LocalTime.of(8, 0), LocalTime.of(12, 0), 10)));
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        ScheduleManager manager = new ScheduleManager();
+        assertThrows(IllegalArgumentException.class,
+            () -> manager.findFreeSlots(DAY, DAY, 0, LocalTime.of(8, 0), LocalTime.of(9, 0), 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> manager.findFreeSlots(DAY.plusDays(1), DAY, 30, LocalTime.of(8, 0), LocalTime.of(9, 0), 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> manager.findFreeSlots(DAY, DAY, 30, LocalTime.of(9, 0), LocalTime.of(9, 0), 10));
+        //08:59:30 rounds up to 09:00, so the window is empty
+        assertThrows(IllegalArgumentException.class,
+            () -> manager.findFreeSlots(DAY, DAY, 30, LocalTime.of(8, 59, 30), LocalTime.of(9, 0), 10));
+    }
+}
@@ -0,0 +1,275 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    private File base() {
+        return dir.resolve("tasks.journal").toFile();
+    }
+
+    private static byte[] record(int n) {
+        return ("{\"op\":\"update\",\"id\":\"t" + n + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> replayIds(File base) throws IOException {
+        List<String> ids = new ArrayList<>();
+        Journal.replay(base, record -> ids.add(record.get("id")));
+        return ids;
+    }
+
+    @Test
+    void tornLastLineEndsItsSegment() throws IOException {
+        Files.writeString(dir.resolve("tasks.journal.1"),
+            "{\"op\":\"update\",\"id\":\"a\"}\n{\"op\":\"delete\",\"id\":\"b\"}\n{\"op\":\"upd", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("tasks.journal.2"), "{\"op\":\"update\",\"id\":\"c\"}\n", StandardCharsets.UTF_8);
+
+        List<Map<String, String>> records = new ArrayList<>();
+        int replayed = Journal.replay(base(), records::add);
+
+        assertEquals(3, replayed);
+        assertEquals(List.of("a", "b", "c"), records.stream().map(r -> r.get("id")).toList());
+        assertEquals("delete", records.get(1).get("op"));
+    }
+
+    @Test
+    void newJournalAppendsAfterExistingSegments() throws IOException {
+        Files.writeString(dir.resolve("tasks.journal.3"), "{\"op\":\"update\",\"id\":\"old\"}\n", StandardCharsets.UTF_8);
+        try (Journal journal = new Journal(base())) {
+            journal.append(record(1));
+        }
+        assertEquals(List.of("old", "t1"), replayIds(base()));
+        assertTrue(Files.exists(dir.resolve("tasks.journal.4")));
+    }
+
+    @Test
+    void failedWriteIsTruncatedAndRequeued() throws IOException {
+        List<ControlledChannel> opened = new ArrayList<>();
+        Journal journal = new Journal(base(), path -> {
+            ControlledChannel channel = new ControlledChannel(path);
+            opened.add(channel);
+            return channel;
+        });
+        Path segment = dir.resolve("tasks.journal.1");
+        journal.append(record(1));
+        journal.flush();
+        long durableSize = Files.size(segment);
+
+        //the next batch gets half written before the disk fails
+        journal.append(record(2));
+        journal.append(record(3));
+        opened.get(0).failAfterBytes = 10;
+        assertThrows(IOException.class, journal::flush);
+        assertEquals(durableSize, Files.size(segment), "partly written batch was left in the file");
+
+        //the failed records go out ahead of the ones appended since, each exactly once
+        journal.append(record(4));
+        journal.flush();
+        journal.close();
+        assertEquals(List.of("t1", "t2", "t3", "t4"), replayIds(base()));
+    }
+
+    @Test
+    void flushRacingRotateFinishesInTheOldSegment() throws Exception {
+        List<ControlledChannel> opened = new ArrayList<>();
+        Journal journal = new Journal(base(), path -> {
+            ControlledChannel channel = new ControlledChannel(path);
+            synchronized (opened) {
+                opened.add(channel);
+            }
+            return channel;
+        });
+        ControlledChannel first = opened.get(0);
+        first.blockWrites = new CountDownLatch(1);
+
+        journal.append(record(1));
+        Thread flusher = new Thread(() -> {
+            try {
+                journal.flush();
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+        flusher.start();
+        assertTrue(first.writing.await(5, TimeUnit.SECONDS), "flush never started writing");
+
+        //the cut happens while the batch is still on its way to segment 1
+        journal.append(record(2));
+        long covered = journal.rotate();
+        assertEquals(1, covered);
+        assertTrue(first.isOpen(), "rotate closed the channel a flush was writing to");
+
+        first.blockWrites.countDown();
+        flusher.join(5_000);
+        assertFalse(flusher.isAlive());
+        assertFalse(first.isOpen(), "the flush left the rotated segment open");
+
+        journal.append(record(3));
+        journal.flush();
+        journal.close();
+
+        assertEquals(List.of("t1"), replayIds(dir.resolve("tasks.journal.1").toFile()));
+        assertEquals(List.of("t1", "t2", "t3"), replayIds(base()));
+
+        //a snapshot taken at the cut covers segment 1, so only it goes
+        journal.deleteSegments(covered);
+        assertEquals(List.of("t2", "t3"), replayIds(base()));
+    }
+
+    @Test
+    void sizeAndAgeRestartAtRotate() throws IOException {
+        try (Journal journal = new Journal(base())) {
+            assertEquals(0, journal.size());
+            assertEquals(0, journal.ageMillis());
+            journal.append(record(1));
+            assertEquals(record(1).length + 1, journal.size());
+            journal.flush();
+            journal.rotate();
+            assertEquals(0, journal.size());
+            assertEquals(0, journal.ageMillis());
+        }
+    }
+
+    //a real segment file whose writes can be made to stall or fail part way
+    private static final class ControlledChannel extends FileChannel {
+        private final FileChannel file;
+        final CountDownLatch writing = new CountDownLatch(1);
+        volatile CountDownLatch blockWrites; //writes wait for it when set
+        volatile int failAfterBytes = -1; //the next write stores this many bytes, then fails
+
+        ControlledChannel(Path path) throws IOException {
+            this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            writing.countDown();
+            CountDownLatch block = blockWrites;
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted");
+                }
+            }
+            int fail = failAfterBytes;
+            if (fail >= 0) {
+                failAfterBytes = -1;
+                ByteBuffer part = src.duplicate();
+                part.limit(part.position() + Math.min(fail, part.remaining()));
+                src.position(src.position() + file.write(part));
+                throw new IOException("disk full");
+            }
+            return file.write(src);
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            file.force(metaData);
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import backend.objects.Note;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonReaderTest {
+
+    //the reader's buffer holds 1024 chars; these strings all cross at least one refill
+    private static String text(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void stringCrossingTheBufferKeepsEveryCharacter() throws IOException {
+        //move the refill across every position near the start of the second string
+        for (int pad = 1000; pad < 1030; pad++) {
+            String first = text(pad);
+            String second = text(40);
+            Map<String, String> fields = JsonReader.readFlatObject(
+                "{\"a\":\"" + first + "\",\"b\":\"" + second + "\"}");
+            assertEquals(first, fields.get("a"), "pad " + pad);
+            assertEquals(second, fields.get("b"), "pad " + pad);
+        }
+    }
+
+    @Test
+    void stringSpanningSeveralRefills() throws IOException {
+        String value = text(5000);
+        assertEquals(value, JsonReader.readFlatObject("{\"v\":\"" + value + "\"}").get("v"));
+    }
+
+    @Test
+    void escapeRightAfterARefill() throws IOException {
+        for (int pad = 1015; pad < 1025; pad++) {
+            String before = text(pad);
+            String json = "{\"v\":\"" + before + "\\\"\\u00e9\\n\"}";
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.beginObject();
+            assertEquals("v", reader.nextName());
+            assertEquals(before + "\"\u00e9\n", reader.nextString(), "pad " + pad);
+            reader.endObject();
+            reader.endDocument();
+        }
+    }
+
+    @Test
+    void notesFileOverOneKilobyteLoadsIntact(@TempDir Path dir) throws IOException {
+        NoteManager notes = new NoteManager();
+        for (int i = 0; i < 50; i++) {
+            notes.addNote("Note " + i + ": " + text(37 + i));
+        }
+        File file = dir.resolve("notes.json").toFile();
+        NotePersistence.saveNotes(notes, file);
+        assertTrue(Files.size(file.toPath()) > 4 * 1024);
+
+        NoteManager loaded = new NoteManager();
+        NotePersistence.loadNotes(loaded, file);
+        List<Note> expected = notes.getAllNotes();
+        List<Note> actual = loaded.getAllNotes();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getContent(), actual.get(i).getContent());
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import backend.objects.Task;
+import backend.webserver.TaskHandlers;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//many writers change one ScheduleManager (adds, updates, deletes, saves, a contested slot) while
+//readers poll the lock-free views. afterwards the manager, its status/priority indexes, the
+//listener events and the saved file must all agree with what the writers were told succeeded.
+//once against the manager directly, once through TaskHandlers over HTTP
+class ScheduleManagerConcurrencyTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final int WRITERS = 4;
+    private static final int READERS = 2;
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+
+    //what one writer believes it did to one of its tasks
+    private static final class Expected {
+        Task.TaskStatus status = Task.TaskStatus.PENDING;
+        String priority = "MEDIUM";
+        String description;
+
+        Expected(String description) {
+            this.description = description;
+        }
+    }
+
+    //something a writer or reader saw go wrong while the threads ran
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Expected> expected = new ConcurrentHashMap<>();
+    private final AtomicInteger contestedWins = new AtomicInteger();
+    private final AtomicInteger creates = new AtomicInteger();
+    private final AtomicInteger deletes = new AtomicInteger();
+    private ScheduleManager manager;
+
+    private interface Writer {
+        void run(int writer) throws Exception;
+    }
+
+    @BeforeEach
+    void setUp() {
+        manager = new ScheduleManager();
+        manager.addListener((type, task) -> {
+            if (type.equals("create")) {
+                creates.incrementAndGet();
+            } else if (type.equals("delete")) {
+                deletes.incrementAndGet();
+            }
+        });
+    }
+
+    @Test
+    void parallelManagerWritesLoseNoUpdates(@TempDir Path dir) throws Exception {
+        int tasksPerWriter = 600;
+        int days = 7;
+        File saveFile = dir.resolve("tasks.json").toFile();
+
+        run(days, writer -> {
+            List<String> mine = new ArrayList<>();
+            for (int i = 0; i < tasksPerWriter; i++) {
+                //POST: every writer gets its own minutes, interleaved with the others' on the same
+                //days, so none of these may conflict
+                LocalDate date = FIRST_DAY.plusDays(i % days);
+                LocalTime start = LocalTime.MIN.plusMinutes((long) (i / days) * WRITERS + writer);
+                String description = "w" + writer + " #" + i;
+                Task added = manager.addTask(new Task(description, start, start.plusMinutes(1), date));
+                if (added == null) {
+                    failures.add("unexpected conflict for " + description);
+                } else {
+                    expected.put(added.getId(), new Expected(description));
+                    mine.add(added.getId());
+                }
+
+                //contested POST: everyone races for 23:00 on the same earlier day; one wins
+                if (i % 50 == 0) {
+                    LocalDate contested = FIRST_DAY.minusDays(1 + i / 50);
+                    Task won = manager.addTask("contested " + i, LocalTime.of(23, 0), LocalTime.of(23, 30),
+                        contested, false);
+                    if (won != null) {
+                        contestedWins.incrementAndGet();
+                        expected.put(won.getId(), new Expected("contested " + i));
+                    }
+                }
+
+                //PUT: status, priority and description of one of our own live tasks
+                if (!mine.isEmpty()) {
+                    String id = mine.get((i * 7) % mine.size());
+                    Expected e = expected.get(id);
+                    Task.TaskStatus status = Task.TaskStatus.values()[i % Task.TaskStatus.values().length];
+                    if (!manager.updateTaskStatus(id, status)) {
+                        failures.add("status update lost its task " + id);
+                    }
+                    e.status = status;
+                    String priority = PRIORITIES[i % PRIORITIES.length];
+                    if (!manager.updateTask(id, e.description + "'", priority)) {
+                        failures.add("update lost its task " + id);
+                    }
+                    e.priority = priority;
+                    e.description += "'";
+                }
+
+                //DELETE every third task we own
+                if (i % 3 == 2 && !mine.isEmpty()) {
+                    String id = mine.remove(mine.size() - 1);
+                    if (!manager.removeTask(id)) {
+                        failures.add("delete lost its task " + id);
+                    }
+                    expected.remove(id);
+                }
+
+                if (i % 100 == 0) {
+                    TaskPersistence.saveTasks(manager, saveFile);
+                }
+            }
+        });
+
+        TaskPersistence.saveTasks(manager, saveFile);
+        verify(saveFile);
+    }
+
+    //the same shape of traffic as real requests: POST /api/tasks, PUT and DELETE /api/tasks/{id},
+    //each handler saving through TaskPersistence.saveTasks (a whole-file save into the working
+    //directory, target/test-work under Maven)
+    @Test
+    void parallelRequestsThroughTaskHandlersLoseNoUpdates() throws Exception {
+        //never run against the real tasks.json
+        assumeTrue(Paths.get("").toAbsolutePath().endsWith("test-work"), "run through Maven");
+        TaskPersistence.clearSavedTasks();
+        int tasksPerWriter = 30;
+        int slotsPerDay = 95; //15 minute tasks from 00:00, the last one ending at 23:45
+        int days = (WRITERS * tasksPerWriter + slotsPerDay - 1) / slotsPerDay;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/tasks", new TaskHandlers.TasksHandler(manager));
+        server.createContext("/api/tasks/", new TaskHandlers.TaskHandler(manager));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.start();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/tasks";
+        try {
+            run(days, writer -> {
+                List<String> mine = new ArrayList<>();
+                for (int i = 0; i < tasksPerWriter; i++) {
+                    int slot = i * WRITERS + writer;
+                    LocalTime start = LocalTime.MIN.plusMinutes(15L * (slot % slotsPerDay));
+                    String description = "w" + writer + " #" + i;
+                    HttpResponse<String> created = send(client, "POST", base,
+                        taskBody(description, FIRST_DAY.plusDays(slot / slotsPerDay), start));
+                    if (created.statusCode() != 201) {
+                        failures.add("POST " + description + " got " + created.statusCode() + " " + created.body());
+                    } else {
+                        String id = JsonReader.readFlatObject(created.body()).get("id");
+                        expected.put(id, new Expected(description));
+                        mine.add(id);
+                    }
+
+                    if (i % 5 == 0) {
+                        LocalDate contested = FIRST_DAY.minusDays(1 + i / 5);
+                        String name = "contested " + i;
+                        HttpResponse<String> won = send(client, "POST", base,
+                            taskBody(name, contested, LocalTime.of(23, 0)));
+                        if (won.statusCode() == 201) {
+                            contestedWins.incrementAndGet();
+                            expected.put(JsonReader.readFlatObject(won.body()).get("id"), new Expected(name));
+                        } else if (won.statusCode() != 409) {
+                            failures.add("contested POST got " + won.statusCode() + " " + won.body());
+                        }
+                    }
+
+                    if (!mine.isEmpty()) {
+                        String id = mine.get((i * 7) % mine.size());
+                        Expected e = expected.get(id);
+                        Task.TaskStatus status = Task.TaskStatus.values()[i % Task.TaskStatus.values().length];
+                        String priority = PRIORITIES[i % PRIORITIES.length];
+                        String body = "{\"status\":\"" + status + "\",\"description\":\"" + e.description
+                            + "'\",\"priority\":\"" + priority + "\"}";
+                        HttpResponse<String> updated = send(client, "PUT", base + "/" + id, body);
+                        if (updated.statusCode() != 200) {
+                            failures.add("PUT " + id + " got " + updated.statusCode() + " " + updated.body());
+                        }
+                        e.status = status;
+                        e.priority = priority;
+                        e.description += "'";
+                    }
+
+                    if (i % 3 == 2 && !mine.isEmpty()) {
+                        String id = mine.remove(mine.size() - 1);
+                        HttpResponse<String> deleted = send(client, "DELETE", base + "/" + id, null);
+                        if (deleted.statusCode() != 200) {
+                            failures.add("DELETE " + id + " got " + deleted.statusCode() + " " + deleted.body());
+                        }
+                        expected.remove(id);
+                    }
+                }
+            });
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+
+        //every handler saved after its change, so the last save has all of them
+        try {
+            verify(new File("tasks.json"));
+        } finally {
+            TaskPersistence.clearSavedTasks();
+        }
+    }
+
+    //starts the writers and the readers together and waits for the writers to finish
+    private void run(int days, Writer body) throws InterruptedException {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger readPasses = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                await(start);
+                try {
+                    body.run(writer);
+                } catch (Exception e) {
+                    failures.add("writer " + writer + " threw " + e);
+                }
+            }, "writer-" + w);
+            writers.add(thread);
+            threads.add(thread);
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                while (writing.get()) {
+                    read(days);
+                    readPasses.incrementAndGet();
+                }
+            }, "reader-" + r));
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> failures.add(t.getName() + " threw " + e));
+            thread.start();
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(readPasses.get() > 0, "the readers never ran");
+    }
+
+    //every view must be internally consistent even while writers run
+    private void read(int days) {
+        for (int d = 0; d < days; d++) {
+            LocalDate date = FIRST_DAY.plusDays(d);
+            checkOrdered("getTasksForDate", manager.getTasksForDate(date), date);
+        }
+        checkOrdered("getAllTasks", manager.getAllTasks(), null);
+        checkOrdered("getTasks", manager.getTasks(FIRST_DAY, FIRST_DAY.plusDays(6), null, null), null);
+        checkOrdered("getTasks(HIGH)", manager.getTasks(null, null, null, Task.Priority.HIGH), null);
+        checkOrdered("getTasks(COMPLETED)", manager.getTasks(null, null, Task.TaskStatus.COMPLETED, null), null);
+    }
+
+    private void checkOrdered(String view, List<Task> tasks, LocalDate date) {
+        Set<String> seen = new HashSet<>();
+        Task previous = null;
+        for (Task task : tasks) {
+            if (!seen.add(task.getId())) {
+                failures.add(view + " listed " + task.getId() + " twice");
+            }
+            if (date != null && !task.getDate().equals(date)) {
+                failures.add(view + " returned a task from " + task.getDate() + " for " + date);
+            }
+            if (previous != null) {
+                int cmp = previous.getDate().compareTo(task.getDate());
+                if (cmp > 0 || (cmp == 0 && previous.getStartTime().isAfter(task.getStartTime()))) {
+                    failures.add(view + " out of order at " + task.getId());
+                }
+            }
+            previous = task;
+        }
+    }
+
+    private void verify(File saveFile) {
+        assertEquals(List.of(), failures.subList(0, Math.min(20, failures.size())));
+
+        //exactly one writer won each contested slot
+        Map<LocalDate, Integer> perContestedDay = new HashMap<>();
+        for (Task task : manager.getAllTasks()) {
+            if (task.getDescription().startsWith("contested")) {
+                perContestedDay.merge(task.getDate(), 1, Integer::sum);
+            }
+        }
+        perContestedDay.forEach((date, n) -> assertEquals(1, n, "tasks in the contested slot on " + date));
+        assertEquals(contestedWins.get(), perContestedDay.size(), "contested wins");
+
+        //primary views: no lost task and no lost update
+        assertEquals(expected.size(), manager.getTaskCount());
+        assertEquals(expected.size(), manager.getAllTasks().size());
+        for (Map.Entry<String, Expected> entry : expected.entrySet()) {
+            Task task = manager.getTask(entry.getKey());
+            Expected e = entry.getValue();
+            assertNotNull(task, "lost task " + entry.getKey());
+            assertEquals(e.status, task.getStatus(), "status of " + task);
+            assertEquals(e.priority, task.getPriority(), "priority of " + task);
+            assertEquals(e.description, task.getDescription(), "description of " + task);
+        }
+
+        //the status and priority indexes hold exactly the tasks with that status / priority
+        int byStatus = 0;
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            for (Task task : manager.getTasks(null, null, status, null)) {
+                byStatus++;
+                assertEquals(status, expected.get(task.getId()).status, "status index " + status + " has " + task);
+            }
+        }
+        assertEquals(expected.size(), byStatus, "tasks in the status indexes");
+        int byPriority = 0;
+        for (Task.Priority priority : Task.Priority.values()) {
+            for (Task task : manager.getTasks(null, null, null, priority)) {
+                byPriority++;
+                assertEquals(priority.name(), expected.get(task.getId()).priority,
+                    "priority index " + priority + " has " + task);
+            }
+        }
+        assertEquals(expected.size(), byPriority, "tasks in the priority indexes");
+
+        //listeners saw every create and delete exactly once
+        assertEquals(expected.size(), creates.get() - deletes.get(), "creates - deletes seen by the listener");
+
+        //the saved file holds the same tasks with the same fields
+        ScheduleManager loaded = new ScheduleManager();
+        TaskPersistence.loadTasks(loaded, saveFile);
+        assertEquals(expected.size(), loaded.getTaskCount(), "tasks in " + saveFile);
+        for (Map.Entry<String, Expected> entry : expected.entrySet()) {
+            Task task = loaded.getTask(entry.getKey());
+            assertNotNull(task, "saved file lost " + entry.getKey());
+            assertEquals(entry.getValue().status, task.getStatus(), "saved status of " + task);
+            assertEquals(entry.getValue().priority, task.getPriority(), "saved priority of " + task);
+            assertEquals(entry.getValue().description, task.getDescription(), "saved description of " + task);
+        }
+    }
+
+    private static String taskBody(String description, LocalDate date, LocalTime start) {
+        return "{\"description\":\"" + description + "\",\"startTime\":\"" + start + "\",\"endTime\":\""
+            + start.plusMinutes(15) + "\",\"date\":\"" + date + "\"}";
+    }
+
+    private static HttpResponse<String> send(HttpClient client, String method, String uri, String body)
+            throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri));
+        request.method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+class ScheduleManagerTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Test
+    void conflictingAddIsRejected() {
+        ScheduleManager manager = new ScheduleManager();
+        assertNotNull(manager.addTask("First", LocalTime.of(9, 0), LocalTime.of(10, 0), DAY, false, "HIGH"));
+        assertNull(manager.addTask("Second", LocalTime.of(9, 30), LocalTime.of(10, 30), DAY, false, "HIGH"));
+        assertNotNull(manager.addTask("Third", LocalTime.of(10, 0), LocalTime.of(10, 30), DAY, false, "LOW"));
+        assertEquals(2, manager.getTaskCount());
+    }
+
+    @Test
+    void rejectedAddAllocatesNothing() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+
+        ScheduleManager manager = new ScheduleManager();
+        LocalTime start = LocalTime.of(9, 0);
+        LocalTime end = LocalTime.of(10, 0);
+        manager.addTask("Busy", start, end, DAY, false, "HIGH");
+
+        int attempts = 100_000;
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < attempts; i++) {
+            manager.addTask("Conflict", start, end, DAY, false, "HIGH");
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        //a Task and its UUID string would be well over 100 bytes per attempt
+        assertTrue(allocated < attempts, allocated + " bytes for " + attempts + " rejected adds");
+        assertEquals(1, manager.getTaskCount());
+    }
+}
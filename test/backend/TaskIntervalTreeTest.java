@@ -0,0 +1,168 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import backend.objects.Task;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TaskIntervalTreeTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private static Task task(int startMinute, int endMinute) {
+        return new Task("t", LocalTime.MIN.plusMinutes(startMinute), LocalTime.MIN.plusMinutes(endMinute), DAY);
+    }
+
+    //what the tree must answer, by scanning every task
+    private static List<Task> overlappingByScan(List<Task> tasks, int startMinute, int endMinute) {
+        Task slot = task(startMinute, endMinute);
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.isOverlapping(slot)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private static void assertStartOrdered(List<Task> tasks) {
+        for (int i = 1; i < tasks.size(); i++) {
+            assertFalse(tasks.get(i - 1).getStartTime().isAfter(tasks.get(i).getStartTime()), "out of order at " + i);
+        }
+    }
+
+    private static void assertSameTasks(List<Task> expected, List<Task> actual) {
+        assertEquals(expected.size(), actual.size());
+        List<Task> remaining = new ArrayList<>(expected);
+        for (Task task : actual) {
+            assertTrue(remaining.removeIf(t -> t == task), "unexpected " + task);
+        }
+    }
+
+    @Test
+    void touchingIntervalsDontOverlap() {
+        TaskIntervalTree tree = new TaskIntervalTree();
+        tree.add(task(60, 120));
+
+        assertFalse(tree.overlapsAny(LocalTime.of(0, 0), LocalTime.of(1, 0)));
+        assertFalse(tree.overlapsAny(LocalTime.of(2, 0), LocalTime.of(3, 0)));
+        assertTrue(tree.overlapsAny(LocalTime.of(1, 59), LocalTime.of(3, 0)));
+        assertTrue(tree.overlapsAny(LocalTime.of(0, 0), LocalTime.of(1, 0, 1))); //seconds count
+        assertTrue(tree.overlapsAny(LocalTime.of(1, 10), LocalTime.of(1, 20)));
+        assertTrue(tree.overlapsAny(LocalTime.of(0, 0), LocalTime.of(23, 59)));
+    }
+
+    //a long task early in the day must still be found when the slot is late, even though many
+    //later starting tasks sit between it and the slot: that is what maxEnd is for
+    @Test
+    void longEarlyTaskIsFoundBehindShortLaterOnes() {
+        TaskIntervalTree tree = new TaskIntervalTree();
+        Task allDay = task(0, 23 * 60);
+        tree.add(allDay);
+        for (int m = 10; m < 22 * 60; m += 10) {
+            tree.add(task(m, m + 5));
+        }
+
+        assertEquals(List.of(allDay), tree.overlapping(LocalTime.of(22, 30), LocalTime.of(22, 45)));
+        assertTrue(tree.overlapsAny(LocalTime.of(22, 30), LocalTime.of(22, 45)));
+        assertTrue(tree.remove(allDay));
+        assertFalse(tree.overlapsAny(LocalTime.of(22, 30), LocalTime.of(22, 45)));
+    }
+
+    @Test
+    void identicalIntervalsAreKeptApartAndRemovedByIdentity() {
+        TaskIntervalTree tree = new TaskIntervalTree();
+        List<Task> same = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Task task = task(9 * 60, 10 * 60);
+            same.add(task);
+            tree.add(task);
+        }
+        assertEquals(200, tree.size());
+        assertSameTasks(same, tree.toList());
+
+        Collections.shuffle(same, new Random(7));
+        for (int i = 0; i < same.size(); i++) {
+            Task task = same.get(i);
+            assertTrue(tree.remove(task), "lost task " + i);
+            assertFalse(tree.remove(task), "removed task " + i + " twice");
+            assertEquals(same.size() - i - 1, tree.size());
+            assertSameTasks(same.subList(i + 1, same.size()), tree.toList());
+        }
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void removingAnEqualButDifferentTaskDoesNothing() {
+        TaskIntervalTree tree = new TaskIntervalTree();
+        Task stored = task(60, 120);
+        tree.add(stored);
+
+        assertFalse(tree.remove(task(60, 120)));
+        assertEquals(List.of(stored), tree.toList());
+    }
+
+    @Test
+    void snapshotIsUnmodifiableAndRebuiltAfterChanges() {
+        TaskIntervalTree tree = new TaskIntervalTree();
+        Task first = task(60, 120);
+        tree.add(first);
+        List<Task> before = tree.toList();
+        assertEquals(before, tree.toList());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(first));
+
+        Task second = task(0, 30);
+        tree.add(second);
+        assertEquals(List.of(second, first), tree.toList());
+        assertEquals(List.of(first), before, "an old snapshot changed");
+    }
+
+    //random adds and removes (lots of equal starts and nested intervals, so the tree rotates in
+    //every way) checked against a plain scan after each step
+    @Test
+    void matchesAScanUnderRandomAddsAndRemoves() {
+        Random random = new Random(42);
+        TaskIntervalTree tree = new TaskIntervalTree();
+        List<Task> tasks = new ArrayList<>();
+        for (int step = 0; step < 3_000; step++) {
+            if (tasks.isEmpty() || random.nextInt(3) != 0) {
+                int start = random.nextInt(24 * 60 - 1);
+                int end = start + 1 + random.nextInt(Math.min(240, 24 * 60 - 1 - start));
+                Task task = task(start, end);
+                tasks.add(task);
+                tree.add(task);
+            } else {
+                Task task = tasks.remove(random.nextInt(tasks.size()));
+                assertTrue(tree.remove(task));
+            }
+            assertEquals(tasks.size(), tree.size());
+
+            int start = random.nextInt(24 * 60 - 1);
+            int end = start + 1 + random.nextInt(24 * 60 - 1 - start);
+            List<Task> expected = overlappingByScan(tasks, start, end);
+            List<Task> actual = tree.overlapping(LocalTime.MIN.plusMinutes(start), LocalTime.MIN.plusMinutes(end));
+            assertSameTasks(expected, actual);
+            assertStartOrdered(actual);
+            assertEquals(!expected.isEmpty(),
+                tree.overlapsAny(LocalTime.MIN.plusMinutes(start), LocalTime.MIN.plusMinutes(end)));
+        }
+
+        List<Task> all = tree.toList();
+        assertSameTasks(tasks, all);
+        List<Task> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getEndTime));
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(sorted.get(i).getStartTime(), all.get(i).getStartTime());
+            assertEquals(sorted.get(i).getEndTime(), all.get(i).getEndTime());
+        }
+    }
+}
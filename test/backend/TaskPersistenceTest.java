@@ -0,0 +1,164 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import backend.objects.Task;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+//TaskPersistence keeps tasks.json and tasks.journal.N in the working directory, which Maven points
+//at target/test-work
+class TaskPersistenceTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+    private static final File SNAPSHOT = new File("tasks.json");
+    private static final File JOURNAL = new File("tasks.journal");
+
+    @BeforeEach
+    void setUp() throws IOException {
+        //never run against the real data files
+        assumeTrue(Paths.get("").toAbsolutePath().endsWith("test-work"), "run through Maven");
+        clean();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        TaskPersistence.closeJournal();
+        clean();
+    }
+
+    private static void clean() throws IOException {
+        TaskPersistence.clearSavedTasks();
+        Files.deleteIfExists(Paths.get("tasks.json.tmp"));
+        Journal.deleteAll(JOURNAL);
+    }
+
+    //adds, updates and deletes with the journal open, and returns the manager's final tasks
+    private static List<Task> journaledChanges(ScheduleManager manager) throws IOException {
+        TaskPersistence.openJournal(manager);
+        Task keep = manager.addTask("Keep", LocalTime.of(9, 0), LocalTime.of(10, 0), DAY, false, "HIGH");
+        Task drop = manager.addTask("Drop", LocalTime.of(10, 0), LocalTime.of(11, 0), DAY, false, "LOW");
+        manager.addTask("Other day", LocalTime.of(9, 0), LocalTime.of(9, 30), DAY.plusDays(1), false, null);
+        manager.updateTaskStatus(keep.getId(), Task.TaskStatus.COMPLETED);
+        manager.updateTask(keep.getId(), "Keep (renamed)", "MEDIUM");
+        manager.removeTask(drop.getId());
+        TaskPersistence.saveTasks(manager);
+        TaskPersistence.closeJournal();
+        return manager.getAllTasks();
+    }
+
+    private static void assertSameTasks(List<Task> expected, ScheduleManager actual) {
+        assertEquals(expected.size(), actual.getTaskCount());
+        for (Task task : expected) {
+            Task loaded = actual.getTask(task.getId());
+            assertNotNull(loaded, "missing " + task);
+            assertEquals(task.toString(), loaded.toString());
+            assertEquals(task.getDate(), loaded.getDate());
+        }
+    }
+
+    @Test
+    void startupFoldsTheJournalIntoTasksJsonAndDeletesIt() throws IOException {
+        List<Task> expected = journaledChanges(new ScheduleManager());
+        assertFalse(SNAPSHOT.exists(), "the journal mode rewrote tasks.json on save");
+        assertEquals(1, Journal.segments(JOURNAL).size());
+
+        ScheduleManager loaded = new ScheduleManager();
+        TaskPersistence.loadTasks(loaded);
+
+        assertSameTasks(expected, loaded);
+        assertTrue(Journal.segments(JOURNAL).isEmpty(), "journal left after folding it in");
+        ScheduleManager fromSnapshot = new ScheduleManager();
+        TaskPersistence.loadTasks(fromSnapshot, SNAPSHOT);
+        assertSameTasks(expected, fromSnapshot);
+    }
+
+    @Test
+    void replayingTheSameRecordsTwiceIsHarmless() throws IOException {
+        List<Task> expected = journaledChanges(new ScheduleManager());
+        Path segment = Journal.segments(JOURNAL).get(0).toPath();
+        byte[] records = Files.readAllBytes(segment);
+        TaskPersistence.loadTasks(new ScheduleManager());
+
+        //a crash after tasks.json was written but before the journal was deleted: the same
+        //records are replayed over a snapshot that already has them
+        Files.write(segment, records);
+        ScheduleManager loaded = new ScheduleManager();
+        TaskPersistence.loadTasks(loaded);
+
+        assertSameTasks(expected, loaded);
+        assertTrue(Journal.segments(JOURNAL).isEmpty());
+    }
+
+    @Test
+    void tornRecordAtTheEndIsDropped() throws IOException {
+        List<Task> expected = journaledChanges(new ScheduleManager());
+        Path segment = Journal.segments(JOURNAL).get(0).toPath();
+        Files.write(segment, "{\"op\":\"create\",\"id\":\"torn\",\"descr".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        ScheduleManager loaded = new ScheduleManager();
+        TaskPersistence.loadTasks(loaded);
+
+        assertSameTasks(expected, loaded);
+    }
+
+    @Test
+    void compactionDeletesTheCoveredSegmentsAfterTheSnapshot() throws IOException {
+        ScheduleManager manager = new ScheduleManager();
+        TaskPersistence.openJournal(manager);
+        manager.addTask("Before", LocalTime.of(9, 0), LocalTime.of(10, 0), DAY, false, "HIGH");
+        TaskPersistence.saveTasks(manager);
+
+        TaskPersistence.compactJournal();
+
+        //segment 1 is in tasks.json now, changes after the cut go to segment 2
+        List<File> segments = Journal.segments(JOURNAL);
+        assertEquals(List.of("tasks.journal.2"), segments.stream().map(File::getName).toList());
+        ScheduleManager fromSnapshot = new ScheduleManager();
+        TaskPersistence.loadTasks(fromSnapshot, SNAPSHOT);
+        assertSameTasks(manager.getAllTasks(), fromSnapshot);
+
+        manager.addTask("After", LocalTime.of(10, 0), LocalTime.of(11, 0), DAY, false, "LOW");
+        TaskPersistence.saveTasks(manager);
+        TaskPersistence.closeJournal();
+        ScheduleManager loaded = new ScheduleManager();
+        TaskPersistence.loadTasks(loaded);
+        assertSameTasks(manager.getAllTasks(), loaded);
+    }
+
+    @Test
+    void failedSnapshotKeepsTheSegments() throws IOException {
+        ScheduleManager manager = new ScheduleManager();
+        TaskPersistence.openJournal(manager);
+        manager.addTask("Only in the journal", LocalTime.of(9, 0), LocalTime.of(10, 0), DAY, false, "HIGH");
+        TaskPersistence.saveTasks(manager);
+
+        //the temp file can't be created, so the snapshot never lands
+        Files.createDirectory(Paths.get("tasks.json.tmp"));
+        assertThrows(IOException.class, TaskPersistence::compactJournal);
+        Files.delete(Paths.get("tasks.json.tmp"));
+
+        assertFalse(SNAPSHOT.exists());
+        assertTrue(new File("tasks.journal.1").exists(), "segment deleted without a snapshot covering it");
+        TaskPersistence.closeJournal();
+        ScheduleManager loaded = new ScheduleManager();
+        TaskPersistence.loadTasks(loaded);
+        assertSameTasks(manager.getAllTasks(), loaded);
+    }
+}
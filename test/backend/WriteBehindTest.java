@@ -0,0 +1,103 @@
+package backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class WriteBehindTest {
+
+    @Test
+    void burstOfChangesIsOneWrite() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        CountDownLatch written = new CountDownLatch(1);
+        WriteBehind behind = new WriteBehind("test", 100, () -> {
+            writes.incrementAndGet();
+            written.countDown();
+        });
+        try {
+            for (int i = 0; i < 50; i++) {
+                behind.markDirty();
+            }
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            Thread.sleep(300); //long enough for a second write, if one had been scheduled
+            assertEquals(1, writes.get());
+        } finally {
+            behind.close();
+        }
+        assertEquals(1, writes.get(), "close() wrote again with nothing dirty");
+    }
+
+    @Test
+    void failedWriteIsRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch succeeded = new CountDownLatch(1);
+        WriteBehind behind = new WriteBehind("test", 20, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("disk full");
+            }
+            succeeded.countDown();
+        });
+        try {
+            behind.markDirty();
+            assertTrue(succeeded.await(5, TimeUnit.SECONDS), "the failed write was never retried");
+            assertEquals(2, attempts.get());
+        } finally {
+            behind.close();
+        }
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void changeDuringAWriteSchedulesAnother() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch finishFirst = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehind behind = new WriteBehind("test", 20, () -> {
+            if (writes.incrementAndGet() == 1) {
+                firstStarted.countDown();
+                try {
+                    finishFirst.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                secondDone.countDown();
+            }
+        });
+        try {
+            behind.markDirty();
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            behind.markDirty(); //the running write may already have read the old state
+            finishFirst.countDown();
+            assertTrue(secondDone.await(5, TimeUnit.SECONDS), "the change made during a write was dropped");
+        } finally {
+            finishFirst.countDown();
+            behind.close();
+        }
+    }
+
+    @Test
+    void closeWritesWhatIsStillDirty() {
+        AtomicInteger writes = new AtomicInteger();
+        Thread[] writer = new Thread[1];
+        WriteBehind behind = new WriteBehind("test", 60_000, () -> {
+            writes.incrementAndGet();
+            writer[0] = Thread.currentThread();
+        });
+        behind.markDirty();
+        behind.markDirty();
+
+        behind.close();
+
+        assertEquals(1, writes.get());
+        assertEquals(Thread.currentThread(), writer[0], "the final write ran on the background thread");
+        behind.markDirty(); //after close: ignored, nothing left to write it
+        assertEquals(1, writes.get());
+    }
+}
@@ -0,0 +1,52 @@
+package backend.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RequestExecutorTest {
+
+    @Test
+    void handedOffExchangeKeepsItsPlaceUntilDone() throws Exception {
+        RequestExecutor executor = RequestExecutor.create("platform", 1, 4);
+        ExecutorService elsewhere = Executors.newSingleThreadExecutor();
+        CountDownLatch finish = new CountDownLatch(1);
+        CountDownLatch secondRan = new CountDownLatch(1);
+        try {
+            //like Bulkhead.wrap: the handler returns at once, another thread finishes the exchange
+            executor.execute(() -> {
+                Runnable done = RequestExecutor.handOff();
+                elsewhere.execute(() -> {
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.run();
+                    }
+                });
+            });
+            Thread dispatcher = new Thread(() -> executor.execute(secondRan::countDown));
+            dispatcher.start();
+
+            assertFalse(secondRan.await(200, TimeUnit.MILLISECONDS), "ran while the first exchange was in flight");
+            finish.countDown();
+            assertTrue(secondRan.await(5, TimeUnit.SECONDS));
+            dispatcher.join();
+        } finally {
+            finish.countDown();
+            elsewhere.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void handOffOutsideAnExchangeIsHarmless() {
+        RequestExecutor.handOff().run();
+    }
+}
@@ -0,0 +1,137 @@
+package backend.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+
+class StaticFileHandlerTest {
+    private static final long LENGTH = 100;
+
+    private static void assertRange(long start, long end, String header) {
+        assertArrayEquals(new long[] {start, end}, StaticFileHandler.parseRange(header, LENGTH), header);
+    }
+
+    private static void assertUnsatisfiable(String header) {
+        assertSame(StaticFileHandler.UNSATISFIABLE, StaticFileHandler.parseRange(header, LENGTH), header);
+    }
+
+    private static void assertIgnored(String header) {
+        assertNull(StaticFileHandler.parseRange(header, LENGTH), header);
+    }
+
+    @Test
+    void plainRanges() {
+        assertRange(0, 0, "bytes=0-0");
+        assertRange(10, 19, "bytes=10-19");
+        assertRange(10, 99, "bytes=10-");
+        assertRange(99, 99, "bytes=99-");
+        assertRange(0, 99, " bytes= 0 - 99 ");
+    }
+
+    @Test
+    void lastByteIsCappedAtTheEndOfTheFile() {
+        assertRange(90, 99, "bytes=90-1000");
+        assertRange(0, 99, "bytes=0-" + Long.MAX_VALUE);
+    }
+
+    @Test
+    void suffixRanges() {
+        assertRange(90, 99, "bytes=-10");
+        assertRange(0, 99, "bytes=-100");
+        assertRange(0, 99, "bytes=-1000"); //longer than the file: all of it
+        assertUnsatisfiable("bytes=-0");
+    }
+
+    @Test
+    void startAtOrPastTheEndIsUnsatisfiable() {
+        assertUnsatisfiable("bytes=100-");
+        assertUnsatisfiable("bytes=150-");
+        assertUnsatisfiable("bytes=100-200");
+        assertSame(StaticFileHandler.UNSATISFIABLE, StaticFileHandler.parseRange("bytes=0-", 0));
+        assertSame(StaticFileHandler.UNSATISFIABLE, StaticFileHandler.parseRange("bytes=-5", 0));
+    }
+
+    @Test
+    void headersToIgnore() {
+        assertIgnored("items=0-10");
+        assertIgnored("bytes=0-10,20-30"); //several ranges: send the whole file
+        assertIgnored("bytes=10");
+        assertIgnored("bytes=-");
+        assertIgnored("bytes=20-10");
+        assertIgnored("bytes=a-10");
+        assertIgnored("bytes=0-x");
+    }
+
+    //the handler serves frontend/ under the working directory, which Maven points at target/test-work
+    @Test
+    void rangeRequestsOverHttp() throws Exception {
+        assumeTrue(Paths.get("").toAbsolutePath().endsWith("test-work"), "run through Maven");
+        Path frontend = Files.createDirectories(Paths.get("frontend"));
+        Path file = frontend.resolve("range-test.txt");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < LENGTH; i++) {
+            content.append((char) ('a' + i % 26));
+        }
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new StaticFileHandler());
+        server.start();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/range-test.txt");
+        try {
+            HttpResponse<String> full = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, full.statusCode());
+            String etag = full.headers().firstValue("ETag").orElseThrow();
+            String lastModified = full.headers().firstValue("Last-Modified").orElseThrow();
+
+            HttpResponse<String> slice = get(client, uri, "bytes=10-19", null);
+            assertEquals(206, slice.statusCode());
+            assertEquals("bytes 10-19/100", slice.headers().firstValue("Content-Range").orElse(null));
+            assertEquals(content.substring(10, 20), slice.body());
+
+            HttpResponse<String> suffix = get(client, uri, "bytes=-1000", null);
+            assertEquals(206, suffix.statusCode());
+            assertEquals("bytes 0-99/100", suffix.headers().firstValue("Content-Range").orElse(null));
+            assertEquals(content.toString(), suffix.body());
+
+            HttpResponse<String> pastEnd = get(client, uri, "bytes=100-", null);
+            assertEquals(416, pastEnd.statusCode());
+            assertEquals("bytes */100", pastEnd.headers().firstValue("Content-Range").orElse(null));
+
+            //If-Range: the range only applies while the client's copy is current
+            assertEquals(206, get(client, uri, "bytes=0-9", etag).statusCode());
+            assertEquals(206, get(client, uri, "bytes=0-9", lastModified).statusCode());
+            HttpResponse<String> staleTag = get(client, uri, "bytes=0-9", "\"0-0\"");
+            assertEquals(200, staleTag.statusCode());
+            assertEquals(content.toString(), staleTag.body());
+            assertEquals(200, get(client, uri, "bytes=0-9", "Thu, 01 Jan 1970 00:00:00 GMT").statusCode());
+            assertEquals(200, get(client, uri, "bytes=0-9", "W/" + etag).statusCode()); //weak tags never match
+        } finally {
+            server.stop(0);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, URI uri, String range, String ifRange) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).header("Range", range);
+        if (ifRange != null) {
+            request.header("If-Range", ifRange);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}